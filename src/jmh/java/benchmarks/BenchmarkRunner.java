@@ -0,0 +1,36 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with defaults suited for tracking results across versions:
+ * JSON results in target/jmh-result.json and the GC profiler for allocation rates.
+ * Any standard JMH option given on the command line takes precedence, e.g.
+ * {@code -rf csv -rff results.csv} or {@code -prof stack}.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+
+        ResultFormatType format = commandLine.getResultFormat().orElse(ResultFormatType.JSON);
+        options.resultFormat(format);
+        if (!commandLine.getResult().hasValue()) {
+            options.result("target/jmh-result." + format.name().toLowerCase());
+        }
+        if (commandLine.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+
+        new Runner(options.build()).run();
+    }
+}
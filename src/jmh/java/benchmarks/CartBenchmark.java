@@ -0,0 +1,78 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import shop.Cart;
+import shop.Item;
+import shop.PricingRules;
+import shop.RealItem;
+import shop.VirtualItem;
+
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    private int items;
+
+    private Cart cart;
+    private Cart pricedCart;
+    private RealItem existingItem;
+    private RealItem newItem;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cart = CartGenerator.generate("benchmark-cart", items);
+        existingItem = cart.getRealItems().iterator().next();
+        newItem = CartGenerator.realItem(new Random(7), 1);
+        newItem.setName("benchmark-only-item");
+        pricedCart = CartGenerator.generate("priced-cart", items);
+        pricedCart.setPricingEngine(PricingRules.builder()
+                .taxRate(Item.class, 0.2)
+                .taxRate(VirtualItem.class, "DE", 0.07)
+                .discount(RealItem.class, null, 5, 2)
+                .rounding(2, RoundingMode.HALF_EVEN)
+                .build()
+                .compile("DE"));
+    }
+
+    /**
+     * Adds and removes a unit so the cart keeps its size across invocations.
+     */
+    @Benchmark
+    public Cart addAndDeleteRealItem() {
+        cart.addRealItem(newItem);
+        cart.deleteRealItem(newItem);
+        return cart;
+    }
+
+    /**
+     * Removes the oldest unit of an existing key and adds it back at the end.
+     */
+    @Benchmark
+    public Cart deleteAndAddExistingRealItem() {
+        cart.deleteRealItem(existingItem);
+        cart.addRealItem(existingItem);
+        return cart;
+    }
+
+    @Benchmark
+    public double getTotalPrice() {
+        return cart.getTotalPrice();
+    }
+
+    /**
+     * Total through a compiled rule set: one cached rule lookup and a few multiplications per line.
+     */
+    @Benchmark
+    public double getTotalPriceWithPricingRules() {
+        return pricedCart.getTotalPrice();
+    }
+}
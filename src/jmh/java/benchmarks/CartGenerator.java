@@ -0,0 +1,63 @@
+package benchmarks;
+
+import shop.Cart;
+import shop.RealItem;
+import shop.VirtualItem;
+
+import java.util.Random;
+
+/**
+ * Builds reproducible carts for benchmarks: the same size and seed always give the same items.
+ */
+public final class CartGenerator {
+
+    public static final long DEFAULT_SEED = 42;
+
+    private static final String[] REAL_PRODUCTS = {"Audi", "BMW", "Chair", "Desk", "Lamp", "Monitor", "Keyboard"};
+    private static final String[] VIRTUAL_PRODUCTS = {"Windows", "Microsoft office", "Game", "E-book", "Antivirus"};
+
+    private CartGenerator() {
+    }
+
+    public static Cart generate(String cartName, int items) {
+        return generate(cartName, items, DEFAULT_SEED);
+    }
+
+    /**
+     * Half of the items are real, half virtual. Names repeat so that carts contain
+     * several units of the same product, as real carts do.
+     */
+    public static Cart generate(String cartName, int items, long seed) {
+        Random random = new Random(seed);
+        Cart cart = new Cart(cartName);
+        int distinctNames = Math.max(1, items / 4);
+        for (int i = 0; i < items; i++) {
+            if (i % 2 == 0) {
+                cart.addRealItem(realItem(random, distinctNames));
+            } else {
+                cart.addVirtualItem(virtualItem(random, distinctNames));
+            }
+        }
+        return cart;
+    }
+
+    public static RealItem realItem(Random random, int distinctNames) {
+        RealItem item = new RealItem();
+        item.setName(REAL_PRODUCTS[random.nextInt(REAL_PRODUCTS.length)] + "-" + random.nextInt(distinctNames));
+        item.setPrice(price(random));
+        item.setWeight(random.nextInt(500_000) / 100.0);
+        return item;
+    }
+
+    public static VirtualItem virtualItem(Random random, int distinctNames) {
+        VirtualItem item = new VirtualItem();
+        item.setName(VIRTUAL_PRODUCTS[random.nextInt(VIRTUAL_PRODUCTS.length)] + "-" + random.nextInt(distinctNames));
+        item.setPrice(price(random));
+        item.setSizeOnDisk(random.nextInt(100_000) / 10.0);
+        return item;
+    }
+
+    private static double price(Random random) {
+        return random.nextInt(10_000_000) / 100.0;
+    }
+}
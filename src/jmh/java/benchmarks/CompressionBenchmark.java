@@ -0,0 +1,77 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import parser.JsonParser;
+import shop.Cart;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU cost of gzip against plain JSON. Level 0 means uncompressed; the file size of each
+ * configuration is reported as the {@code bytes} auxiliary counter, so the CPU time can be
+ * weighed against the I/O and page cache it saves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({"1000", "100000"})
+    private int items;
+
+    @Param({"0", "1", "6", "9"})
+    private int level;
+
+    private JsonParser jsonParser;
+    private Cart cart;
+    private Path directory;
+    private File readFile;
+    private File writeFile;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class FileSize {
+        public long bytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        jsonParser = new JsonParser();
+        jsonParser.setCompressed(level > 0);
+        if (level > 0) {
+            jsonParser.setCompressionLevel(level);
+        }
+        cart = CartGenerator.generate("benchmark-cart", items);
+        directory = Files.createTempDirectory("compression-benchmark");
+        readFile = directory.resolve("read-cart.json").toFile();
+        writeFile = directory.resolve("write-cart.json").toFile();
+        jsonParser.writeToFile(cart, readFile, false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(readFile.toPath());
+        Files.deleteIfExists(writeFile.toPath());
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public Cart readFromFile() {
+        return jsonParser.readFromFile(readFile);
+    }
+
+    @Benchmark
+    public void writeToFile(FileSize fileSize, Blackhole blackhole) throws IOException {
+        jsonParser.writeToFile(cart, writeFile, false);
+        fileSize.bytes = writeFile.length();
+        blackhole.consume(fileSize.bytes);
+    }
+}
@@ -0,0 +1,74 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+import shop.Cart;
+import shop.ConcurrentCart;
+import shop.RealItem;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contention benchmark: all threads update one shared cart. Compare a plain Cart behind
+ * a single monitor with ConcurrentCart, e.g. with {@code -t 1,4,16}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class ConcurrentCartBenchmark {
+
+    private static final int DISTINCT_ITEMS = 1_000;
+
+    private final Cart synchronizedCart = new Cart("synchronized-cart");
+    private final ConcurrentCart concurrentCart = new ConcurrentCart("concurrent-cart");
+    private RealItem[] items;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(CartGenerator.DEFAULT_SEED);
+        items = new RealItem[DISTINCT_ITEMS];
+        for (int i = 0; i < DISTINCT_ITEMS; i++) {
+            items[i] = CartGenerator.realItem(random, DISTINCT_ITEMS);
+            items[i].setName("item-" + i);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        /**
+         * Every thread starts at its own reproducible position.
+         */
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams threadParams) {
+            next = new Random(CartGenerator.DEFAULT_SEED + threadParams.getThreadIndex()).nextInt(DISTINCT_ITEMS);
+        }
+
+        RealItem next(RealItem[] items) {
+            next = (next + 1) % items.length;
+            return items[next];
+        }
+    }
+
+    @Benchmark
+    public void synchronizedCart(Cursor cursor) {
+        RealItem item = cursor.next(items);
+        synchronized (synchronizedCart) {
+            synchronizedCart.addRealItem(item);
+            synchronizedCart.deleteRealItem(item);
+        }
+    }
+
+    @Benchmark
+    public void concurrentCart(Cursor cursor) {
+        RealItem item = cursor.next(items);
+        concurrentCart.addRealItem(item);
+        concurrentCart.deleteRealItem(item);
+    }
+}
@@ -0,0 +1,74 @@
+package benchmarks;
+
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+import parser.CartGson;
+import parser.JsonParser;
+import shop.Cart;
+import shop.RealItem;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reflective Gson against the registered hand-written adapters. Items are compared as arrays,
+ * which both configurations can bind; carts only through the adapters, since reflection can no
+ * longer rebuild a cart's internal index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GsonAdapterBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int items;
+
+    private final Gson reflective = new Gson();
+    private final Gson adapters = CartGson.gson();
+    private final JsonParser jsonParser = new JsonParser();
+    private RealItem[] realItems;
+    private String realItemsJson;
+    private String cartJson;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Cart cart = CartGenerator.generate("benchmark-cart", items);
+        realItems = cart.getRealItems().toArray(new RealItem[0]);
+        realItemsJson = adapters.toJson(realItems);
+        cartJson = adapters.toJson(cart);
+    }
+
+    @Benchmark
+    public RealItem[] readItemsReflective() {
+        return reflective.fromJson(realItemsJson, RealItem[].class);
+    }
+
+    @Benchmark
+    public RealItem[] readItemsAdapters() {
+        return adapters.fromJson(realItemsJson, RealItem[].class);
+    }
+
+    @Benchmark
+    public String writeItemsReflective() {
+        return reflective.toJson(realItems);
+    }
+
+    @Benchmark
+    public String writeItemsAdapters() {
+        return adapters.toJson(realItems);
+    }
+
+    @Benchmark
+    public Cart readCartAdapters() {
+        return adapters.fromJson(cartJson, Cart.class);
+    }
+
+    @Benchmark
+    public Cart readCartParser() throws IOException {
+        return jsonParser.read(new StringReader(cartJson));
+    }
+}
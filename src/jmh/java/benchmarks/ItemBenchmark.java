@@ -0,0 +1,79 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import shop.Cart;
+import shop.RealItem;
+import shop.VirtualItem;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemBenchmark {
+
+    private RealItem realItem;
+    private VirtualItem virtualItem;
+    private Cart cart;
+    private final StringBuilder builder = new StringBuilder(256);
+    private final ByteBuffer buffer = ByteBuffer.allocate(1024);
+    private final Writer nullWriter = Writer.nullWriter();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(CartGenerator.DEFAULT_SEED);
+        realItem = CartGenerator.realItem(random, 100);
+        virtualItem = CartGenerator.virtualItem(random, 100);
+        cart = CartGenerator.generate("render-cart", 1000);
+    }
+
+    @Benchmark
+    public String realItemToString() {
+        return realItem.toString();
+    }
+
+    @Benchmark
+    public String virtualItemToString() {
+        return virtualItem.toString();
+    }
+
+    @Benchmark
+    public StringBuilder realItemAppendToBuilder() {
+        builder.setLength(0);
+        return realItem.appendTo(builder);
+    }
+
+    @Benchmark
+    public ByteBuffer realItemAppendToBuffer() {
+        buffer.clear();
+        return realItem.appendTo(buffer);
+    }
+
+    /**
+     * Rendering a cart of 1000 items, for comparison with a toString per item.
+     */
+    @Benchmark
+    public Writer renderItems() throws IOException {
+        cart.renderItems(nullWriter);
+        return nullWriter;
+    }
+
+    @Benchmark
+    public int renderItemsWithToString() {
+        int length = 0;
+        for (RealItem item : cart.getRealItems()) {
+            length += item.toString().length();
+        }
+        for (VirtualItem item : cart.getVirtualItems()) {
+            length += item.toString().length();
+        }
+        return length;
+    }
+}
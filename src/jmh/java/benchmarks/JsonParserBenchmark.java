@@ -0,0 +1,61 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import parser.JsonParser;
+import shop.Cart;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonParserBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    private int items;
+
+    private JsonParser jsonParser;
+    private Cart cart;
+    private Path directory;
+    private File readFile;
+    private File writeFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        jsonParser = new JsonParser();
+        cart = CartGenerator.generate("benchmark-cart", items);
+        directory = Files.createTempDirectory("json-parser-benchmark");
+        readFile = directory.resolve("read-cart.json").toFile();
+        writeFile = directory.resolve("write-cart.json").toFile();
+        jsonParser.writeToFile(cart, readFile, false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(readFile.toPath());
+        Files.deleteIfExists(writeFile.toPath());
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public Cart readFromFile() {
+        return jsonParser.readFromFile(readFile);
+    }
+
+    @Benchmark
+    public double readLazilyTotal() {
+        return jsonParser.readLazily(readFile).getTotalPrice();
+    }
+
+    @Benchmark
+    public void writeToFile() throws IOException {
+        jsonParser.writeToFile(cart, writeFile, false);
+    }
+}
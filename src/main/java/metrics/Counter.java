@@ -0,0 +1,10 @@
+package metrics;
+
+public interface Counter {
+
+    void add(long amount);
+
+    default void increment() {
+        add(1);
+    }
+}
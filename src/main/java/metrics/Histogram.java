@@ -0,0 +1,9 @@
+package metrics;
+
+/**
+ * Distribution of non-negative values, typically latencies in nanoseconds.
+ */
+public interface Histogram {
+
+    void record(long value);
+}
@@ -0,0 +1,50 @@
+package metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps counters as {@link LongAdder}s and histograms as {@link LogLinearHistogram}s in memory,
+ * for tests, diagnostics or periodic export.
+ */
+public class InMemoryMetricsRegistry implements MetricsRegistry {
+
+    private final Map<String, AdderCounter> counters = new ConcurrentHashMap<>();
+    private final Map<String, LogLinearHistogram> histograms = new ConcurrentHashMap<>();
+
+    @Override
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new AdderCounter());
+    }
+
+    @Override
+    public LogLinearHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new LogLinearHistogram());
+    }
+
+    /**
+     * Current value of the counter, 0 if it was never used.
+     */
+    public long getCount(String name) {
+        AdderCounter counter = counters.get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Current values of all counters, sorted by name.
+     */
+    public Map<String, Long> getCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        counters.forEach((name, counter) -> counts.put(name, counter.sum()));
+        return counts;
+    }
+
+    public Map<String, LogLinearHistogram> getHistograms() {
+        return new TreeMap<>(histograms);
+    }
+
+    private static final class AdderCounter extends LongAdder implements Counter {
+    }
+}
@@ -0,0 +1,21 @@
+package metrics;
+
+/**
+ * The process-wide registry used by instrumented classes that were not given one of their own.
+ * Metrics are off until a registry is set.
+ */
+public final class Metrics {
+
+    private static volatile MetricsRegistry registry = MetricsRegistry.NOOP;
+
+    private Metrics() {
+    }
+
+    public static MetricsRegistry getRegistry() {
+        return registry;
+    }
+
+    public static void setRegistry(MetricsRegistry registry) {
+        Metrics.registry = registry == null ? MetricsRegistry.NOOP : registry;
+    }
+}
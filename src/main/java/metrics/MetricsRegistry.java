@@ -0,0 +1,44 @@
+package metrics;
+
+/**
+ * Source of named counters and histograms. Implement it to forward the parser's and the carts'
+ * measurements to a monitoring system, or use {@link InMemoryMetricsRegistry}.
+ * <p>
+ * Instrumented code asks for its instruments once and keeps them, so lookups need not be fast.
+ */
+public interface MetricsRegistry {
+
+    /**
+     * Discards everything. Instrumented code checks {@link #isEnabled()} and skips taking
+     * timestamps and sizes, so leaving metrics off costs next to nothing.
+     */
+    MetricsRegistry NOOP = new MetricsRegistry() {
+        private final Counter counter = amount -> {
+        };
+        private final Histogram histogram = value -> {
+        };
+
+        @Override
+        public Counter counter(String name) {
+            return counter;
+        }
+
+        @Override
+        public Histogram histogram(String name) {
+            return histogram;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+    };
+
+    Counter counter(String name);
+
+    Histogram histogram(String name);
+
+    default boolean isEnabled() {
+        return true;
+    }
+}
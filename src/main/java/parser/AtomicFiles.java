@@ -0,0 +1,67 @@
+package parser;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Replaces files atomically: the content goes to a hidden temp file next to the target,
+ * which is then renamed over it. Readers opening the target see either the old or the new
+ * content, never a partial write, and need no lock.
+ */
+final class AtomicFiles {
+
+    private AtomicFiles() {
+    }
+
+    /**
+     * Writes the target through a temp file in the same directory and moves it into place.
+     * With {@code fsync} the file and the directory entry are forced to the device, so the
+     * new content also survives a power loss. On failure the target is left untouched.
+     *
+     * @throws AtomicMoveNotSupportedException if the file system cannot rename atomically
+     */
+    static void write(Path target, boolean fsync, ChannelWriter body) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Path temp = directory.resolve("." + target.getFileName() + "."
+                + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                body.write(channel);
+                if (fsync) {
+                    channel.force(true);
+                }
+            }
+            // no fallback to a plain move: readers could then see a partly replaced target
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException cleanup) {
+                e.addSuppressed(cleanup);
+            }
+            throw e;
+        }
+        if (fsync) {
+            forceDirectory(directory);
+        }
+    }
+
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // not every platform can open or sync a directory; the rename itself is still atomic
+        }
+    }
+
+    @FunctionalInterface
+    interface ChannelWriter {
+        void write(FileChannel channel) throws IOException;
+    }
+}
@@ -0,0 +1,352 @@
+package parser;
+
+import metrics.Metrics;
+import metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import shop.Cart;
+import shop.CartLine;
+import shop.NamePool;
+import shop.ConcurrentCart;
+import shop.RealItem;
+import shop.VirtualItem;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Compact binary cart format. Layout, all numbers big-endian:
+ * <pre>
+ * int     magic "CART"
+ * byte    version
+ * string  cartName
+ * int     realItems line count, then per line: string name, double price, double weight, int quantity
+ * int     virtualItems line count, then per line: string name, double price, double sizeOnDisk, int quantity
+ * </pre>
+ * A string is an int byte length (-1 for null) followed by UTF-8 bytes. The total is
+ * not stored since the cart derives it from its items. Version 1 files, which hold one record
+ * per unit and no quantities, are still read.
+ */
+public class BinaryParser implements Parser {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BinaryParser.class);
+
+    static final int MAGIC = 0x43415254;
+    static final byte VERSION = 2;
+    private static final byte UNIT_RECORDS_VERSION = 1;
+
+    private static final String METRICS_PREFIX = "parser.binary";
+    private static final String RESOURCES_PATH = "src/main/resources/";
+    private static final String EXTENSION = ".cart";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final CartStorage storage;
+    private boolean atomicWrites;
+    private MetricsRegistry metricsRegistry;
+    private volatile ParserMetrics metrics = new ParserMetrics(MetricsRegistry.NOOP, METRICS_PREFIX);
+
+    /**
+     * Keeps carts in {@code src/main/resources}. Names are percent-encoded, so any cart name is
+     * a valid file name; files saved under the raw name by earlier versions are still read.
+     */
+    public BinaryParser() {
+        this(new FileSystemStorage(Path.of(RESOURCES_PATH), NameCodec.PERCENT, NameCodec.IDENTITY));
+    }
+
+    public BinaryParser(CartStorage storage) {
+        this.storage = storage;
+    }
+
+    public CartStorage getStorage() {
+        return storage;
+    }
+
+    public boolean isAtomicWrites() {
+        return atomicWrites;
+    }
+
+    /**
+     * Writes through a temp file and an atomic rename, as {@link JsonParser#setAtomicWrites(boolean)}.
+     */
+    public void setAtomicWrites(boolean atomicWrites) {
+        this.atomicWrites = atomicWrites;
+    }
+
+    public MetricsRegistry getMetricsRegistry() {
+        return metricsRegistry != null ? metricsRegistry : Metrics.getRegistry();
+    }
+
+    /**
+     * Registry for the {@code parser.binary.*} read and write metrics; by default the global one
+     * from {@link Metrics}.
+     */
+    public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    private ParserMetrics metrics() {
+        MetricsRegistry registry = getMetricsRegistry();
+        ParserMetrics current = metrics;
+        if (current.getRegistry() != registry) {
+            current = new ParserMetrics(registry, METRICS_PREFIX);
+            metrics = current;
+        }
+        return current;
+    }
+
+    public void writeToFile(Cart cart) {
+        writeToFile(cart, false);
+    }
+
+    public void writeToFile(Cart cart, boolean fsync) {
+        try {
+            writeCart(cart, fsync);
+        } catch (IOException e) {
+            LOGGER.error("Could not write cart {}", cart.getCartName() + EXTENSION, e);
+        }
+    }
+
+    @Override
+    public void writeCart(Cart cart) throws IOException {
+        writeCart(cart, false);
+    }
+
+    /**
+     * Writes the cart under its name like {@link #writeToFile(Cart, boolean)}, but throws
+     * instead of logging when the write fails.
+     */
+    public void writeCart(Cart cart, boolean fsync) throws IOException {
+        String key = cart.getCartName() + EXTENSION;
+        ParserMetrics metrics = metrics();
+        long start = metrics.start();
+        CartWriteEvent event = metrics.beginWrite();
+        try {
+            storage.write(key, atomicWrites, fsync, out -> write(cart, new BufferedOutputStream(out, BUFFER_SIZE)));
+        } catch (IOException | RuntimeException e) {
+            metrics.failed("write", e);
+            throw e;
+        }
+        if (metrics.isRecording(event)) {
+            metrics.written(start, event, key, storage.size(key), cart);
+        }
+    }
+
+    public File fileFor(String cartName) {
+        Path path = storage.pathOf(cartName + EXTENSION);
+        if (path == null) {
+            throw new UnsupportedOperationException(storage + " does not keep carts in files");
+        }
+        return path.toFile();
+    }
+
+    @Override
+    public Cart readCart(String cartName) {
+        String key = cartName + EXTENSION;
+        ParserMetrics metrics = metrics();
+        long start = metrics.start();
+        CartReadEvent event = metrics.beginRead();
+        try (InputStream in = new BufferedInputStream(storage.openInput(key), BUFFER_SIZE)) {
+            Cart cart = read(in);
+            if (metrics.isRecording(event)) {
+                metrics.read(start, event, key, storage.size(key), cart);
+            }
+            return cart;
+        } catch (java.nio.file.NoSuchFileException ex) {
+            metrics.failed("read", ex);
+            throw new NoSuchFileException(String.format("File %s not found!", key), ex);
+        } catch (IOException e) {
+            metrics.failed("read", e);
+            LOGGER.error("Could not read cart {}", key, e);
+        } catch (RuntimeException e) {
+            metrics.failed("read", e);
+            throw e;
+        }
+
+        return null;
+    }
+
+    @Override
+    public long lastModified(String cartName) {
+        return storage.lastModified(cartName + EXTENSION);
+    }
+
+    @Override
+    public long length(String cartName) {
+        return storage.size(cartName + EXTENSION);
+    }
+
+    public void writeToFile(Cart cart, File file, boolean fsync) throws IOException {
+        ParserMetrics metrics = metrics();
+        long start = metrics.start();
+        CartWriteEvent event = metrics.beginWrite();
+        try {
+            if (atomicWrites) {
+                AtomicFiles.write(file.toPath(), fsync,
+                        channel -> write(cart, new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE)));
+            } else {
+                try (FileChannel channel = FileChannel.open(file.toPath(),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    write(cart, new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+                    if (fsync) {
+                        channel.force(true);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            metrics.failed("write", e);
+            throw e;
+        }
+        if (metrics.isRecording(event)) {
+            metrics.written(start, event, file.getName(), file.length(), cart);
+        }
+    }
+
+    public void write(Cart cart, OutputStream outputStream) throws IOException {
+        if (cart instanceof ConcurrentCart concurrentCart) {
+            cart = concurrentCart.snapshot();
+        }
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        writeString(out, cart.getCartName());
+
+        List<CartLine<RealItem>> realLines = cart.getRealLines();
+        out.writeInt(realLines.size());
+        for (CartLine<RealItem> line : realLines) {
+            RealItem item = line.item();
+            writeString(out, item.getName());
+            out.writeDouble(item.getPrice());
+            out.writeDouble(item.getWeight());
+            out.writeInt(line.quantity());
+        }
+        List<CartLine<VirtualItem>> virtualLines = cart.getVirtualLines();
+        out.writeInt(virtualLines.size());
+        for (CartLine<VirtualItem> line : virtualLines) {
+            VirtualItem item = line.item();
+            writeString(out, item.getName());
+            out.writeDouble(item.getPrice());
+            out.writeDouble(item.getSizeOnDisk());
+            out.writeInt(line.quantity());
+        }
+        out.flush();
+    }
+
+    public Cart readFromFile(File file) {
+        ParserMetrics metrics = metrics();
+        long start = metrics.start();
+        CartReadEvent event = metrics.beginRead();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE)) {
+            Cart cart = read(in);
+            if (metrics.isRecording(event)) {
+                metrics.read(start, event, file.getName(), file.length(), cart);
+            }
+            return cart;
+        } catch (FileNotFoundException ex) {
+            metrics.failed("read", ex);
+            throw new NoSuchFileException(String.format("File %s not found!", file), ex);
+        } catch (IOException e) {
+            metrics.failed("read", e);
+            LOGGER.error("Could not read cart from {}", file, e);
+        } catch (RuntimeException e) {
+            metrics.failed("read", e);
+            throw e;
+        }
+
+        return null;
+    }
+
+    public Cart read(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new CartFormatException("Not a binary cart file");
+            }
+            byte version = in.readByte();
+            if (version != VERSION && version != UNIT_RECORDS_VERSION) {
+                throw new CartFormatException(String.format("Unsupported binary cart version %d", version));
+            }
+            boolean quantities = version != UNIT_RECORDS_VERSION;
+
+            Cart.Builder cart = Cart.builder(readString(in));
+            int realCount = readCount(in);
+            for (int i = 0; i < realCount; i++) {
+                RealItem item = new RealItem();
+                item.setName(NamePool.shared().intern(readString(in)));
+                item.setPrice(in.readDouble());
+                item.setWeight(in.readDouble());
+                cart.addRealItem(item, quantities ? readQuantity(in) : 1);
+            }
+            int virtualCount = readCount(in);
+            for (int i = 0; i < virtualCount; i++) {
+                VirtualItem item = new VirtualItem();
+                item.setName(NamePool.shared().intern(readString(in)));
+                item.setPrice(in.readDouble());
+                item.setSizeOnDisk(in.readDouble());
+                cart.addVirtualItem(item, quantities ? readQuantity(in) : 1);
+            }
+            return cart.build();
+        } catch (EOFException e) {
+            throw new CartFormatException("Binary cart file is truncated", e);
+        } catch (ArithmeticException e) {
+            throw new CartFormatException("Cart holds more than " + Integer.MAX_VALUE + " units", e);
+        }
+    }
+
+    @Override
+    public BulkReadResult readAll(Path directory) {
+        return BulkReader.readDirectory(this, directory, "*" + EXTENSION, null);
+    }
+
+    @Override
+    public BulkReadResult readAll(Path directory, Executor executor) {
+        return BulkReader.readDirectory(this, directory, "*" + EXTENSION, executor);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0) {
+            throw new CartFormatException(String.format("Invalid string length %d", length));
+        }
+        // read in chunks rather than allocate the length up front, which a corrupt file could set to 2 GB
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException(String.format("String of %d bytes is cut off after %d", length, bytes.length));
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readCount(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new CartFormatException(String.format("Invalid item count %d", count));
+        }
+        return count;
+    }
+
+    private static int readQuantity(DataInputStream in) throws IOException {
+        int quantity = in.readInt();
+        if (quantity <= 0) {
+            throw new CartFormatException(String.format("Invalid quantity %d", quantity));
+        }
+        return quantity;
+    }
+}
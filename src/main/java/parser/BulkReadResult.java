@@ -0,0 +1,30 @@
+package parser;
+
+import shop.Cart;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+
+public class BulkReadResult {
+
+    private final Map<Path, Cart> carts;
+    private final Map<Path, RuntimeException> failures;
+
+    BulkReadResult(Map<Path, Cart> carts, Map<Path, RuntimeException> failures) {
+        this.carts = Collections.unmodifiableMap(carts);
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    public Map<Path, Cart> getCarts() {
+        return carts;
+    }
+
+    public Map<Path, RuntimeException> getFailures() {
+        return failures;
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+}
@@ -0,0 +1,86 @@
+package parser;
+
+import shop.Cart;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Reads many cart files in parallel. A failing file is recorded in the result
+ * instead of aborting the whole batch.
+ */
+final class BulkReader {
+
+    private BulkReader() {
+    }
+
+    static BulkReadResult readDirectory(Parser parser, Path directory, String glob, Executor executor) {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return read(parser, files.stream(), executor);
+    }
+
+    static BulkReadResult read(Parser parser, Stream<Path> files, Executor executor) {
+        if (executor != null) {
+            return read(parser, files.toList(), executor);
+        }
+        try (ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            return read(parser, files.toList(), virtualThreads);
+        }
+    }
+
+    private static BulkReadResult read(Parser parser, List<Path> files, Executor executor) {
+        List<CompletableFuture<Cart>> futures = new ArrayList<>(files.size());
+        for (Path file : files) {
+            futures.add(CompletableFuture.supplyAsync(() -> readOne(parser, file), executor));
+        }
+
+        Map<Path, Cart> carts = new LinkedHashMap<>();
+        Map<Path, RuntimeException> failures = new LinkedHashMap<>();
+        for (int i = 0; i < files.size(); i++) {
+            try {
+                carts.put(files.get(i), futures.get(i).join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    failures.put(files.get(i), cause);
+                } else if (e.getCause() instanceof Error error) {
+                    throw error;
+                } else {
+                    throw e;
+                }
+            }
+        }
+        return new BulkReadResult(carts, failures);
+    }
+
+    private static Cart readOne(Parser parser, Path file) {
+        Cart cart = parser.readFromFile(file.toFile());
+        if (cart == null) {
+            // Missing files already failed with NoSuchFileException; null means the file exists but
+            // held no cart (empty, a bare null) or could not be read, which the parser has logged.
+            throw new CartFormatException(String.format("File %s does not hold a readable cart", file));
+        }
+        return cart;
+    }
+}
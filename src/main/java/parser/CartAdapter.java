@@ -0,0 +1,163 @@
+package parser;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import shop.Cart;
+import shop.CartLine;
+import shop.ConcurrentCart;
+import shop.PricingEngine;
+import shop.RealItem;
+import shop.VirtualItem;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes a {@link Cart} token by token, adding items to the cart as they are read
+ * instead of building an intermediate tree. The layout is the one reflective Gson produced,
+ * except that a line of several equal units is written once with a {@code quantity}. Files with
+ * one entry per unit read as before.
+ * <p>
+ * The stored {@code total} is the cart's own. Carts priced by an engine other than
+ * {@link PricingEngine#STANDARD} write {@code "pricing": "custom"} right before it, so readers
+ * that take the total from the file know it cannot be recomputed from the items alone.
+ */
+final class CartAdapter extends TypeAdapter<Cart> {
+
+    static final String PRICING = "pricing";
+    static final String CUSTOM_PRICING = "custom";
+
+    private final RealItemAdapter realItemAdapter;
+    private final VirtualItemAdapter virtualItemAdapter;
+
+    CartAdapter(RealItemAdapter realItemAdapter, VirtualItemAdapter virtualItemAdapter) {
+        this.realItemAdapter = realItemAdapter;
+        this.virtualItemAdapter = virtualItemAdapter;
+    }
+
+    @Override
+    public void write(JsonWriter out, Cart cart) throws IOException {
+        if (cart == null) {
+            out.nullValue();
+            return;
+        }
+        if (cart instanceof ConcurrentCart concurrentCart) {
+            cart = concurrentCart.snapshot();
+        }
+        out.beginObject();
+        out.name("cartName").value(cart.getCartName());
+        out.name("realItems").beginArray();
+        for (CartLine<RealItem> line : cart.getRealLines()) {
+            realItemAdapter.writeLine(out, line.item(), line.quantity());
+        }
+        out.endArray();
+        out.name("virtualItems").beginArray();
+        for (CartLine<VirtualItem> line : cart.getVirtualLines()) {
+            virtualItemAdapter.writeLine(out, line.item(), line.quantity());
+        }
+        out.endArray();
+        if (cart.getPricingEngine() != PricingEngine.STANDARD) {
+            out.name(PRICING).value(CUSTOM_PRICING);
+        }
+        out.name("total").value(cart.getTotalPrice());
+        out.endObject();
+    }
+
+    @Override
+    public Cart read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        Cart.Builder cart = null;
+        String cartName = null;
+        // Items are only buffered if they show up before the cart name.
+        List<CartLine<RealItem>> pendingRealItems = new ArrayList<>();
+        List<CartLine<VirtualItem>> pendingVirtualItems = new ArrayList<>();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "cartName" -> {
+                    cartName = in.nextString();
+                    cart = Cart.builder(cartName);
+                    addLines(cart, pendingRealItems, pendingVirtualItems);
+                    pendingRealItems.clear();
+                    pendingVirtualItems.clear();
+                }
+                case "realItems" -> {
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        CartLine<RealItem> line = realItemAdapter.readLine(in);
+                        if (line == null) {
+                            continue;
+                        }
+                        if (cart != null) {
+                            addRealLine(cart, line);
+                        } else {
+                            pendingRealItems.add(line);
+                        }
+                    }
+                    in.endArray();
+                }
+                case "virtualItems" -> {
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        CartLine<VirtualItem> line = virtualItemAdapter.readLine(in);
+                        if (line == null) {
+                            continue;
+                        }
+                        if (cart != null) {
+                            addVirtualLine(cart, line);
+                        } else {
+                            pendingVirtualItems.add(line);
+                        }
+                    }
+                    in.endArray();
+                }
+                // "total" is derived from the items, so the stored value is not needed
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (cart == null) {
+            cart = Cart.builder(cartName);
+            addLines(cart, pendingRealItems, pendingVirtualItems);
+        }
+        return cart.build();
+    }
+
+    private static void addLines(Cart.Builder cart, List<CartLine<RealItem>> realLines, List<CartLine<VirtualItem>> virtualLines) {
+        realLines.forEach(line -> addRealLine(cart, line));
+        virtualLines.forEach(line -> addVirtualLine(cart, line));
+    }
+
+    private static void addRealLine(Cart.Builder cart, CartLine<RealItem> line) {
+        try {
+            cart.addRealItem(line.item(), line.quantity());
+        } catch (ArithmeticException e) {
+            throw tooManyUnits(e);
+        }
+    }
+
+    private static void addVirtualLine(Cart.Builder cart, CartLine<VirtualItem> line) {
+        try {
+            cart.addVirtualItem(line.item(), line.quantity());
+        } catch (ArithmeticException e) {
+            throw tooManyUnits(e);
+        }
+    }
+
+    private static CartFormatException tooManyUnits(ArithmeticException e) {
+        return new CartFormatException("Cart holds more than " + Integer.MAX_VALUE + " units", e);
+    }
+}
@@ -0,0 +1,74 @@
+package parser;
+
+import shop.Cart;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Converts JSON cart files into the binary format of {@link BinaryParser}.
+ * The binary file is written next to the JSON one with a ".cart" extension.
+ */
+public class CartFormatConverter {
+
+    private final JsonParser jsonParser;
+    private final BinaryParser binaryParser;
+
+    public CartFormatConverter() {
+        this(new JsonParser(), new BinaryParser());
+    }
+
+    public CartFormatConverter(JsonParser jsonParser, BinaryParser binaryParser) {
+        this.jsonParser = jsonParser;
+        this.binaryParser = binaryParser;
+    }
+
+    public File toBinary(File jsonFile) throws IOException {
+        File binaryFile = binaryFileFor(jsonFile.toPath()).toFile();
+        toBinary(jsonFile, binaryFile);
+        return binaryFile;
+    }
+
+    public void toBinary(File jsonFile, File binaryFile) throws IOException {
+        Cart cart = jsonParser.readFromFile(jsonFile);
+        if (cart == null) {
+            // a missing file already failed with NoSuchFileException, as in BulkReader
+            throw new CartFormatException(String.format("File %s does not hold a readable cart", jsonFile));
+        }
+        binaryParser.writeToFile(cart, binaryFile, false);
+    }
+
+    /**
+     * Converts every JSON cart of the directory. Files that cannot be parsed or whose binary file
+     * cannot be written are skipped and reported in the returned result, write failures as
+     * {@link UncheckedIOException}. The carts of the result are the converted ones.
+     */
+    public BulkReadResult toBinary(Path directory) {
+        BulkReadResult read = jsonParser.readAll(directory);
+        Map<Path, Cart> converted = new LinkedHashMap<>();
+        Map<Path, RuntimeException> failures = new LinkedHashMap<>(read.getFailures());
+        for (Map.Entry<Path, Cart> entry : read.getCarts().entrySet()) {
+            try {
+                binaryParser.writeToFile(entry.getValue(), binaryFileFor(entry.getKey()).toFile(), false);
+                converted.put(entry.getKey(), entry.getValue());
+            } catch (IOException e) {
+                failures.put(entry.getKey(), new UncheckedIOException(e));
+            } catch (RuntimeException e) {
+                failures.put(entry.getKey(), e);
+            }
+        }
+        return new BulkReadResult(converted, failures);
+    }
+
+    private static Path binaryFileFor(Path jsonFile) {
+        String name = jsonFile.getFileName().toString();
+        if (name.endsWith(".json")) {
+            name = name.substring(0, name.length() - ".json".length());
+        }
+        return jsonFile.resolveSibling(name + ".cart");
+    }
+}
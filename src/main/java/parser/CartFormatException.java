@@ -0,0 +1,12 @@
+package parser;
+
+public class CartFormatException extends RuntimeException {
+
+    public CartFormatException(String message) {
+        super(message);
+    }
+
+    public CartFormatException(String message, Throwable t) {
+        super(message, t);
+    }
+}
@@ -0,0 +1,55 @@
+package parser;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import shop.Cart;
+import shop.RealItem;
+import shop.RealItemValue;
+import shop.VirtualItem;
+import shop.VirtualItemValue;
+
+import java.io.IOException;
+
+/**
+ * The shared Gson configuration for carts: hand-written adapters for {@link Cart},
+ * {@link RealItem}, {@link VirtualItem} and their immutable values, registered once. The
+ * adapters hold no state, so the instance and the adapters can be used from any number of
+ * threads.
+ */
+public final class CartGson {
+
+    static final RealItemAdapter REAL_ITEM = new RealItemAdapter();
+    static final VirtualItemAdapter VIRTUAL_ITEM = new VirtualItemAdapter();
+    static final TypeAdapter<Cart> CART = new CartAdapter(REAL_ITEM, VIRTUAL_ITEM);
+    static final TypeAdapter<RealItemValue> REAL_ITEM_VALUE = new RealItemValueAdapter();
+    static final TypeAdapter<VirtualItemValue> VIRTUAL_ITEM_VALUE = new VirtualItemValueAdapter();
+
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(RealItem.class, REAL_ITEM)
+            .registerTypeAdapter(VirtualItem.class, VIRTUAL_ITEM)
+            .registerTypeAdapter(RealItemValue.class, REAL_ITEM_VALUE)
+            .registerTypeAdapter(VirtualItemValue.class, VIRTUAL_ITEM_VALUE)
+            .registerTypeHierarchyAdapter(Cart.class, CART)
+            .create();
+
+    private CartGson() {
+    }
+
+    public static Gson gson() {
+        return GSON;
+    }
+
+    /**
+     * Reads a quantity. Anything but a whole number in the range of an int is a format error.
+     */
+    static int readQuantity(JsonReader in) throws IOException {
+        String path = in.getPath();
+        try {
+            return in.nextInt();
+        } catch (NumberFormatException | IllegalStateException e) {
+            throw new CartFormatException("Invalid quantity at " + path, e);
+        }
+    }
+}
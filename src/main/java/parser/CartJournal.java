@@ -0,0 +1,170 @@
+package parser;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import shop.Cart;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Append-only persistence for carts. Every edit of a {@link JournaledCart} appends one
+ * small event line to a log, and after a configurable number of events the cart is
+ * compacted into a snapshot written with {@link JsonParser}.
+ * <p>
+ * Files live in one directory and carry a generation number:
+ * {@code <cartName>.<gen>.json} is a snapshot and {@code <cartName>.<gen>.log} holds the
+ * events applied after it, with the cart name encoded by a {@link NameCodec}. Compaction
+ * writes snapshot {@code gen + 1} atomically, starts a new log and only then deletes generation
+ * {@code gen}, so a crash at any point leaves either the old snapshot with its full log or the
+ * new snapshot. Loading reads the newest readable snapshot and replays its log; a torn last
+ * line from a crash is ignored.
+ */
+public class CartJournal {
+
+    static final String SNAPSHOT_SUFFIX = ".json";
+    static final String LOG_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int compactEvery;
+    private final boolean syncEachEvent;
+    private final NameCodec codec;
+    private final JsonParser jsonParser = new JsonParser();
+
+    public CartJournal(Path directory) {
+        this(directory, 1000, false);
+    }
+
+    public CartJournal(Path directory, int compactEvery, boolean syncEachEvent) {
+        this(directory, compactEvery, syncEachEvent, NameCodec.PERCENT);
+    }
+
+    /**
+     * @param compactEvery  number of logged events after which a new snapshot is taken
+     * @param syncEachEvent whether every event is forced to disk before the edit returns
+     * @param codec         turns cart names into the file name prefix
+     */
+    public CartJournal(Path directory, int compactEvery, boolean syncEachEvent, NameCodec codec) {
+        if (compactEvery <= 0) {
+            throw new IllegalArgumentException("compactEvery must be positive: " + compactEvery);
+        }
+        this.directory = directory;
+        this.compactEvery = compactEvery;
+        this.syncEachEvent = syncEachEvent;
+        this.codec = codec;
+        this.jsonParser.setAtomicWrites(true);
+    }
+
+    /**
+     * Loads the cart from its newest snapshot and log, or starts an empty one.
+     * The returned cart keeps its log open until it is closed.
+     */
+    public JournaledCart open(String cartName) throws IOException {
+        Files.createDirectories(directory);
+        long generation = -1;
+        Cart snapshot = null;
+        for (long candidate : generations(cartName)) {
+            try {
+                snapshot = jsonParser.readFromFile(snapshotFile(cartName, candidate).toFile());
+            } catch (JsonSyntaxException | CartFormatException e) {
+                continue; // unreadable snapshot, fall back to the previous generation
+            }
+            if (snapshot != null) {
+                generation = candidate;
+                break;
+            }
+        }
+
+        JournaledCart cart = new JournaledCart(cartName, this);
+        if (snapshot != null) {
+            cart.restore(snapshot);
+        }
+        boolean tornTail = false;
+        if (generation >= 0) {
+            tornTail = replay(cart, logFile(cartName, generation));
+        }
+        cart.attach(Math.max(generation, 0));
+        if (tornTail || generation < 0) {
+            cart.compact(); // start from a clean snapshot and an empty log
+        }
+        return cart;
+    }
+
+    int getCompactEvery() {
+        return compactEvery;
+    }
+
+    boolean isSyncEachEvent() {
+        return syncEachEvent;
+    }
+
+    Path logFile(String cartName, long generation) {
+        return directory.resolve(codec.encode(cartName) + "." + generation + LOG_SUFFIX);
+    }
+
+    Path snapshotFile(String cartName, long generation) {
+        return directory.resolve(codec.encode(cartName) + "." + generation + SNAPSHOT_SUFFIX);
+    }
+
+    void writeSnapshot(Cart cart, long generation) throws IOException {
+        jsonParser.writeToFile(cart, snapshotFile(cart.getCartName(), generation).toFile(), true);
+    }
+
+    void deleteGeneration(String cartName, long generation) throws IOException {
+        Files.deleteIfExists(logFile(cartName, generation));
+        Files.deleteIfExists(snapshotFile(cartName, generation));
+    }
+
+    /**
+     * Returns the snapshot generations of the cart, newest first.
+     */
+    private List<Long> generations(String cartName) throws IOException {
+        String prefix = codec.encode(cartName) + ".";
+        List<Long> generations = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(SNAPSHOT_SUFFIX))
+                    .map(name -> name.substring(prefix.length(), name.length() - SNAPSHOT_SUFFIX.length()))
+                    .filter(generation -> !generation.isEmpty() && generation.chars().allMatch(Character::isDigit))
+                    .forEach(generation -> generations.add(Long.parseLong(generation)));
+        }
+        generations.sort(null);
+        return generations.reversed();
+    }
+
+    /**
+     * Applies the logged events to the cart. Returns true if the last line was torn.
+     */
+    private boolean replay(JournaledCart cart, Path log) throws IOException {
+        if (!Files.exists(log)) {
+            return false;
+        }
+        File logFile = log.toFile();
+        try (BufferedReader reader = Files.newBufferedReader(log, StandardCharsets.UTF_8)) {
+            String line;
+            String failedLine = null;
+            while ((line = reader.readLine()) != null) {
+                if (failedLine != null) {
+                    throw new CartFormatException(String.format("Corrupt event in %s: %s", logFile, failedLine));
+                }
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    cart.apply(new JsonReader(new StringReader(line)));
+                } catch (IOException | RuntimeException e) {
+                    failedLine = line;
+                }
+            }
+            return failedLine != null;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package parser;
+
+import shop.Cart;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Loads carts by name through a {@link Parser} and keeps them in an LRU cache bounded by
+ * entry count and by the size of the files they were read from. A cached cart is reused
+ * only while its stored copy keeps the same modification stamp and length. Concurrent misses
+ * for the same name share a single parse.
+ * <p>
+ * Cached carts are shared between callers, so they should be treated as read-only.
+ */
+public class CartRepository {
+
+    private final Parser parser;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private long cachedBytes;
+
+    public CartRepository(Parser parser, int maxEntries) {
+        this(parser, maxEntries, Long.MAX_VALUE);
+    }
+
+    public CartRepository(Parser parser, int maxEntries, long maxBytes) {
+        if (maxEntries <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache limits must be positive");
+        }
+        this.parser = parser;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    public Cart get(String cartName) {
+        long lastModified = parser.lastModified(cartName);
+        long length = parser.length(cartName);
+
+        synchronized (this) {
+            Entry entry = cache.get(cartName);
+            if (entry != null) {
+                if (entry.lastModified == lastModified && entry.length == length) {
+                    hits.increment();
+                    return entry.cart;
+                }
+                remove(cartName);
+                invalidations.increment();
+            }
+        }
+        misses.increment();
+
+        CompletableFuture<Entry> load = new CompletableFuture<>();
+        CompletableFuture<Entry> inFlight = loading.putIfAbsent(cartName, load);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+        try {
+            synchronized (this) {
+                // another thread may have finished loading between the cache check and here
+                Entry entry = cache.get(cartName);
+                if (entry != null && entry.lastModified == lastModified && entry.length == length) {
+                    load.complete(entry);
+                    return entry.cart;
+                }
+            }
+            Cart cart = parser.readCart(cartName);
+            Entry entry = new Entry(cart, lastModified, length);
+            if (cart != null) {
+                put(cartName, entry);
+            }
+            load.complete(entry);
+            return cart;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(cartName, load);
+        }
+    }
+
+    /**
+     * Writes the cart through the parser and drops the cached copy.
+     */
+    public void save(Cart cart) {
+        parser.writeToFile(cart);
+        invalidate(cart.getCartName());
+    }
+
+    public synchronized void invalidate(String cartName) {
+        if (remove(cartName)) {
+            invalidations.increment();
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        invalidations.add(cache.size());
+        cache.clear();
+        cachedBytes = 0;
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    private synchronized void put(String cartName, Entry entry) {
+        remove(cartName);
+        cache.put(cartName, entry);
+        cachedBytes += entry.length;
+
+        Iterator<Entry> eldest = cache.values().iterator();
+        while ((cache.size() > maxEntries || cachedBytes > maxBytes) && eldest.hasNext()) {
+            cachedBytes -= eldest.next().length;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private boolean remove(String cartName) {
+        Entry removed = cache.remove(cartName);
+        if (removed != null) {
+            cachedBytes -= removed.length;
+        }
+        return removed != null;
+    }
+
+    private static Cart await(CompletableFuture<Entry> load) {
+        try {
+            return load.join().cart;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Entry {
+
+        private final Cart cart;
+        private final long lastModified;
+        private final long length;
+
+        private Entry(Cart cart, long lastModified, long length) {
+            this.cart = cart;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+}
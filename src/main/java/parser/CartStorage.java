@@ -0,0 +1,55 @@
+package parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Where a {@link Parser} keeps its serialized carts. Entries are addressed by key, the cart
+ * name plus the parser's extension; each backend maps keys to its own storage and is
+ * responsible for encoding them safely.
+ */
+public interface CartStorage {
+
+    /**
+     * Opens the entry for reading.
+     *
+     * @throws java.nio.file.NoSuchFileException if there is no entry under the key
+     */
+    InputStream openInput(String key) throws IOException;
+
+    /**
+     * Replaces the entry with what {@code body} writes. With {@code atomic} readers never see
+     * a partially written entry; with {@code fsync} the entry is on the device on return.
+     * The stream handed to {@code body} is not buffered and must not be closed by it.
+     */
+    void write(String key, boolean atomic, boolean fsync, OutputWriter body) throws IOException;
+
+    boolean delete(String key) throws IOException;
+
+    List<String> keys() throws IOException;
+
+    /**
+     * A stamp that changes whenever the entry is replaced, 0 if there is none.
+     */
+    long lastModified(String key);
+
+    /**
+     * Size of the entry in bytes, 0 if there is none.
+     */
+    long size(String key);
+
+    /**
+     * The file holding the entry, or null if the backend does not keep entries in files.
+     */
+    default Path pathOf(String key) {
+        return null;
+    }
+
+    @FunctionalInterface
+    interface OutputWriter {
+        void write(OutputStream out) throws IOException;
+    }
+}
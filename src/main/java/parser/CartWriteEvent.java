@@ -0,0 +1,34 @@
+package parser;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one cart written by {@link JsonParser} or {@link BinaryParser},
+ * recorded when a recording enables {@code parser.CartWrite}.
+ */
+@Name("parser.CartWrite")
+@Label("Cart Write")
+@Category({"Shop", "Parser"})
+@Description("A cart written to a file or a storage entry")
+@StackTrace(false)
+class CartWriteEvent extends jdk.jfr.Event {
+
+    @Label("Parser")
+    @Description("Metrics prefix of the parser, parser.json or parser.binary")
+    String parser;
+
+    @Label("Target")
+    String target;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Items")
+    int items;
+}
@@ -0,0 +1,110 @@
+package parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Detects compressed cart files by their magic bytes and wraps streams for compressed
+ * reading and writing. All wrappers stream; nothing is inflated into memory as a whole.
+ */
+final class CompressedStreams {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int GZIP_MAGIC_1 = 0x1F;
+    private static final int GZIP_MAGIC_2 = 0x8B;
+    private static final int[] ZSTD_MAGIC = {0x28, 0xB5, 0x2F, 0xFD};
+
+    private CompressedStreams() {
+    }
+
+    /**
+     * How a stream was compressed.
+     */
+    enum Compression {
+        NONE, GZIP
+    }
+
+    /**
+     * The uncompressed content of a stream and the compression it was stored with.
+     */
+    record Decompressed(InputStream stream, Compression compression) {
+    }
+
+    /**
+     * Returns a stream of the uncompressed content, as {@link #open(InputStream)}.
+     */
+    static InputStream decompress(InputStream in) throws IOException {
+        return open(in).stream();
+    }
+
+    /**
+     * Returns the uncompressed content: the input itself if it is plain, or an inflating stream
+     * if it starts with the gzip magic. Zstandard frames are recognized but rejected, since the
+     * JDK has no decoder for them. The returned stream owns the input; if this method fails,
+     * the input is closed.
+     */
+    static Decompressed open(InputStream in) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(in, ZSTD_MAGIC.length);
+        try {
+            byte[] head = new byte[ZSTD_MAGIC.length];
+            int length = 0;
+            int read;
+            while (length < head.length && (read = pushback.read(head, length, head.length - length)) > 0) {
+                length += read;
+            }
+            pushback.unread(head, 0, length);
+
+            if (length >= 2 && (head[0] & 0xFF) == GZIP_MAGIC_1 && (head[1] & 0xFF) == GZIP_MAGIC_2) {
+                return new Decompressed(new GZIPInputStream(pushback, BUFFER_SIZE), Compression.GZIP);
+            }
+            if (length == ZSTD_MAGIC.length && startsWith(head, ZSTD_MAGIC)) {
+                throw new CartFormatException("Zstandard-compressed carts are not supported, use gzip");
+            }
+            return new Decompressed(pushback, Compression.NONE);
+        } catch (IOException | RuntimeException e) {
+            try {
+                pushback.close();
+            } catch (IOException closing) {
+                e.addSuppressed(closing);
+            }
+            throw e;
+        }
+    }
+
+    static GzipOutput compress(OutputStream out, int level) throws IOException {
+        return new GzipOutput(out, level);
+    }
+
+    private static boolean startsWith(byte[] head, int[] magic) {
+        for (int i = 0; i < magic.length; i++) {
+            if ((head[i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gzip stream with a configurable deflate level that can be finished without closing
+     * the underlying stream.
+     */
+    static final class GzipOutput extends GZIPOutputStream {
+
+        private GzipOutput(OutputStream out, int level) throws IOException {
+            super(out, BUFFER_SIZE);
+            def.setLevel(level);
+        }
+
+        /**
+         * Frees the native deflater without writing anything or closing the underlying stream.
+         * Call {@link #finish()} first to complete the gzip member.
+         */
+        void release() {
+            def.end();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Keeps each entry as a file directly under a root directory, named by a {@link NameCodec}.
+ * <p>
+ * An optional legacy codec lets a storage switch codecs without losing entries: an entry with
+ * no file under the current name is read from the file the legacy codec names, as long as that
+ * lies in the same directory, and writing the entry moves it to its current name.
+ */
+public class FileSystemStorage implements CartStorage {
+
+    private final Path root;
+    private final NameCodec codec;
+    private final NameCodec legacyCodec;
+
+    public FileSystemStorage(Path root) {
+        this(root, NameCodec.PERCENT);
+    }
+
+    public FileSystemStorage(Path root, NameCodec codec) {
+        this(root, codec, null);
+    }
+
+    /**
+     * @param legacyCodec codec of files written before, read when there is no file under the
+     *                    current name; null for none
+     */
+    public FileSystemStorage(Path root, NameCodec codec, NameCodec legacyCodec) {
+        this.root = root;
+        this.codec = codec;
+        this.legacyCodec = legacyCodec;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public NameCodec getCodec() {
+        return codec;
+    }
+
+    public NameCodec getLegacyCodec() {
+        return legacyCodec;
+    }
+
+    @Override
+    public Path pathOf(String key) {
+        Path path = locate(key, codec);
+        Path legacy = legacyPathOf(key, path);
+        return legacy != null && !Files.exists(path) && Files.exists(legacy) ? legacy : path;
+    }
+
+    /**
+     * Where the codec puts the entry.
+     */
+    Path locate(String key, NameCodec codec) {
+        return root.resolve(codec.encode(key));
+    }
+
+    /**
+     * The legacy file name of the entry, or null if it has none other than the current one or
+     * it would lie outside the entry's directory.
+     */
+    private Path legacyPathOf(String key, Path path) {
+        if (legacyCodec == null) {
+            return null;
+        }
+        Path legacy = locate(key, legacyCodec).normalize();
+        return legacy.equals(path) || !Objects.equals(path.getParent(), legacy.getParent()) ? null : legacy;
+    }
+
+    @Override
+    public InputStream openInput(String key) throws IOException {
+        return Files.newInputStream(pathOf(key));
+    }
+
+    @Override
+    public void write(String key, boolean atomic, boolean fsync, OutputWriter body) throws IOException {
+        Path path = locate(key, codec);
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        if (atomic) {
+            AtomicFiles.write(path, fsync, channel -> write(channel, body));
+        } else {
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                write(channel, body);
+                if (fsync) {
+                    channel.force(true);
+                }
+            }
+        }
+        Path legacy = legacyPathOf(key, path);
+        if (legacy != null) {
+            Files.deleteIfExists(legacy); // superseded by the file just written
+        }
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        Path path = locate(key, codec);
+        Path legacy = legacyPathOf(key, path);
+        boolean deleted = Files.deleteIfExists(path);
+        return legacy != null && Files.deleteIfExists(legacy) || deleted;
+    }
+
+    @Override
+    public List<String> keys() throws IOException {
+        if (!Files.isDirectory(root)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.find(root, depth() + 1, (file, attributes) -> attributes.isRegularFile())) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> !name.startsWith(".")) // temp files of atomic writes
+                    .map(this::decode)
+                    .toList();
+        }
+    }
+
+    @Override
+    public long lastModified(String key) {
+        return pathOf(key).toFile().lastModified();
+    }
+
+    @Override
+    public long size(String key) {
+        return pathOf(key).toFile().length();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + root + "]";
+    }
+
+    /**
+     * Decodes a file name; names the current codec would not have written come from the legacy one.
+     */
+    private String decode(String fileName) {
+        if (legacyCodec == null) {
+            return codec.decode(fileName);
+        }
+        try {
+            String key = codec.decode(fileName);
+            if (codec.encode(key).equals(fileName)) {
+                return key;
+            }
+        } catch (IllegalArgumentException e) {
+            // not a name of the current codec
+        }
+        return legacyCodec.decode(fileName);
+    }
+
+    /**
+     * Number of directory levels between the root and the files.
+     */
+    int depth() {
+        return 0;
+    }
+
+    private static void write(FileChannel channel, OutputWriter body) throws IOException {
+        body.write(Channels.newOutputStream(channel));
+    }
+}
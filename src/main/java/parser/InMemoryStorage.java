@@ -0,0 +1,62 @@
+package parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps entries as byte arrays in memory, for tests and for carts that need not outlive the
+ * process. Every write is atomic; {@code fsync} has no effect. Any string is a valid key.
+ */
+public class InMemoryStorage implements CartStorage {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong stamps = new AtomicLong();
+
+    @Override
+    public InputStream openInput(String key) throws IOException {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            throw new NoSuchFileException(key);
+        }
+        return new ByteArrayInputStream(entry.data);
+    }
+
+    @Override
+    public void write(String key, boolean atomic, boolean fsync, OutputWriter body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.write(out);
+        entries.put(key, new Entry(out.toByteArray(), stamps.incrementAndGet()));
+    }
+
+    @Override
+    public boolean delete(String key) {
+        return entries.remove(key) != null;
+    }
+
+    @Override
+    public List<String> keys() {
+        return List.copyOf(entries.keySet());
+    }
+
+    @Override
+    public long lastModified(String key) {
+        Entry entry = entries.get(key);
+        return entry == null ? 0 : entry.stamp;
+    }
+
+    @Override
+    public long size(String key) {
+        Entry entry = entries.get(key);
+        return entry == null ? 0 : entry.data.length;
+    }
+
+    private record Entry(byte[] data, long stamp) {
+    }
+}
@@ -0,0 +1,322 @@
+package parser;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import shop.Cart;
+import shop.Item;
+import shop.RealItem;
+import shop.VirtualItem;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A cart whose edits are appended to a {@link CartJournal} as they happen, so each edit
+ * costs one short log line instead of rewriting the whole cart. Obtain one with
+ * {@link CartJournal#open(String)} and close it when done.
+ * <p>
+ * Like {@link Cart}, it is not thread-safe. Edits the cart would reject are rejected before they
+ * are logged. A failed append throws {@link UncheckedIOException} and leaves the cart unchanged.
+ */
+public class JournaledCart extends Cart implements Closeable {
+
+    private final CartJournal journal;
+    private FileChannel channel;
+    private Writer log;
+    private long generation;
+    private int eventCount;
+    private boolean journaling;
+
+    JournaledCart(String cartName, CartJournal journal) {
+        super(cartName);
+        this.journal = journal;
+    }
+
+    @Override
+    public void addRealItem(RealItem item) {
+        if (item == null || !journaling) {
+            super.addRealItem(item);
+            return;
+        }
+        checkAdd(item, 1);
+        append("addReal", out -> CartGson.REAL_ITEM.write(out.name("item"), item));
+        super.addRealItem(item);
+        compactIfDue();
+    }
+
+    @Override
+    public void addRealItem(RealItem item, int quantity) {
+        if (item == null || quantity <= 0 || !journaling) {
+            super.addRealItem(item, quantity);
+            return;
+        }
+        checkAdd(item, quantity);
+        append("addReal", out -> {
+            CartGson.REAL_ITEM.write(out.name("item"), item);
+            out.name("quantity").value(quantity);
+        });
+        super.addRealItem(item, quantity);
+        compactIfDue();
+    }
+
+    @Override
+    public void deleteRealItem(RealItem item) {
+        if (!journaling || getRealItemQuantity(item) == 0) {
+            super.deleteRealItem(item);
+            return;
+        }
+        append("deleteReal", out -> CartGson.REAL_ITEM.write(out.name("item"), item));
+        super.deleteRealItem(item);
+        compactIfDue();
+    }
+
+    @Override
+    public void setRealItemQuantity(RealItem item, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity must not be negative: " + quantity);
+        }
+        int current = getRealItemQuantity(item);
+        if (!journaling || current == quantity) {
+            super.setRealItemQuantity(item, quantity);
+            return;
+        }
+        if (quantity > current) {
+            checkAdd(item, quantity - current);
+        }
+        append("setRealQuantity", out -> {
+            CartGson.REAL_ITEM.write(out.name("item"), item);
+            out.name("quantity").value(quantity);
+        });
+        journaling = false; // one event covers the adds and deletes below
+        try {
+            super.setRealItemQuantity(item, quantity);
+        } finally {
+            journaling = true;
+        }
+        compactIfDue();
+    }
+
+    @Override
+    public void addVirtualItem(VirtualItem item) {
+        if (item == null || !journaling) {
+            super.addVirtualItem(item);
+            return;
+        }
+        checkAdd(item, 1);
+        append("addVirtual", out -> CartGson.VIRTUAL_ITEM.write(out.name("item"), item));
+        super.addVirtualItem(item);
+        compactIfDue();
+    }
+
+    @Override
+    public void addVirtualItem(VirtualItem item, int quantity) {
+        if (item == null || quantity <= 0 || !journaling) {
+            super.addVirtualItem(item, quantity);
+            return;
+        }
+        checkAdd(item, quantity);
+        append("addVirtual", out -> {
+            CartGson.VIRTUAL_ITEM.write(out.name("item"), item);
+            out.name("quantity").value(quantity);
+        });
+        super.addVirtualItem(item, quantity);
+        compactIfDue();
+    }
+
+    @Override
+    public void deleteVirtualItem(VirtualItem item) {
+        if (!journaling || getVirtualItemQuantity(item) == 0) {
+            super.deleteVirtualItem(item);
+            return;
+        }
+        append("deleteVirtual", out -> CartGson.VIRTUAL_ITEM.write(out.name("item"), item));
+        super.deleteVirtualItem(item);
+        compactIfDue();
+    }
+
+    @Override
+    public void setVirtualItemQuantity(VirtualItem item, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity must not be negative: " + quantity);
+        }
+        int current = getVirtualItemQuantity(item);
+        if (!journaling || current == quantity) {
+            super.setVirtualItemQuantity(item, quantity);
+            return;
+        }
+        if (quantity > current) {
+            checkAdd(item, quantity - current);
+        }
+        append("setVirtualQuantity", out -> {
+            CartGson.VIRTUAL_ITEM.write(out.name("item"), item);
+            out.name("quantity").value(quantity);
+        });
+        journaling = false;
+        try {
+            super.setVirtualItemQuantity(item, quantity);
+        } finally {
+            journaling = true;
+        }
+        compactIfDue();
+    }
+
+    /**
+     * Number of events logged since the last snapshot.
+     */
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Writes the current state as a new snapshot and starts an empty log.
+     */
+    public void compact() throws IOException {
+        long next = generation + 1;
+        journal.writeSnapshot(this, next);
+        closeLog();
+        openLog(next);
+        journal.deleteGeneration(getCartName(), generation);
+        generation = next;
+        eventCount = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        journaling = false;
+        closeLog();
+    }
+
+    void restore(Cart snapshot) {
+        setCounted(false);
+        try {
+            snapshot.getRealLines().forEach(line -> super.addRealItem(line.item(), line.quantity()));
+            snapshot.getVirtualLines().forEach(line -> super.addVirtualItem(line.item(), line.quantity()));
+        } finally {
+            setCounted(true);
+        }
+    }
+
+    /**
+     * Applies one logged event without logging or counting it again.
+     */
+    void apply(JsonReader in) throws IOException {
+        String op = null;
+        RealItem realItem = null;
+        VirtualItem virtualItem = null;
+        int quantity = -1;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "op" -> op = in.nextString();
+                case "item" -> {
+                    // "op" is always written first, so the item type is known here
+                    if (op != null && op.contains("Virtual")) {
+                        virtualItem = CartGson.VIRTUAL_ITEM.read(in);
+                    } else {
+                        realItem = CartGson.REAL_ITEM.read(in);
+                    }
+                }
+                case "quantity" -> quantity = CartGson.readQuantity(in);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        if (op == null) {
+            throw new CartFormatException("Event without op");
+        }
+        setCounted(false);
+        try {
+            switch (op) {
+                case "addReal" -> super.addRealItem(realItem, quantity < 0 ? 1 : quantity);
+                case "deleteReal" -> super.deleteRealItem(realItem);
+                case "setRealQuantity" -> super.setRealItemQuantity(realItem, quantity);
+                case "addVirtual" -> super.addVirtualItem(virtualItem, quantity < 0 ? 1 : quantity);
+                case "deleteVirtual" -> super.deleteVirtualItem(virtualItem);
+                case "setVirtualQuantity" -> super.setVirtualItemQuantity(virtualItem, quantity);
+                default -> throw new CartFormatException("Unknown event: " + op);
+            }
+        } finally {
+            setCounted(true);
+        }
+    }
+
+    /**
+     * Opens the log of the given generation for appending and starts journaling.
+     */
+    void attach(long generation) throws IOException {
+        this.generation = generation;
+        openLog(generation);
+    }
+
+    private void openLog(long generation) throws IOException {
+        channel = FileChannel.open(journal.logFile(getCartName(), generation),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        log = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+        journaling = true;
+    }
+
+    private void closeLog() throws IOException {
+        if (log != null) {
+            log.close();
+            log = null;
+            channel = null;
+        }
+    }
+
+    /**
+     * Fails as {@link Cart} would when adding the units, before anything is logged: a price that
+     * is not finite or a quantity taking the cart past {@link Integer#MAX_VALUE} units.
+     */
+    private void checkAdd(Item item, int quantity) {
+        BigDecimal.valueOf(item.getPrice());
+        Math.addExact(getItemCount(), quantity);
+    }
+
+    /**
+     * Serializes the event on its own first, so the log only ever receives complete lines.
+     */
+    private void append(String op, EventBody body) {
+        try {
+            StringWriter line = new StringWriter();
+            JsonWriter out = new JsonWriter(line);
+            out.beginObject();
+            out.name("op").value(op);
+            body.write(out);
+            out.endObject();
+            out.flush();
+            line.write('\n');
+            log.write(line.toString());
+            log.flush();
+            if (journal.isSyncEachEvent()) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        eventCount++;
+    }
+
+    private void compactIfDue() {
+        if (eventCount >= journal.getCompactEvery()) {
+            try {
+                compact();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface EventBody {
+        void write(JsonWriter out) throws IOException;
+    }
+}
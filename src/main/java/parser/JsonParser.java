@@ -1,35 +1,471 @@
 package parser;
 
-import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+import metrics.Metrics;
+import metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import shop.Cart;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
 
 public class JsonParser implements Parser {
 
-    private final Gson gson;
+    private static final Logger LOGGER = LoggerFactory.getLogger(JsonParser.class);
+    private static final String METRICS_PREFIX = "parser.json";
+    private static final String RESOURCES_PATH = "src/main/resources/";
+    private static final String EXTENSION = ".json";
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final long DEFAULT_MAPPED_READ_THRESHOLD = 1024 * 1024;
+    private static final int HEAD_PROBE_SIZE = 4 * 1024;
+    private static final int TAIL_PROBE_SIZE = 256;
+    private static final Pattern TRAILING_TOTAL = Pattern.compile(
+            "[,{]\\s*(?:\"pricing\"\\s*:\\s*\"([^\"]*)\"\\s*,\\s*)?\"total\"\\s*:\\s*(-?[0-9][0-9.eE+-]*)\\s*}\\s*$");
 
+    private final CartStorage storage;
+    private long mappedReadThreshold = DEFAULT_MAPPED_READ_THRESHOLD;
+    private boolean atomicWrites;
+    private boolean compressed;
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+    private MetricsRegistry metricsRegistry;
+    private volatile ParserMetrics metrics = new ParserMetrics(MetricsRegistry.NOOP, METRICS_PREFIX);
+
+    /**
+     * Keeps carts in {@code src/main/resources}. Names are percent-encoded, so any cart name is
+     * a valid file name; files saved under the raw name by earlier versions are still read.
+     */
     public JsonParser() {
-        gson = new Gson();
+        this(new FileSystemStorage(Path.of(RESOURCES_PATH), NameCodec.PERCENT, NameCodec.IDENTITY));
+    }
+
+    public JsonParser(CartStorage storage) {
+        this.storage = storage;
+    }
+
+    public CartStorage getStorage() {
+        return storage;
+    }
+
+    public long getMappedReadThreshold() {
+        return mappedReadThreshold;
+    }
+
+    /**
+     * Files of at least this many bytes are memory-mapped and decoded straight from the mapping;
+     * smaller ones go through a plain buffered reader, which is cheaper to set up.
+     */
+    public void setMappedReadThreshold(long mappedReadThreshold) {
+        this.mappedReadThreshold = mappedReadThreshold;
+    }
+
+    public boolean isAtomicWrites() {
+        return atomicWrites;
+    }
+
+    /**
+     * With atomic writes a cart is written to a temp file next to its target and renamed over it,
+     * so a crash or a concurrent reader never sees a half-written file.
+     */
+    public void setAtomicWrites(boolean atomicWrites) {
+        this.atomicWrites = atomicWrites;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    /**
+     * Compressed carts are written gzipped under their usual name. Reading detects gzip by its
+     * magic bytes, so plain and compressed files can be mixed regardless of this setting.
+     */
+    public void setCompressed(boolean compressed) {
+        this.compressed = compressed;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Deflate level from 1 (fastest) to 9 (smallest), or -1 for the zlib default.
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + compressionLevel);
+        }
+        this.compressionLevel = compressionLevel;
+    }
+
+    public MetricsRegistry getMetricsRegistry() {
+        return metricsRegistry != null ? metricsRegistry : Metrics.getRegistry();
+    }
+
+    /**
+     * Registry for the {@code parser.json.*} read and write metrics; by default the global one
+     * from {@link Metrics}.
+     */
+    public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    private ParserMetrics metrics() {
+        MetricsRegistry registry = getMetricsRegistry();
+        ParserMetrics current = metrics;
+        if (current.getRegistry() != registry) {
+            current = new ParserMetrics(registry, METRICS_PREFIX);
+            metrics = current;
+        }
+        return current;
     }
 
     public void writeToFile(Cart cart) {
-        try (FileWriter writer = new FileWriter("src/main/resources/" + cart.getCartName() + ".json")) {
-            writer.write(gson.toJson(cart));
+        writeToFile(cart, false);
+    }
+
+    public void writeToFile(Cart cart, boolean fsync) {
+        try {
+            writeCart(cart, fsync);
+        } catch (IOException e) {
+            LOGGER.error("Could not write cart {}", cart.getCartName() + EXTENSION, e);
+        }
+    }
+
+    @Override
+    public void writeCart(Cart cart) throws IOException {
+        writeCart(cart, false);
+    }
+
+    /**
+     * Writes the cart under its name like {@link #writeToFile(Cart, boolean)}, but throws
+     * instead of logging when the write fails.
+     */
+    public void writeCart(Cart cart, boolean fsync) throws IOException {
+        String key = cart.getCartName() + EXTENSION;
+        ParserMetrics metrics = metrics();
+        long start = metrics.start();
+        CartWriteEvent event = metrics.beginWrite();
+        try {
+            storage.write(key, atomicWrites, fsync, out -> write(cart, out));
+        } catch (IOException | RuntimeException e) {
+            metrics.failed("write", e);
+            throw e;
+        }
+        if (metrics.isRecording(event)) {
+            metrics.written(start, event, key, storage.size(key), cart);
+        }
+    }
+
+    public File fileFor(String cartName) {
+        Path path = storage.pathOf(cartName + EXTENSION);
+        if (path == null) {
+            throw new UnsupportedOperationException(storage + " does not keep carts in files");
+        }
+        return path.toFile();
+    }
+
+    @Override
+    public Cart readCart(String cartName) {
+        String key = cartName + EXTENSION;
+        Path path = storage.pathOf(key);
+        if (path != null) {
+            return readFromFile(path.toFile());
+        }
+        ParserMetrics metrics = metrics();
+        long start = metrics.start();
+        CartReadEvent event = metrics.beginRead();
+        try (Reader reader = new BufferedReader(new InputStreamReader(
+                CompressedStreams.decompress(storage.openInput(key)), StandardCharsets.UTF_8))) {
+            Cart cart = read(reader);
+            if (metrics.isRecording(event)) {
+                metrics.read(start, event, key, storage.size(key), cart);
+            }
+            return cart;
+        } catch (java.nio.file.NoSuchFileException ex) {
+            metrics.failed("read", ex);
+            throw new NoSuchFileException(String.format("File %s not found!", key), ex);
+        } catch (IOException e) {
+            metrics.failed("read", e);
+            LOGGER.error("Could not read cart {}", key, e);
+        } catch (RuntimeException e) {
+            metrics.failed("read", e);
+            throw e;
+        }
+
+        return null;
+    }
+
+    @Override
+    public long lastModified(String cartName) {
+        return storage.lastModified(cartName + EXTENSION);
+    }
+
+    @Override
+    public long length(String cartName) {
+        return storage.size(cartName + EXTENSION);
+    }
+
+    /**
+     * Streams the cart into the file through a buffered channel writer. With {@code fsync}
+     * the data is forced to the device before returning, otherwise it is left to the OS.
+     */
+    public void writeToFile(Cart cart, File file, boolean fsync) throws IOException {
+        ParserMetrics metrics = metrics();
+        long start = metrics.start();
+        CartWriteEvent event = metrics.beginWrite();
+        try {
+            if (atomicWrites) {
+                AtomicFiles.write(file.toPath(), fsync, channel -> write(cart, Channels.newOutputStream(channel)));
+            } else {
+                try (FileChannel channel = FileChannel.open(file.toPath(),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    write(cart, Channels.newOutputStream(channel));
+                    if (fsync) {
+                        channel.force(true);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            metrics.failed("write", e);
+            throw e;
+        }
+        if (metrics.isRecording(event)) {
+            metrics.written(start, event, file.getName(), file.length(), cart);
+        }
+    }
+
+    private void write(Cart cart, OutputStream out) throws IOException {
+        if (!compressed) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+            write(cart, writer);
+            writer.flush();
+            return;
+        }
+        CompressedStreams.GzipOutput gzip = CompressedStreams.compress(out, compressionLevel);
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+            write(cart, writer);
+            writer.flush();
+            gzip.finish(); // only after a complete write, so a failure is never masked by the trailer
+        } finally {
+            gzip.release();
+        }
+    }
+
+    /**
+     * Writes the cart in the same layout Gson produced, item by item. The writer is flushed but not closed.
+     */
+    public void write(Cart cart, Writer writer) throws IOException {
+        JsonWriter out = new JsonWriter(writer);
+        out.setSerializeNulls(false);
+        CartGson.CART.write(out, cart);
+        out.flush();
+    }
+
+    /**
+     * Reads only the cart name and the stored total; the items are parsed when they are first
+     * needed. For plain files in the usual layout that means reading the first and last few
+     * kilobytes, whatever the size of the cart. Other files are scanned once without building
+     * any items. If the file is replaced before the items are parsed, parsing them fails with
+     * {@link IllegalStateException} rather than mix the old header with new items.
+     */
+    public LazyCart readLazily(File file) {
+        Stamp stamp = new Stamp(file.length(), file.lastModified());
+        Header header;
+        try {
+            header = readHeader(file);
+        } catch (FileNotFoundException | java.nio.file.NoSuchFileException ex) {
+            throw new NoSuchFileException(String.format("File %s.json not found!", file), ex);
         } catch (IOException e) {
-            e.printStackTrace();
+            LOGGER.error("Could not read cart header from {}", file, e);
+            return null;
         }
+        return header == null ? null : new LazyCart(header.cartName(), header.total(), () -> unchanged(file.toString(), stamp,
+                readFromFile(file), new Stamp(file.length(), file.lastModified())));
+    }
+
+    public LazyCart readCartLazily(String cartName) {
+        String key = cartName + EXTENSION;
+        Path path = storage.pathOf(key);
+        if (path != null) {
+            return readLazily(path.toFile());
+        }
+        Stamp stamp = new Stamp(storage.size(key), storage.lastModified(key));
+        Header header;
+        try (Reader reader = new BufferedReader(new InputStreamReader(
+                CompressedStreams.decompress(storage.openInput(key)), StandardCharsets.UTF_8))) {
+            header = scanHeader(reader);
+        } catch (java.nio.file.NoSuchFileException ex) {
+            throw new NoSuchFileException(String.format("File %s not found!", key), ex);
+        } catch (IOException e) {
+            LOGGER.error("Could not read cart header {}", key, e);
+            return null;
+        }
+        return header == null ? null : new LazyCart(header.cartName(), header.total(), () -> unchanged(key, stamp,
+                readCart(cartName), new Stamp(storage.size(key), storage.lastModified(key))));
     }
 
     public Cart readFromFile(File file) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            return gson.fromJson(reader.readLine(), Cart.class);
-        } catch (FileNotFoundException ex) {
+        ParserMetrics metrics = metrics();
+        long start = metrics.start();
+        CartReadEvent event = metrics.beginRead();
+        try (Reader reader = openReader(file)) {
+            Cart cart = read(reader);
+            if (metrics.isRecording(event)) {
+                metrics.read(start, event, file.getName(), file.length(), cart);
+            }
+            return cart;
+        } catch (FileNotFoundException | java.nio.file.NoSuchFileException ex) {
+            metrics.failed("read", ex);
             throw new NoSuchFileException(String.format("File %s.json not found!", file), ex);
         } catch (IOException e) {
-            e.printStackTrace();
+            metrics.failed("read", e);
+            LOGGER.error("Could not read cart from {}", file, e);
+        } catch (RuntimeException e) {
+            metrics.failed("read", e);
+            throw e;
+        }
+
+        return null;
+    }
+
+    private Reader openReader(File file) throws IOException {
+        CompressedStreams.Decompressed in = CompressedStreams.open(new FileInputStream(file));
+        long size = file.length();
+        if (in.compression() == CompressedStreams.Compression.NONE && size > 0 && size >= mappedReadThreshold) {
+            in.stream().close(); // plain JSON, decode straight from the mapping instead
+            return new MappedFileReader(file.toPath());
+        }
+        return new BufferedReader(new InputStreamReader(in.stream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a cart token by token, so the document may span any number of lines
+     * and is never held in memory as a whole.
+     */
+    public Cart read(Reader reader) throws IOException {
+        JsonReader in = new JsonReader(reader);
+        in.setLenient(true);
+        try {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+        } catch (EOFException e) {
+            return null; // empty document, same as Gson
+        }
+        try {
+            Cart cart = CartGson.CART.read(in);
+            if (in.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("JSON document was not fully consumed.");
+            }
+            return cart;
+        } catch (MalformedJsonException | EOFException | IllegalStateException | NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private Header readHeader(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer head = ByteBuffer.allocate((int) Math.min(size, HEAD_PROBE_SIZE));
+            channel.read(head, 0);
+            String cartName = headCartName(head.flip());
+            if (cartName != null) {
+                ByteBuffer tail = ByteBuffer.allocate((int) Math.min(size, TAIL_PROBE_SIZE));
+                channel.read(tail, size - tail.capacity());
+                Matcher total = TRAILING_TOTAL.matcher(StandardCharsets.ISO_8859_1.decode(tail.flip()));
+                boolean standard = total.find() && total.group(1) == null;
+                return new Header(cartName, standard ? Double.parseDouble(total.group(2)) : Double.NaN);
+            }
+        }
+        try (Reader reader = openReader(file)) {
+            return scanHeader(reader);
         }
+    }
 
+    /**
+     * Returns the cart name if the document starts with it, as written by this parser, otherwise null.
+     */
+    private static String headCartName(ByteBuffer head) {
+        JsonReader in = new JsonReader(new StringReader(StandardCharsets.UTF_8.decode(head).toString()));
+        try {
+            in.beginObject();
+            if (in.hasNext() && in.nextName().equals("cartName") && in.peek() == JsonToken.STRING) {
+                return in.nextString();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // compressed, truncated within the probe or another layout: scan the document instead
+        }
         return null;
     }
+
+    /**
+     * Reads the cart name and total, skipping over the items without building them. Totals of
+     * carts written with custom pricing are left out, since loading could not reproduce them.
+     */
+    private static Header scanHeader(Reader reader) throws IOException {
+        JsonReader in = new JsonReader(reader);
+        in.setLenient(true);
+        try {
+            if (in.peek() == JsonToken.NULL) {
+                return null;
+            }
+            String cartName = null;
+            double total = Double.NaN;
+            boolean standard = true;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (name.equals("cartName") && in.peek() == JsonToken.STRING) {
+                    cartName = in.nextString();
+                } else if (name.equals("total") && in.peek() == JsonToken.NUMBER) {
+                    total = in.nextDouble();
+                } else if (name.equals(CartAdapter.PRICING)) {
+                    standard = false;
+                    in.skipValue();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return new Header(cartName, standard ? total : Double.NaN);
+        } catch (EOFException e) {
+            return null; // empty document
+        } catch (MalformedJsonException | IllegalStateException | NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    /**
+     * Returns the cart read for a lazy cart, unless its file is no longer the one the header came from.
+     * The stamp is taken after reading, so a replacement during the read is caught as well.
+     */
+    private static Cart unchanged(String name, Stamp headerStamp, Cart cart, Stamp readStamp) {
+        if (!readStamp.equals(headerStamp)) {
+            throw new IllegalStateException(String.format("Cart %s was replaced after its header was read", name));
+        }
+        return cart;
+    }
+
+    private record Header(String cartName, double total) {
+    }
+
+    /**
+     * Size and modification time of a file, which change when it is replaced.
+     */
+    private record Stamp(long size, long modified) {
+    }
 }
@@ -0,0 +1,246 @@
+package parser;
+
+import shop.Cart;
+import shop.CartLine;
+import shop.PriceQuote;
+import shop.PricingEngine;
+import shop.RealItem;
+import shop.VirtualItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A cart read by {@link JsonParser#readLazily(java.io.File)}: only the name and the stored total are
+ * known up front. The items are parsed the first time anything other than the name or the
+ * total is asked for, and from then on the cart behaves like any other.
+ * <p>
+ * Until then the total is the one stored in the file, unless a pricing engine other than the
+ * standard one is set. Only totals of files written with standard pricing are used, since those
+ * are what loading recomputes; for carts written with custom pricing, asking for the total loads
+ * the items. Loading checks the stored total against the items and logs a warning if a file was
+ * edited by hand and the two disagree. A file replaced since its header was read fails to load
+ * with {@link IllegalStateException}. Loading is synchronized, so a lazy cart can be shared
+ * read-only between threads like a plain one.
+ */
+public class LazyCart extends Cart {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LazyCart.class);
+    private static final double TOTAL_TOLERANCE = 1e-9;
+
+    private final double storedTotal;
+    private Supplier<Cart> loader;
+    private volatile boolean loaded;
+
+    LazyCart(String cartName, double storedTotal, Supplier<Cart> loader) {
+        super(cartName);
+        this.storedTotal = storedTotal;
+        this.loader = loader;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @Override
+    public Collection<RealItem> getRealItems() {
+        load();
+        return super.getRealItems();
+    }
+
+    @Override
+    public Collection<VirtualItem> getVirtualItems() {
+        load();
+        return super.getVirtualItems();
+    }
+
+    @Override
+    public List<CartLine<RealItem>> getRealLines() {
+        load();
+        return super.getRealLines();
+    }
+
+    @Override
+    public List<CartLine<VirtualItem>> getVirtualLines() {
+        load();
+        return super.getVirtualLines();
+    }
+
+    @Override
+    public void addRealItem(RealItem item) {
+        load();
+        super.addRealItem(item);
+    }
+
+    @Override
+    public void addRealItem(RealItem item, int quantity) {
+        load();
+        super.addRealItem(item, quantity);
+    }
+
+    @Override
+    public void deleteRealItem(RealItem item) {
+        load();
+        super.deleteRealItem(item);
+    }
+
+    @Override
+    public RealItem findRealItem(String name) {
+        load();
+        return super.findRealItem(name);
+    }
+
+    @Override
+    public int getRealItemQuantity(RealItem item) {
+        load();
+        return super.getRealItemQuantity(item);
+    }
+
+    @Override
+    public void setRealItemQuantity(RealItem item, int quantity) {
+        load();
+        super.setRealItemQuantity(item, quantity);
+    }
+
+    @Override
+    public void addVirtualItem(VirtualItem item) {
+        load();
+        super.addVirtualItem(item);
+    }
+
+    @Override
+    public void addVirtualItem(VirtualItem item, int quantity) {
+        load();
+        super.addVirtualItem(item, quantity);
+    }
+
+    @Override
+    public void deleteVirtualItem(VirtualItem item) {
+        load();
+        super.deleteVirtualItem(item);
+    }
+
+    @Override
+    public VirtualItem findVirtualItem(String name) {
+        load();
+        return super.findVirtualItem(name);
+    }
+
+    @Override
+    public int getVirtualItemQuantity(VirtualItem item) {
+        load();
+        return super.getVirtualItemQuantity(item);
+    }
+
+    @Override
+    public void setVirtualItemQuantity(VirtualItem item, int quantity) {
+        load();
+        super.setVirtualItemQuantity(item, quantity);
+    }
+
+    @Override
+    public void renderItems(Writer out) throws IOException {
+        load();
+        super.renderItems(out);
+    }
+
+    @Override
+    public PriceQuote quote() {
+        load();
+        return super.quote();
+    }
+
+    @Override
+    public double getTotalPrice() {
+        if (!loaded && !Double.isNaN(storedTotal) && getPricingEngine() == PricingEngine.STANDARD) {
+            return storedTotal;
+        }
+        load();
+        return super.getTotalPrice();
+    }
+
+    @Override
+    public double getSubtotal() {
+        load();
+        return super.getSubtotal();
+    }
+
+    @Override
+    public double getTax() {
+        load();
+        return super.getTax();
+    }
+
+    @Override
+    public double getRealSubtotal() {
+        load();
+        return super.getRealSubtotal();
+    }
+
+    @Override
+    public double getVirtualSubtotal() {
+        load();
+        return super.getVirtualSubtotal();
+    }
+
+    @Override
+    public int getItemCount() {
+        load();
+        return super.getItemCount();
+    }
+
+    @Override
+    public int getRealItemCount() {
+        load();
+        return super.getRealItemCount();
+    }
+
+    @Override
+    public int getVirtualItemCount() {
+        load();
+        return super.getVirtualItemCount();
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            Cart cart = loader.get();
+            if (cart != null) {
+                setCounted(false);
+                try {
+                    cart.getRealLines().forEach(line -> super.addRealItem(line.item(), line.quantity()));
+                    cart.getVirtualLines().forEach(line -> super.addVirtualItem(line.item(), line.quantity()));
+                } finally {
+                    setCounted(true);
+                }
+            }
+            loader = null;
+            loaded = true;
+            checkStoredTotal();
+        }
+    }
+
+    /**
+     * Warns if the stored total, which may already have been handed out, is not what the items add up to.
+     */
+    private void checkStoredTotal() {
+        if (Double.isNaN(storedTotal) || getPricingEngine() != PricingEngine.STANDARD) {
+            return; // the stored total is only ever handed out under standard pricing
+        }
+        double total = super.getTotalPrice();
+        if (Math.abs(total - storedTotal) > TOTAL_TOLERANCE * Math.max(1, Math.abs(storedTotal))) {
+            LOGGER.warn("Stored total {} of cart {} does not match its items, which add up to {}",
+                    storedTotal, getCartName(), total);
+        }
+    }
+}
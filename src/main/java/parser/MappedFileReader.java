@@ -0,0 +1,112 @@
+package parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reader that decodes a memory-mapped UTF-8 file directly into the caller's buffer.
+ * Files larger than one region are mapped piece by piece; a character split by a
+ * region boundary is picked up again by starting the next region at the first
+ * undecoded byte.
+ */
+class MappedFileReader extends Reader {
+
+    private static final long DEFAULT_REGION_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long regionSize;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private MappedByteBuffer region;
+    private long regionStart;
+    private char pendingChar;
+    private boolean hasPendingChar;
+    private boolean eof;
+
+    MappedFileReader(Path file) throws IOException {
+        this(file, DEFAULT_REGION_SIZE);
+    }
+
+    MappedFileReader(Path file, long regionSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.regionSize = Math.max(regionSize, 4); // room for the longest UTF-8 sequence
+        try {
+            map(0);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (hasPendingChar) {
+            cbuf[off] = pendingChar;
+            hasPendingChar = false;
+            return 1;
+        }
+        if (eof) {
+            return -1;
+        }
+
+        CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+        while (true) {
+            boolean endOfInput = regionStart + region.limit() >= size;
+            CoderResult result = decoder.decode(region, out, endOfInput);
+            int read = out.position() - off;
+            if (result.isOverflow()) {
+                return read > 0 ? read : readSurrogatePair(cbuf, off, endOfInput);
+            }
+            if (!endOfInput) {
+                map(regionStart + region.position());
+                if (read > 0) {
+                    return read;
+                }
+                continue;
+            }
+            decoder.flush(out);
+            eof = true;
+            read = out.position() - off;
+            return read > 0 ? read : -1;
+        }
+    }
+
+    // Only reached when the caller asked for a single char and the next code point needs two.
+    private int readSurrogatePair(char[] cbuf, int off, boolean endOfInput) {
+        CharBuffer pair = CharBuffer.allocate(2);
+        decoder.decode(region, pair, endOfInput);
+        pair.flip();
+        cbuf[off] = pair.get();
+        if (pair.hasRemaining()) {
+            pendingChar = pair.get();
+            hasPendingChar = true;
+        }
+        return 1;
+    }
+
+    private void map(long position) throws IOException {
+        regionStart = position;
+        region = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(regionSize, size - position));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,78 @@
+package parser;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Maps storage keys to file names and back.
+ */
+public interface NameCodec {
+
+    /**
+     * Uses keys as file names unchanged, as the parsers always did. Names with characters
+     * like {@code ?}, {@code *} or {@code /} only work where the file system allows them.
+     */
+    NameCodec IDENTITY = new NameCodec() {
+        @Override
+        public String encode(String key) {
+            return key;
+        }
+
+        @Override
+        public String decode(String fileName) {
+            return fileName;
+        }
+    };
+
+    /**
+     * Keeps ASCII letters, digits, {@code -}, {@code _} and non-leading dots, and writes every
+     * other byte of the UTF-8 form as {@code %XX}. The result is a valid file name on any common
+     * file system and never hidden.
+     */
+    NameCodec PERCENT = new NameCodec() {
+        @Override
+        public String encode(String key) {
+            StringBuilder encoded = new StringBuilder(key.length() + 8);
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < bytes.length; i++) {
+                int b = bytes[i] & 0xFF;
+                if (isSafe(b) && !(b == '.' && i == 0)) {
+                    encoded.append((char) b);
+                } else {
+                    encoded.append('%').append(Character.toUpperCase(Character.forDigit(b >> 4, 16)))
+                            .append(Character.toUpperCase(Character.forDigit(b & 0xF, 16)));
+                }
+            }
+            return encoded.toString();
+        }
+
+        @Override
+        public String decode(String fileName) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(fileName.length());
+            for (int i = 0; i < fileName.length(); i++) {
+                char c = fileName.charAt(i);
+                if (c != '%') {
+                    bytes.write(c);
+                    continue;
+                }
+                int high = i + 1 < fileName.length() ? Character.digit(fileName.charAt(i + 1), 16) : -1;
+                int low = i + 2 < fileName.length() ? Character.digit(fileName.charAt(i + 2), 16) : -1;
+                if (high < 0 || low < 0) {
+                    throw new IllegalArgumentException("Invalid escape in file name " + fileName);
+                }
+                bytes.write(high << 4 | low);
+                i += 2;
+            }
+            return bytes.toString(StandardCharsets.UTF_8);
+        }
+
+        private boolean isSafe(int b) {
+            return b >= 'a' && b <= 'z' || b >= 'A' && b <= 'Z' || b >= '0' && b <= '9'
+                    || b == '-' || b == '_' || b == '.';
+        }
+    };
+
+    String encode(String key);
+
+    String decode(String fileName);
+}
@@ -0,0 +1,184 @@
+package parser;
+
+import com.google.gson.JsonSyntaxException;
+import shop.Cart;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads carts from a newline-delimited JSON file lazily, one line at a time. The file can be
+ * split into byte ranges that are read independently: a line belongs to the range in which it
+ * starts, so the ranges of {@link #split(Path, int)} together yield every cart exactly once.
+ * <p>
+ * The returned streams hold the file open and must be closed.
+ */
+public final class NdjsonReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private NdjsonReader() {
+    }
+
+    public static Stream<Cart> read(Path file) throws IOException {
+        return read(file, new ByteRange(0, Long.MAX_VALUE));
+    }
+
+    /**
+     * Reads the carts whose lines start within the range.
+     */
+    public static Stream<Cart> read(Path file, ByteRange range) throws IOException {
+        CartIterator iterator = new CartIterator(file, range);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(iterator::close);
+    }
+
+    /**
+     * Reads all ranges of the file in parallel; the order of the carts is not kept.
+     */
+    public static Stream<Cart> readParallel(Path file, int parts) throws IOException {
+        List<ByteRange> ranges = split(file, parts);
+        return ranges.parallelStream().flatMap(range -> {
+            try {
+                return read(file, range);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Splits the file into at most {@code parts} ranges of about the same number of bytes.
+     */
+    public static List<ByteRange> split(Path file, int parts) throws IOException {
+        if (parts <= 0) {
+            throw new IllegalArgumentException("parts must be positive: " + parts);
+        }
+        long size;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            size = channel.size();
+        }
+        List<ByteRange> ranges = new ArrayList<>(parts);
+        long length = Math.max(1, (size + parts - 1) / parts);
+        for (long start = 0; start < size; start += length) {
+            ranges.add(new ByteRange(start, Math.min(size, start + length)));
+        }
+        return ranges;
+    }
+
+    /**
+     * Bytes {@code start} (inclusive) to {@code end} (exclusive) of a file.
+     */
+    public record ByteRange(long start, long end) {
+
+        public ByteRange {
+            if (start < 0 || end < start) {
+                throw new IllegalArgumentException(String.format("Invalid range [%d, %d)", start, end));
+            }
+        }
+    }
+
+    private static final class CartIterator implements Iterator<Cart> {
+
+        private final JsonParser jsonParser = new JsonParser();
+        private final FileChannel channel;
+        private final InputStream in;
+        private final long end;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream(1024);
+        private long position;
+        private Cart next;
+
+        private CartIterator(Path file, ByteRange range) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                end = range.end();
+                // a line starting before the range belongs to the previous range: skip the rest of it
+                position = Math.max(0, range.start() - 1);
+                channel.position(position);
+                in = new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE);
+                if (range.start() > 0) {
+                    readLine();
+                }
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null && position < end) {
+                    long lineStart = position;
+                    if (!readLine()) {
+                        return false;
+                    }
+                    if (line.size() == 0) {
+                        continue;
+                    }
+                    try {
+                        next = jsonParser.read(new StringReader(line.toString(StandardCharsets.UTF_8)));
+                    } catch (JsonSyntaxException e) {
+                        throw new CartFormatException(String.format("Invalid cart at byte %d", lineStart), e);
+                    }
+                }
+                return next != null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Cart next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Cart cart = next;
+            next = null;
+            return cart;
+        }
+
+        /**
+         * Reads up to and including the next newline into {@code line}. Returns false at the end of the file.
+         */
+        private boolean readLine() throws IOException {
+            line.reset();
+            int b;
+            while ((b = in.read()) != -1) {
+                position++;
+                if (b == '\n') {
+                    return true;
+                }
+                if (b != '\r') {
+                    line.write(b);
+                }
+            }
+            return line.size() > 0;
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
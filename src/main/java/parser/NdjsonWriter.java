@@ -0,0 +1,57 @@
+package parser;
+
+import shop.Cart;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes many carts into one newline-delimited JSON stream, one cart per line in the usual
+ * cart layout. Line breaks inside names are escaped, so every line is a complete cart.
+ */
+public class NdjsonWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final JsonParser jsonParser = new JsonParser();
+    private final Writer writer;
+    private long count;
+
+    public NdjsonWriter(Path file) throws IOException {
+        this(Files.newBufferedWriter(file, StandardCharsets.UTF_8));
+    }
+
+    public NdjsonWriter(Writer writer) {
+        this.writer = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer, BUFFER_SIZE);
+    }
+
+    public void write(Cart cart) throws IOException {
+        jsonParser.write(cart, writer);
+        writer.write('\n');
+        count++;
+    }
+
+    public void writeAll(Iterable<? extends Cart> carts) throws IOException {
+        for (Cart cart : carts) {
+            write(cart);
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -3,9 +3,68 @@ package parser;
 import shop.Cart;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 public interface Parser {
 
     void writeToFile(Cart cart);
     Cart readFromFile(File file);
+
+    /**
+     * The file a cart of that name is kept in. Parsers that do not keep carts in files, or that
+     * predate this method, throw {@link UnsupportedOperationException}; they should override
+     * {@link #readCart}, {@link #lastModified} and {@link #length} to be used by name.
+     */
+    default File fileFor(String cartName) {
+        throw new UnsupportedOperationException(getClass().getName() + " does not keep carts in files");
+    }
+
+    /**
+     * Writes the cart under its name and throws if that fails. {@link #writeToFile(Cart)} may
+     * only log a failed write; this default delegates to it, so parsers whose writes can fail
+     * should override it.
+     */
+    default void writeCart(Cart cart) throws IOException {
+        writeToFile(cart);
+    }
+
+    /**
+     * Reads the cart stored under the given name.
+     */
+    default Cart readCart(String cartName) {
+        return readFromFile(fileFor(cartName));
+    }
+
+    /**
+     * A stamp that changes whenever the stored cart is replaced, 0 if there is none.
+     */
+    default long lastModified(String cartName) {
+        return fileFor(cartName).lastModified();
+    }
+
+    /**
+     * Size of the stored cart in bytes, 0 if there is none.
+     */
+    default long length(String cartName) {
+        return fileFor(cartName).length();
+    }
+
+    default BulkReadResult readAll(Path directory) {
+        return BulkReader.readDirectory(this, directory, "*.json", null);
+    }
+
+    default BulkReadResult readAll(Path directory, Executor executor) {
+        return BulkReader.readDirectory(this, directory, "*.json", executor);
+    }
+
+    default BulkReadResult readAll(Stream<Path> files) {
+        return BulkReader.read(this, files, null);
+    }
+
+    default BulkReadResult readAll(Stream<Path> files, Executor executor) {
+        return BulkReader.read(this, files, executor);
+    }
 }
@@ -0,0 +1,134 @@
+package parser;
+
+import jdk.jfr.EventType;
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import shop.Cart;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The instruments of one parser in one registry, resolved once. Latencies are in nanoseconds.
+ * When the registry is disabled nothing is timed or counted; the Flight Recorder events are
+ * committed independently, whenever a recording asks for them. Events are only created while a
+ * recording has them enabled, so with both off an operation allocates nothing for either.
+ */
+final class ParserMetrics {
+
+    private static final EventType READ_EVENT = EventType.getEventType(CartReadEvent.class);
+    private static final EventType WRITE_EVENT = EventType.getEventType(CartWriteEvent.class);
+
+    private final MetricsRegistry registry;
+    private final String prefix;
+    private final boolean enabled;
+    private final Histogram readLatency;
+    private final Counter readBytes;
+    private final Counter readItems;
+    private final Histogram writeLatency;
+    private final Counter writeBytes;
+    private final Counter writeItems;
+    private final Map<String, Counter> errors = new ConcurrentHashMap<>();
+
+    ParserMetrics(MetricsRegistry registry, String prefix) {
+        this.registry = registry;
+        this.prefix = prefix;
+        this.enabled = registry.isEnabled();
+        readLatency = registry.histogram(prefix + ".read.latency");
+        readBytes = registry.counter(prefix + ".read.bytes");
+        readItems = registry.counter(prefix + ".read.items");
+        writeLatency = registry.histogram(prefix + ".write.latency");
+        writeBytes = registry.counter(prefix + ".write.bytes");
+        writeItems = registry.counter(prefix + ".write.items");
+    }
+
+    MetricsRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Whether the caller should work out the sizes for {@link #read} or {@link #written}.
+     */
+    boolean isRecording(jdk.jfr.Event event) {
+        return enabled || event != null;
+    }
+
+    /**
+     * A begun read event, or null if no recording has it enabled.
+     */
+    CartReadEvent beginRead() {
+        if (!READ_EVENT.isEnabled()) {
+            return null;
+        }
+        CartReadEvent event = new CartReadEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * A begun write event, or null if no recording has it enabled.
+     */
+    CartWriteEvent beginWrite() {
+        if (!WRITE_EVENT.isEnabled()) {
+            return null;
+        }
+        CartWriteEvent event = new CartWriteEvent();
+        event.begin();
+        return event;
+    }
+
+    long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    void read(long start, CartReadEvent event, String source, long bytes, Cart cart) {
+        int items = cart == null ? 0 : cart.getItemCount();
+        if (enabled) {
+            readLatency.record(System.nanoTime() - start);
+            readBytes.add(bytes);
+            readItems.add(items);
+        }
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.parser = prefix;
+            event.source = source;
+            event.bytes = bytes;
+            event.items = items;
+            event.commit();
+        }
+    }
+
+    void written(long start, CartWriteEvent event, String target, long bytes, Cart cart) {
+        int items = cart.getItemCount();
+        if (enabled) {
+            writeLatency.record(System.nanoTime() - start);
+            writeBytes.add(bytes);
+            writeItems.add(items);
+        }
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.parser = prefix;
+            event.target = target;
+            event.bytes = bytes;
+            event.items = items;
+            event.commit();
+        }
+    }
+
+    /**
+     * Counts the failure under {@code <prefix>.<operation>.errors.<exception type>}.
+     */
+    void failed(String operation, Throwable error) {
+        if (enabled) {
+            String name = prefix + "." + operation + ".errors." + error.getClass().getSimpleName();
+            errors.computeIfAbsent(name, registry::counter).increment();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package parser;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import shop.RealItemValue;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes a {@link RealItemValue} in the same layout as {@link RealItemAdapter}, so values
+ * and mutable items can read each other's JSON.
+ */
+final class RealItemValueAdapter extends TypeAdapter<RealItemValue> {
+
+    @Override
+    public void write(JsonWriter out, RealItemValue item) throws IOException {
+        if (item == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("weight").value(item.weight());
+        out.name("name").value(item.name());
+        out.name("price").value(item.price());
+        out.endObject();
+    }
+
+    @Override
+    public RealItemValue read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        RealItemValue.Builder item = RealItemValue.builder();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "name" -> item.name(in.nextString());
+                case "price" -> item.price(in.nextDouble());
+                case "weight" -> item.weight(in.nextDouble());
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return item.build();
+    }
+}
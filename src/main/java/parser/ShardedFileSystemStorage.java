@@ -0,0 +1,62 @@
+package parser;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Spreads entries over nested subdirectories named after a hash of the key, so that no single
+ * directory grows to millions of files. With the default two levels, {@code andrew-cart.json}
+ * is stored as something like {@code root/3f/a2/andrew-cart.json}; 65536 leaf directories keep
+ * lookups fast well past ten million carts.
+ */
+public class ShardedFileSystemStorage extends FileSystemStorage {
+
+    private final int levels;
+
+    public ShardedFileSystemStorage(Path root) {
+        this(root, 2, NameCodec.PERCENT);
+    }
+
+    /**
+     * @param levels number of subdirectory levels, each with up to 256 directories
+     */
+    public ShardedFileSystemStorage(Path root, int levels, NameCodec codec) {
+        super(root, codec);
+        if (levels < 1 || levels > 4) {
+            throw new IllegalArgumentException("levels must be between 1 and 4: " + levels);
+        }
+        this.levels = levels;
+    }
+
+    public int getLevels() {
+        return levels;
+    }
+
+    @Override
+    Path locate(String key, NameCodec codec) {
+        int hash = hash(key);
+        Path directory = getRoot();
+        for (int level = 0; level < levels; level++) {
+            int shard = hash >>> (24 - 8 * level) & 0xFF;
+            directory = directory.resolve(Character.forDigit(shard >> 4, 16) + "" + Character.forDigit(shard & 0xF, 16));
+        }
+        return directory.resolve(codec.encode(key));
+    }
+
+    @Override
+    int depth() {
+        return levels;
+    }
+
+    /**
+     * 32-bit FNV-1a over the UTF-8 bytes; stable across JVMs so existing files are found again.
+     */
+    static int hash(String key) {
+        int hash = 0x811C9DC5;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x01000193;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,77 @@
+package parser;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import shop.CartLine;
+import shop.NamePool;
+import shop.VirtualItem;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes a {@link VirtualItem} field by field, without reflection. Inside a cart the
+ * item object also carries the quantity of its line, left out when it is 1 so that such carts
+ * keep the one-entry-per-unit layout.
+ */
+final class VirtualItemAdapter extends TypeAdapter<VirtualItem> {
+
+    @Override
+    public void write(JsonWriter out, VirtualItem item) throws IOException {
+        writeLine(out, item, 1);
+    }
+
+    void writeLine(JsonWriter out, VirtualItem item, int quantity) throws IOException {
+        if (item == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("sizeOnDisk").value(item.getSizeOnDisk());
+        out.name("name").value(item.getName());
+        out.name("price").value(item.getPrice());
+        if (quantity != 1) {
+            out.name("quantity").value(quantity);
+        }
+        out.endObject();
+    }
+
+    @Override
+    public VirtualItem read(JsonReader in) throws IOException {
+        CartLine<VirtualItem> line = readLine(in);
+        return line == null ? null : line.item();
+    }
+
+    /**
+     * Reads an item and its quantity, 1 if none is given.
+     */
+    CartLine<VirtualItem> readLine(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        VirtualItem item = new VirtualItem();
+        int quantity = 1;
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "name" -> item.setName(NamePool.shared().intern(in.nextString()));
+                case "price" -> item.setPrice(in.nextDouble());
+                case "sizeOnDisk" -> item.setSizeOnDisk(in.nextDouble());
+                case "quantity" -> quantity = CartGson.readQuantity(in);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        if (quantity < 0) {
+            throw new CartFormatException("Negative quantity " + quantity + " for " + item.getName());
+        }
+        return new CartLine<>(item, quantity);
+    }
+}
@@ -0,0 +1,54 @@
+package parser;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import shop.VirtualItemValue;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes a {@link VirtualItemValue} in the same layout as {@link VirtualItemAdapter}, so values
+ * and mutable items can read each other's JSON.
+ */
+final class VirtualItemValueAdapter extends TypeAdapter<VirtualItemValue> {
+
+    @Override
+    public void write(JsonWriter out, VirtualItemValue item) throws IOException {
+        if (item == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("sizeOnDisk").value(item.sizeOnDisk());
+        out.name("name").value(item.name());
+        out.name("price").value(item.price());
+        out.endObject();
+    }
+
+    @Override
+    public VirtualItemValue read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        VirtualItemValue.Builder item = VirtualItemValue.builder();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "name" -> item.name(in.nextString());
+                case "price" -> item.price(in.nextDouble());
+                case "sizeOnDisk" -> item.sizeOnDisk(in.nextDouble());
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return item.build();
+    }
+}
@@ -0,0 +1,241 @@
+package parser;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import shop.Cart;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Asynchronous write-behind in front of a {@link Parser}. Saves are queued by cart name;
+ * saving a cart that is already queued only replaces the queued entry, so a cart edited
+ * many times within one window is written once, in its latest state. A background thread
+ * writes the queue in batches once per window.
+ * <p>
+ * The queue holds at most {@code maxPending} distinct carts. Further saves block, or time
+ * out with {@link #offer(Cart, long, TimeUnit)}, until the next batch has been taken.
+ * {@link #flush()} writes everything queued so far, {@link #close()} flushes and stops
+ * the background thread. If the background thread is interrupted it stops writing and the
+ * persister refuses further saves; {@link #flush()} and {@link #close()} still write the queue.
+ * <p>
+ * Saving queues a detached {@link Cart#copy()} of the cart, so the caller can keep editing it
+ * while the background thread writes. Writes go through {@link Parser#writeCart(Cart)}; a cart
+ * whose write fails is counted as a failure and queued again for the next batch, unless a newer
+ * save has replaced it in the meantime. Carts still failing at {@link #close()} stay in
+ * {@link #getPendingCount()}.
+ */
+public class WriteBehindPersister implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindPersister.class);
+
+    private final Parser parser;
+    private final long windowNanos;
+    private final int maxPending;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition closing = lock.newCondition();
+    private final Object writeMonitor = new Object();
+    private Thread flusher;
+    private final LongAdder saves = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private Map<String, Cart> pending = new LinkedHashMap<>();
+    private boolean closed;
+    private boolean stopped;
+
+    private WriteBehindPersister(Parser parser, Duration window, int maxPending) {
+        if (maxPending <= 0) {
+            throw new IllegalArgumentException("maxPending must be positive: " + maxPending);
+        }
+        this.parser = parser;
+        this.windowNanos = window.toNanos();
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Creates a persister writing through the parser once per window and starts its background thread.
+     */
+    public static WriteBehindPersister start(Parser parser, Duration window, int maxPending) {
+        WriteBehindPersister persister = new WriteBehindPersister(parser, window, maxPending);
+        persister.flusher = new Thread(persister::run, "cart-write-behind");
+        persister.flusher.setDaemon(true);
+        persister.flusher.start();
+        return persister;
+    }
+
+    /**
+     * Queues a copy of the cart, waiting while the queue is full.
+     */
+    public void save(Cart cart) throws InterruptedException {
+        cart = cart.copy();
+        lock.lock();
+        try {
+            while (isFull(cart)) {
+                notFull.await();
+            }
+            enqueue(cart);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queues a copy of the cart, waiting at most the given time while the queue is full.
+     * Returns false if the cart could not be queued in time.
+     */
+    public boolean offer(Cart cart, long timeout, TimeUnit unit) throws InterruptedException {
+        cart = cart.copy();
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (isFull(cart)) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = notFull.awaitNanos(remaining);
+            }
+            enqueue(cart);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes every cart queued before this call and returns once they are written.
+     */
+    public void flush() {
+        synchronized (writeMonitor) {
+            Map<String, Cart> batch;
+            lock.lock();
+            try {
+                batch = pending;
+                pending = new LinkedHashMap<>();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            for (Cart cart : batch.values()) {
+                try {
+                    parser.writeCart(cart);
+                    writes.increment();
+                } catch (IOException | RuntimeException e) {
+                    failures.increment();
+                    LOGGER.error("Could not persist cart {}, keeping it queued", cart.getCartName(), e);
+                    requeue(cart);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+            closing.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getSaveCount() {
+        return saves.sum();
+    }
+
+    public long getWriteCount() {
+        return writes.sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    private boolean isFull(Cart cart) {
+        if (closed) {
+            throw new IllegalStateException("Persister is closed");
+        }
+        if (stopped) {
+            throw new IllegalStateException("Persister stopped writing after an interrupt");
+        }
+        return pending.size() >= maxPending && !pending.containsKey(cart.getCartName());
+    }
+
+    private void enqueue(Cart cart) {
+        pending.put(cart.getCartName(), cart);
+        saves.increment();
+        notEmpty.signal();
+    }
+
+    /**
+     * Puts a cart back after a failed write. A newer save of the same cart wins, and the retry
+     * may take the queue over its limit rather than drop a cart it already accepted.
+     */
+    private void requeue(Cart cart) {
+        lock.lock();
+        try {
+            if (pending.putIfAbsent(cart.getCartName(), cart) == null) {
+                notEmpty.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            lock.lock();
+            try {
+                while (pending.isEmpty() && !closed) {
+                    notEmpty.await();
+                }
+                // let further saves of the same carts coalesce before writing
+                long remaining = windowNanos;
+                while (remaining > 0 && !closed) {
+                    remaining = closing.awaitNanos(remaining);
+                }
+                if (closed) {
+                    return; // close() flushes what is left
+                }
+            } catch (InterruptedException e) {
+                // nothing would drain the queue any more, so fail saves instead of blocking them
+                stopped = true;
+                notFull.signalAll();
+                LOGGER.warn("Write-behind thread interrupted, {} carts left queued", pending.size());
+                return;
+            } finally {
+                lock.unlock();
+            }
+            flush();
+        }
+    }
+}
@@ -1,54 +1,500 @@
 package shop;
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.function.ObjIntConsumer;
 
 public class Cart {
 
-    private static final double TAX = 0.2;
+    static final double TAX = 0.2;
+    static final BigDecimal TAX_RATE = BigDecimal.valueOf(TAX);
     private final String cartName;
-    private List<RealItem> realItems;
-    private List<VirtualItem> virtualItems;
-    private double total;
+    private ItemIndex<RealItem> realItems;
+    private ItemIndex<VirtualItem> virtualItems;
+    // Running sums kept exact, so any number of adds and deletes cancel out without drift.
+    // Deletes subtract the price a unit was added at, even if the item was repriced since.
+    // Prices that are not finite are rejected before the item is stored.
+    private BigDecimal realSubtotal = BigDecimal.ZERO;
+    private BigDecimal virtualSubtotal = BigDecimal.ZERO;
+    // volatile, since ConcurrentCart inherits it and reads it from any thread
+    private volatile PricingEngine pricingEngine = PricingEngine.STANDARD;
+    private CartMetrics metrics = CartMetrics.get();
 
     public Cart(String cartName) {
+        this(cartName, null);
+    }
+
+    /**
+     * A cart whose lines are numbered from the given source, shared with other carts.
+     */
+    Cart(String cartName, LongSupplier sequences) {
         this.cartName = cartName;
-        realItems = new ArrayList<>();
-        virtualItems = new ArrayList<>();
+        realItems = new ItemIndex<>(sequences);
+        virtualItems = new ItemIndex<>(sequences);
     }
 
     public String getCartName() {
         return cartName;
     }
 
+    public PricingEngine getPricingEngine() {
+        return pricingEngine;
+    }
+
+    /**
+     * Engine for {@link #getTotalPrice()} and {@link #getTax()}. With any engine other than
+     * {@link PricingEngine#STANDARD} they price every line, so they take time linear in the
+     * number of lines. The subtotals stay the plain sums of the item prices.
+     */
+    public void setPricingEngine(PricingEngine pricingEngine) {
+        this.pricingEngine = pricingEngine == null ? PricingEngine.STANDARD : pricingEngine;
+    }
+
+    /**
+     * A builder for a cart whose items are read back from storage rather than added by a customer,
+     * so they are not counted in the {@code cart.*.added} metrics.
+     */
+    public static Builder builder(String cartName) {
+        return new Builder(cartName);
+    }
+
+    /**
+     * Turns counting this cart's changes in the {@code cart.*} metrics off or back on. Subclasses
+     * that fill themselves from storage turn it off while they do. Turning it on looks the
+     * counters up in the current registry; until then a cart counts in the registry that was
+     * set when it was created.
+     */
+    protected final void setCounted(boolean counted) {
+        metrics = counted ? CartMetrics.get() : CartMetrics.NONE;
+    }
+
+    /**
+     * The stored items, each repeated by the quantity of its line. These are the instances that
+     * were added, so their fields may have been changed since; {@link #getRealLines()} has the
+     * fields the cart counts.
+     */
+    public Collection<RealItem> getRealItems() {
+        return realItems.values();
+    }
+
+    /**
+     * The stored items, each repeated by the quantity of its line, as {@link #getRealItems()}.
+     */
+    public Collection<VirtualItem> getVirtualItems() {
+        return virtualItems.values();
+    }
+
     public void addRealItem(RealItem item) {
+        if (item == null) {
+            return;
+        }
+        BigDecimal price = BigDecimal.valueOf(item.getPrice());
+        checkUnits(1);
         realItems.add(item);
-        total += item.getPrice() + item.getPrice()*TAX; // item.getPrice() * (1 + TAX)
+        realSubtotal = realSubtotal.add(price);
+        metrics.realAdded.increment();
+    }
+
+    /**
+     * Adds {@code quantity} units of the item at once. Units equal in every field to ones
+     * already in the cart raise the quantity of their line.
+     */
+    public void addRealItem(RealItem item, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity must not be negative: " + quantity);
+        }
+        if (item == null || quantity == 0) {
+            return;
+        }
+        BigDecimal lineTotal = lineTotal(item, quantity);
+        checkUnits(quantity);
+        realItems.add(item, quantity);
+        realSubtotal = realSubtotal.add(lineTotal);
+        metrics.realAdded.add(quantity);
     }
 
     public void deleteRealItem(RealItem item) {
-        realItems.remove(item);
+        removeRealItem(item);
+    }
+
+    RealItem removeRealItem(RealItem item) {
+        RealItem removed = realItems.remove(item);
+        if (removed != null) {
+            realSubtotal = realSubtotal.subtract(BigDecimal.valueOf(removed.getPrice()));
+            metrics.realRemoved.increment();
+        }
+        return removed;
+    }
+
+    /**
+     * Removes up to {@code count} units equal to the key, earliest line first, and reports
+     * each line it took units from.
+     */
+    void removeRealItems(RealItem item, int count, ObjIntConsumer<? super RealItem> removed) {
+        realItems.remove(item, count, (stored, taken) -> {
+            realSubtotal = realSubtotal.subtract(lineTotal(stored, taken));
+            metrics.realRemoved.add(taken);
+            removed.accept(stored, taken);
+        });
+    }
+
+    /**
+     * Whether this very instance was added to the cart and is still in it.
+     */
+    boolean holdsRealItem(RealItem item) {
+        return realItems.holds(item);
+    }
+
+    void forEachRealLine(ItemIndex.LineVisitor<? super RealItem> visitor) {
+        realItems.forEachLine(visitor);
+    }
+
+    /**
+     * Adds a line copied from another cart, keeping the fields its unit was added with; null
+     * takes them from the item.
+     */
+    void addRealLine(RealItem item, RealItem added, int quantity) {
+        BigDecimal lineTotal = lineTotal(added != null ? added : item, quantity);
+        checkUnits(quantity);
+        realItems.add(item, added, quantity);
+        realSubtotal = realSubtotal.add(lineTotal);
+    }
+
+    /**
+     * The lines with the fields their units were added with, which is what the totals are made
+     * of. Each line holds a detached copy; changing it changes nothing in the cart.
+     */
+    public List<CartLine<RealItem>> getRealLines() {
+        return realItems.lines();
+    }
+
+    public RealItem findRealItem(String name) {
+        RealItem key = new RealItem();
+        key.setName(name);
+        return realItems.find(key);
+    }
+
+    public int getRealItemQuantity(RealItem item) {
+        return realItems.count(item);
+    }
+
+    public void setRealItemQuantity(RealItem item, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity must not be negative: " + quantity);
+        }
+        int current = realItems.count(item);
+        if (quantity > current) {
+            addRealItem(item, quantity - current);
+        } else if (quantity < current) {
+            removeRealItems(item, current - quantity, (stored, taken) -> {
+            });
+        }
     }
 
     public void addVirtualItem(VirtualItem item) {
+        if (item == null) {
+            return;
+        }
+        BigDecimal price = BigDecimal.valueOf(item.getPrice());
+        checkUnits(1);
         virtualItems.add(item);
-        total += item.getPrice() + item.getPrice()*TAX;
+        virtualSubtotal = virtualSubtotal.add(price);
+        metrics.virtualAdded.increment();
+    }
+
+    /**
+     * Adds {@code quantity} units of the item at once. Units equal in every field to ones
+     * already in the cart raise the quantity of their line.
+     */
+    public void addVirtualItem(VirtualItem item, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity must not be negative: " + quantity);
+        }
+        if (item == null || quantity == 0) {
+            return;
+        }
+        BigDecimal lineTotal = lineTotal(item, quantity);
+        checkUnits(quantity);
+        virtualItems.add(item, quantity);
+        virtualSubtotal = virtualSubtotal.add(lineTotal);
+        metrics.virtualAdded.add(quantity);
     }
 
     public void deleteVirtualItem(VirtualItem item) {
-        virtualItems.remove(item);
+        removeVirtualItem(item);
+    }
+
+    VirtualItem removeVirtualItem(VirtualItem item) {
+        VirtualItem removed = virtualItems.remove(item);
+        if (removed != null) {
+            virtualSubtotal = virtualSubtotal.subtract(BigDecimal.valueOf(removed.getPrice()));
+            metrics.virtualRemoved.increment();
+        }
+        return removed;
+    }
+
+    /**
+     * Removes up to {@code count} units equal to the key, earliest line first, and reports
+     * each line it took units from.
+     */
+    void removeVirtualItems(VirtualItem item, int count, ObjIntConsumer<? super VirtualItem> removed) {
+        virtualItems.remove(item, count, (stored, taken) -> {
+            virtualSubtotal = virtualSubtotal.subtract(lineTotal(stored, taken));
+            metrics.virtualRemoved.add(taken);
+            removed.accept(stored, taken);
+        });
+    }
+
+    /**
+     * Whether this very instance was added to the cart and is still in it.
+     */
+    boolean holdsVirtualItem(VirtualItem item) {
+        return virtualItems.holds(item);
+    }
+
+    void forEachVirtualLine(ItemIndex.LineVisitor<? super VirtualItem> visitor) {
+        virtualItems.forEachLine(visitor);
+    }
+
+    /**
+     * Adds a line copied from another cart, keeping the fields its unit was added with; null
+     * takes them from the item.
+     */
+    void addVirtualLine(VirtualItem item, VirtualItem added, int quantity) {
+        BigDecimal lineTotal = lineTotal(added != null ? added : item, quantity);
+        checkUnits(quantity);
+        virtualItems.add(item, added, quantity);
+        virtualSubtotal = virtualSubtotal.add(lineTotal);
+    }
+
+    /**
+     * The lines with the fields their units were added with, as {@link #getRealLines()}.
+     */
+    public List<CartLine<VirtualItem>> getVirtualLines() {
+        return virtualItems.lines();
+    }
+
+    public VirtualItem findVirtualItem(String name) {
+        VirtualItem key = new VirtualItem();
+        key.setName(name);
+        return virtualItems.find(key);
+    }
+
+    public int getVirtualItemQuantity(VirtualItem item) {
+        return virtualItems.count(item);
+    }
+
+    public void setVirtualItemQuantity(VirtualItem item, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity must not be negative: " + quantity);
+        }
+        int current = virtualItems.count(item);
+        if (quantity > current) {
+            addVirtualItem(item, quantity - current);
+        } else if (quantity < current) {
+            removeVirtualItems(item, current - quantity, (stored, taken) -> {
+            });
+        }
+    }
+
+    /**
+     * Adds a mutable copy of the value, as {@link #addRealItem} or {@link #addVirtualItem}.
+     * The cart keeps that item, not the value; only the pooled name is shared with the value.
+     */
+    public void addItem(ItemValue value) {
+        switch (value) {
+            case RealItemValue realItem -> addRealItem(realItem.toItem());
+            case VirtualItemValue virtualItem -> addVirtualItem(virtualItem.toItem());
+            case null -> {
+            }
+        }
+    }
+
+    /**
+     * Immutable values of all units, as they were added, real items first.
+     */
+    public List<ItemValue> getItemValues() {
+        List<ItemValue> values = new ArrayList<>(getItemCount());
+        for (CartLine<RealItem> line : getRealLines()) {
+            values.addAll(Collections.nCopies(line.quantity(), RealItemValue.of(line.item())));
+        }
+        for (CartLine<VirtualItem> line : getVirtualLines()) {
+            values.addAll(Collections.nCopies(line.quantity(), VirtualItemValue.of(line.item())));
+        }
+        return values;
+    }
+
+    /**
+     * A detached plain cart with the same name, pricing engine and lines, holding copies of the
+     * items as they were added, so its totals are those of this cart. Another thread may read
+     * the copy while this cart keeps changing.
+     */
+    public Cart copy() {
+        Cart copy = new Cart(cartName);
+        copy.setPricingEngine(getPricingEngine());
+        for (CartLine<RealItem> line : getRealLines()) {
+            copy.addRealLine(line.item(), null, line.quantity());
+        }
+        for (CartLine<VirtualItem> line : getVirtualLines()) {
+            copy.addVirtualLine(line.item(), null, line.quantity());
+        }
+        return copy;
     }
 
     public void showItems() {
-        for (RealItem item : realItems) {
-            System.out.println(item);
+        Writer out = new OutputStreamWriter(System.out, System.out.charset());
+        try {
+            renderItems(out);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        for (VirtualItem item : virtualItems) {
-            System.out.println(item);
+    }
+
+    /**
+     * Writes every unit as a line, in the format of {@link Item#toString()}, with the fields it
+     * was added with: real items first, then virtual ones. The text goes out in chunks; the
+     * writer is not flushed.
+     */
+    public void renderItems(Writer out) throws IOException {
+        StringBuilder text = ItemText.scratch();
+        for (RealItem item : realItems.addedValues()) {
+            ItemText.appendLine(item, text, out);
         }
+        for (VirtualItem item : virtualItems.addedValues()) {
+            ItemText.appendLine(item, text, out);
+        }
+        ItemText.write(text, out);
+    }
+
+    /**
+     * Rejects adding units that would take the cart past {@link Integer#MAX_VALUE} units, before
+     * anything is changed, so {@link #getItemCount()} cannot overflow.
+     */
+    private void checkUnits(int quantity) {
+        Math.addExact(Math.addExact(realItems.size(), virtualItems.size()), quantity);
+    }
+
+    private static BigDecimal lineTotal(Item item, int quantity) {
+        return BigDecimal.valueOf(item.getPrice()).multiply(BigDecimal.valueOf(quantity));
+    }
+
+    /**
+     * Prices every line with the cart's engine, at the fields its units were added with, as the
+     * subtotals do. The lines are visited in place, without copying them.
+     */
+    public PriceQuote quote() {
+        LineQuotes quotes = new LineQuotes(pricingEngine);
+        realItems.forEachLine(quotes);
+        virtualItems.forEachLine(quotes);
+        return new PriceQuote(quotes.net, quotes.tax);
     }
 
     public double getTotalPrice() {
-        return total;
+        if (pricingEngine != PricingEngine.STANDARD) {
+            return quote().total().doubleValue();
+        }
+        BigDecimal subtotal = realSubtotal.add(virtualSubtotal);
+        return subtotal.add(subtotal.multiply(TAX_RATE)).doubleValue(); // subtotal * (1 + TAX)
+    }
+
+    public double getSubtotal() {
+        return realSubtotal.add(virtualSubtotal).doubleValue();
+    }
+
+    public double getTax() {
+        if (pricingEngine != PricingEngine.STANDARD) {
+            return quote().tax().doubleValue();
+        }
+        return realSubtotal.add(virtualSubtotal).multiply(TAX_RATE).doubleValue();
+    }
+
+    public double getRealSubtotal() {
+        return realSubtotal.doubleValue();
+    }
+
+    public double getVirtualSubtotal() {
+        return virtualSubtotal.doubleValue();
+    }
+
+    public int getItemCount() {
+        return realItems.size() + virtualItems.size();
+    }
+
+    public int getRealItemCount() {
+        return realItems.size();
+    }
+
+    public int getVirtualItemCount() {
+        return virtualItems.size();
+    }
+
+    private static final class LineQuotes implements ItemIndex.LineVisitor<Item> {
+
+        private final PricingEngine engine;
+        private BigDecimal net = BigDecimal.ZERO;
+        private BigDecimal tax = BigDecimal.ZERO;
+
+        private LineQuotes(PricingEngine engine) {
+            this.engine = engine;
+        }
+
+        @Override
+        public void visit(long sequence, Item item, Item added, int quantity) {
+            PriceQuote quote = engine.price(added, quantity);
+            net = net.add(quote.net());
+            tax = tax.add(quote.tax());
+        }
+    }
+
+    public static final class Builder {
+
+        private Cart cart;
+
+        private Builder(String cartName) {
+            cart = new Cart(cartName);
+            cart.setCounted(false);
+        }
+
+        /**
+         * Adds units as {@link Cart#addRealItem(RealItem, int)} does, without counting them.
+         */
+        public Builder addRealItem(RealItem item, int quantity) {
+            cart().addRealItem(item, quantity);
+            return this;
+        }
+
+        /**
+         * Adds units as {@link Cart#addVirtualItem(VirtualItem, int)} does, without counting them.
+         */
+        public Builder addVirtualItem(VirtualItem item, int quantity) {
+            cart().addVirtualItem(item, quantity);
+            return this;
+        }
+
+        /**
+         * Returns the cart, which counts its changes from now on. The builder cannot be used again.
+         */
+        public Cart build() {
+            Cart built = cart();
+            cart = null;
+            built.setCounted(true);
+            return built;
+        }
+
+        private Cart cart() {
+            if (cart == null) {
+                throw new IllegalStateException("Cart was already built");
+            }
+            return cart;
+        }
     }
 }
@@ -0,0 +1,139 @@
+package shop;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Computes revenue, tax, weight and size aggregates and per-name statistics over many carts.
+ * Tax and totals are what each cart's own {@link PricingEngine} charges for the same lines the
+ * revenue is summed over.
+ * <p>
+ * Each worker of the parallel stream fills its own accumulator and the accumulators are merged
+ * pairwise, so no state is shared while the carts are scanned. All sums are kept as exact
+ * decimals; since exact addition does not depend on order, the result is the same for any
+ * split of the input.
+ */
+public final class CartAnalytics {
+
+    private CartAnalytics() {
+    }
+
+    /**
+     * Analyzes the carts in parallel.
+     */
+    public static CartStatistics analyze(Collection<? extends Cart> carts) {
+        return analyze(carts.parallelStream());
+    }
+
+    /**
+     * Analyzes the carts of the stream, in parallel if the stream is parallel.
+     */
+    public static CartStatistics analyze(Stream<? extends Cart> carts) {
+        return carts.collect(Accumulator::new, Accumulator::add, Accumulator::merge).toStatistics();
+    }
+
+    private static final class Accumulator {
+
+        private long carts;
+        private long realItems;
+        private long virtualItems;
+        private BigDecimal revenue = BigDecimal.ZERO;
+        private BigDecimal net = BigDecimal.ZERO;
+        private BigDecimal tax = BigDecimal.ZERO;
+        private BigDecimal weight = BigDecimal.ZERO;
+        private BigDecimal sizeOnDisk = BigDecimal.ZERO;
+        private final Map<String, ItemAccumulator> byName = new HashMap<>();
+
+        /**
+         * Takes revenue, weight, size, tax and total from the same lines, each read once, so they
+         * describe the same units even if the cart's items are changed meanwhile.
+         */
+        void add(Cart cart) {
+            carts++;
+            PricingEngine engine = cart.getPricingEngine();
+            for (CartLine<RealItem> line : cart.getRealLines()) {
+                RealItem item = line.item();
+                BigDecimal quantity = BigDecimal.valueOf(line.quantity());
+                BigDecimal price = BigDecimal.valueOf(item.getPrice()).multiply(quantity);
+                BigDecimal itemWeight = BigDecimal.valueOf(item.getWeight()).multiply(quantity);
+                realItems += line.quantity();
+                addSale(engine, item, line.quantity(), price);
+                weight = weight.add(itemWeight);
+                byName.computeIfAbsent(item.getName(), name -> new ItemAccumulator())
+                        .add(line.quantity(), price, itemWeight, BigDecimal.ZERO);
+            }
+            for (CartLine<VirtualItem> line : cart.getVirtualLines()) {
+                VirtualItem item = line.item();
+                BigDecimal quantity = BigDecimal.valueOf(line.quantity());
+                BigDecimal price = BigDecimal.valueOf(item.getPrice()).multiply(quantity);
+                BigDecimal size = BigDecimal.valueOf(item.getSizeOnDisk()).multiply(quantity);
+                virtualItems += line.quantity();
+                addSale(engine, item, line.quantity(), price);
+                sizeOnDisk = sizeOnDisk.add(size);
+                byName.computeIfAbsent(item.getName(), name -> new ItemAccumulator())
+                        .add(line.quantity(), price, BigDecimal.ZERO, size);
+            }
+        }
+
+        private void addSale(PricingEngine engine, Item item, int quantity, BigDecimal price) {
+            revenue = revenue.add(price);
+            if (engine == PricingEngine.STANDARD) {
+                net = net.add(price);
+                tax = tax.add(price.multiply(Cart.TAX_RATE));
+            } else {
+                PriceQuote quote = engine.price(item, quantity);
+                net = net.add(quote.net());
+                tax = tax.add(quote.tax());
+            }
+        }
+
+        void merge(Accumulator other) {
+            carts += other.carts;
+            realItems += other.realItems;
+            virtualItems += other.virtualItems;
+            revenue = revenue.add(other.revenue);
+            net = net.add(other.net);
+            tax = tax.add(other.tax);
+            weight = weight.add(other.weight);
+            sizeOnDisk = sizeOnDisk.add(other.sizeOnDisk);
+            other.byName.forEach((name, item) -> byName.merge(name, item, ItemAccumulator::merge));
+        }
+
+        CartStatistics toStatistics() {
+            Map<String, ItemStatistics> items = new TreeMap<>(Comparator.nullsFirst(Comparator.naturalOrder()));
+            byName.forEach((name, item) -> items.put(name,
+                    new ItemStatistics(name, item.quantity, item.revenue, item.weight, item.sizeOnDisk)));
+            return new CartStatistics(carts, realItems, virtualItems, revenue, net, tax, weight, sizeOnDisk,
+                    Collections.unmodifiableMap(items));
+        }
+    }
+
+    private static final class ItemAccumulator {
+
+        private long quantity;
+        private BigDecimal revenue = BigDecimal.ZERO;
+        private BigDecimal weight = BigDecimal.ZERO;
+        private BigDecimal sizeOnDisk = BigDecimal.ZERO;
+
+        void add(int units, BigDecimal price, BigDecimal itemWeight, BigDecimal size) {
+            quantity += units;
+            revenue = revenue.add(price);
+            weight = weight.add(itemWeight);
+            sizeOnDisk = sizeOnDisk.add(size);
+        }
+
+        ItemAccumulator merge(ItemAccumulator other) {
+            quantity += other.quantity;
+            revenue = revenue.add(other.revenue);
+            weight = weight.add(other.weight);
+            sizeOnDisk = sizeOnDisk.add(other.sizeOnDisk);
+            return this;
+        }
+    }
+}
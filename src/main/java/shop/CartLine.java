@@ -0,0 +1,7 @@
+package shop;
+
+/**
+ * One line of a cart: an item and how many units of it the cart holds.
+ */
+public record CartLine<T extends Item>(T item, int quantity) {
+}
@@ -0,0 +1,44 @@
+package shop;
+
+import metrics.Counter;
+import metrics.Metrics;
+import metrics.MetricsRegistry;
+
+/**
+ * Counters for item mutations of every cart, in the global {@link Metrics} registry. A cart looks
+ * them up once, when it is created, so a mutation costs a call to a counter and no volatile read.
+ * They are resolved again only when the registry is replaced.
+ */
+final class CartMetrics {
+
+    /**
+     * Counts nothing, for changes that are not a customer's, like filling a cart from storage.
+     */
+    static final CartMetrics NONE = new CartMetrics(MetricsRegistry.NOOP);
+
+    private static volatile CartMetrics current = NONE;
+
+    private final MetricsRegistry registry;
+    final Counter realAdded;
+    final Counter realRemoved;
+    final Counter virtualAdded;
+    final Counter virtualRemoved;
+
+    private CartMetrics(MetricsRegistry registry) {
+        this.registry = registry;
+        realAdded = registry.counter("cart.real.added");
+        realRemoved = registry.counter("cart.real.removed");
+        virtualAdded = registry.counter("cart.virtual.added");
+        virtualRemoved = registry.counter("cart.virtual.removed");
+    }
+
+    static CartMetrics get() {
+        MetricsRegistry registry = Metrics.getRegistry();
+        CartMetrics metrics = current;
+        if (metrics.registry != registry) {
+            metrics = new CartMetrics(registry);
+            current = metrics;
+        }
+        return metrics;
+    }
+}
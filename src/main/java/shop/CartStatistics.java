@@ -0,0 +1,86 @@
+package shop;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Map;
+
+/**
+ * Aggregates over a set of carts, computed by {@link CartAnalytics}. Sums are exact, so the
+ * same carts always give the same result, however the work was split.
+ */
+public class CartStatistics {
+
+    private final long cartCount;
+    private final long realItemCount;
+    private final long virtualItemCount;
+    private final BigDecimal revenue;
+    private final BigDecimal net;
+    private final BigDecimal tax;
+    private final BigDecimal totalWeight;
+    private final BigDecimal totalSizeOnDisk;
+    private final Map<String, ItemStatistics> byItemName;
+
+    CartStatistics(long cartCount, long realItemCount, long virtualItemCount, BigDecimal revenue, BigDecimal net,
+                   BigDecimal tax, BigDecimal totalWeight, BigDecimal totalSizeOnDisk, Map<String, ItemStatistics> byItemName) {
+        this.cartCount = cartCount;
+        this.realItemCount = realItemCount;
+        this.virtualItemCount = virtualItemCount;
+        this.revenue = revenue;
+        this.net = net;
+        this.tax = tax;
+        this.totalWeight = totalWeight;
+        this.totalSizeOnDisk = totalSizeOnDisk;
+        this.byItemName = byItemName;
+    }
+
+    public long getCartCount() {
+        return cartCount;
+    }
+
+    public long getRealItemCount() {
+        return realItemCount;
+    }
+
+    public long getVirtualItemCount() {
+        return virtualItemCount;
+    }
+
+    /**
+     * Sum of all unit prices, before tax and before any discount of the carts' pricing engines.
+     */
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    /**
+     * Tax as each cart's pricing engine charges it.
+     */
+    public BigDecimal getTax() {
+        return tax;
+    }
+
+    /**
+     * What the carts' totals add up to: net amounts after discounts, plus tax.
+     */
+    public BigDecimal getTotal() {
+        return net.add(tax);
+    }
+
+    public double getAverageRealItemWeight() {
+        if (realItemCount == 0) {
+            return 0;
+        }
+        return totalWeight.divide(BigDecimal.valueOf(realItemCount), MathContext.DECIMAL64).doubleValue();
+    }
+
+    public double getTotalSizeOnDisk() {
+        return totalSizeOnDisk.doubleValue();
+    }
+
+    /**
+     * Statistics per item name, sorted by name with unnamed items first.
+     */
+    public Map<String, ItemStatistics> getByItemName() {
+        return byItemName;
+    }
+}
@@ -0,0 +1,433 @@
+package shop;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cart stored as primitive columns instead of one object per item. Names go through a
+ * shared {@link NameTable}, prices, weights and sizes live in parallel double arrays,
+ * and aggregates are plain loops over those arrays. Price sums are the exception: they are
+ * kept as exact running totals, so totals match those of a {@link Cart} with the same items.
+ * <p>
+ * Items handed out by this class are flyweight views over a row, made once per row and reused.
+ * They are read-only and show whatever item is in their row, so a deletion, which shifts the
+ * rows behind it, changes what they show.
+ */
+public class ColumnarCart {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final String cartName;
+    private final NameTable names = new NameTable();
+
+    private int realSize;
+    private int[] realNames = new int[INITIAL_CAPACITY];
+    private double[] realPrices = new double[INITIAL_CAPACITY];
+    private double[] realWeights = new double[INITIAL_CAPACITY];
+
+    private int virtualSize;
+    private int[] virtualNames = new int[INITIAL_CAPACITY];
+    private double[] virtualPrices = new double[INITIAL_CAPACITY];
+    private double[] virtualSizes = new double[INITIAL_CAPACITY];
+
+    private BigDecimal subtotal = BigDecimal.ZERO;
+
+    private RealItemView[] realViews = new RealItemView[0];
+    private VirtualItemView[] virtualViews = new VirtualItemView[0];
+
+    public ColumnarCart(String cartName) {
+        this.cartName = cartName;
+    }
+
+    public static ColumnarCart from(Cart cart) {
+        ColumnarCart columnarCart = new ColumnarCart(cart.getCartName());
+        for (CartLine<RealItem> line : cart.getRealLines()) {
+            for (int unit = 0; unit < line.quantity(); unit++) {
+                columnarCart.addRealItem(line.item());
+            }
+        }
+        for (CartLine<VirtualItem> line : cart.getVirtualLines()) {
+            for (int unit = 0; unit < line.quantity(); unit++) {
+                columnarCart.addVirtualItem(line.item());
+            }
+        }
+        return columnarCart;
+    }
+
+    /**
+     * Rebuilds a plain cart without counting the rows as added. Runs of equal rows become one
+     * line, added with their quantity.
+     */
+    public Cart toCart() {
+        Cart.Builder cart = Cart.builder(cartName);
+        for (int row = 0, run; row < realSize; row += run) {
+            run = 1;
+            while (row + run < realSize && sameRealRow(row, row + run)) {
+                run++;
+            }
+            RealItem item = new RealItem();
+            item.setName(names.name(realNames[row]));
+            item.setPrice(realPrices[row]);
+            item.setWeight(realWeights[row]);
+            cart.addRealItem(item, run);
+        }
+        for (int row = 0, run; row < virtualSize; row += run) {
+            run = 1;
+            while (row + run < virtualSize && sameVirtualRow(row, row + run)) {
+                run++;
+            }
+            VirtualItem item = new VirtualItem();
+            item.setName(names.name(virtualNames[row]));
+            item.setPrice(virtualPrices[row]);
+            item.setSizeOnDisk(virtualSizes[row]);
+            cart.addVirtualItem(item, run);
+        }
+        return cart.build();
+    }
+
+    private boolean sameRealRow(int row, int other) {
+        return realNames[row] == realNames[other]
+                && realPrices[row] == realPrices[other]
+                && realWeights[row] == realWeights[other];
+    }
+
+    private boolean sameVirtualRow(int row, int other) {
+        return virtualNames[row] == virtualNames[other]
+                && virtualPrices[row] == virtualPrices[other]
+                && virtualSizes[row] == virtualSizes[other];
+    }
+
+    public String getCartName() {
+        return cartName;
+    }
+
+    public void addRealItem(RealItem item) {
+        if (item != null) {
+            addRealItem(item.getName(), item.getPrice(), item.getWeight());
+        }
+    }
+
+    public void addRealItem(String name, double price, double weight) {
+        BigDecimal exactPrice = BigDecimal.valueOf(price);
+        if (realSize == realPrices.length) {
+            int capacity = realSize * 2;
+            realNames = Arrays.copyOf(realNames, capacity);
+            realPrices = Arrays.copyOf(realPrices, capacity);
+            realWeights = Arrays.copyOf(realWeights, capacity);
+        }
+        realNames[realSize] = names.idOf(name);
+        realPrices[realSize] = price;
+        realWeights[realSize] = weight;
+        realSize++;
+        subtotal = subtotal.add(exactPrice);
+    }
+
+    /**
+     * Removes the first row with the same name, keeping the order of the other rows.
+     */
+    public void deleteRealItem(RealItem item) {
+        if (item == null) {
+            return;
+        }
+        int row = indexOf(realNames, realSize, names.find(item.getName()));
+        if (row >= 0) {
+            subtotal = subtotal.subtract(BigDecimal.valueOf(realPrices[row]));
+            int tail = realSize - row - 1;
+            System.arraycopy(realNames, row + 1, realNames, row, tail);
+            System.arraycopy(realPrices, row + 1, realPrices, row, tail);
+            System.arraycopy(realWeights, row + 1, realWeights, row, tail);
+            realSize--;
+        }
+    }
+
+    public void addVirtualItem(VirtualItem item) {
+        if (item != null) {
+            addVirtualItem(item.getName(), item.getPrice(), item.getSizeOnDisk());
+        }
+    }
+
+    public void addVirtualItem(String name, double price, double sizeOnDisk) {
+        BigDecimal exactPrice = BigDecimal.valueOf(price);
+        if (virtualSize == virtualPrices.length) {
+            int capacity = virtualSize * 2;
+            virtualNames = Arrays.copyOf(virtualNames, capacity);
+            virtualPrices = Arrays.copyOf(virtualPrices, capacity);
+            virtualSizes = Arrays.copyOf(virtualSizes, capacity);
+        }
+        virtualNames[virtualSize] = names.idOf(name);
+        virtualPrices[virtualSize] = price;
+        virtualSizes[virtualSize] = sizeOnDisk;
+        virtualSize++;
+        subtotal = subtotal.add(exactPrice);
+    }
+
+    public void deleteVirtualItem(VirtualItem item) {
+        if (item == null) {
+            return;
+        }
+        int row = indexOf(virtualNames, virtualSize, names.find(item.getName()));
+        if (row >= 0) {
+            subtotal = subtotal.subtract(BigDecimal.valueOf(virtualPrices[row]));
+            int tail = virtualSize - row - 1;
+            System.arraycopy(virtualNames, row + 1, virtualNames, row, tail);
+            System.arraycopy(virtualPrices, row + 1, virtualPrices, row, tail);
+            System.arraycopy(virtualSizes, row + 1, virtualSizes, row, tail);
+            virtualSize--;
+        }
+    }
+
+    public RealItem getRealItem(int row) {
+        if (row < 0 || row >= realSize) {
+            throw new IndexOutOfBoundsException(row);
+        }
+        if (row >= realViews.length) {
+            realViews = Arrays.copyOf(realViews, realPrices.length);
+        }
+        RealItemView view = realViews[row];
+        if (view == null) {
+            view = new RealItemView(row);
+            realViews[row] = view;
+        }
+        return view;
+    }
+
+    public VirtualItem getVirtualItem(int row) {
+        if (row < 0 || row >= virtualSize) {
+            throw new IndexOutOfBoundsException(row);
+        }
+        if (row >= virtualViews.length) {
+            virtualViews = Arrays.copyOf(virtualViews, virtualPrices.length);
+        }
+        VirtualItemView view = virtualViews[row];
+        if (view == null) {
+            view = new VirtualItemView(row);
+            virtualViews[row] = view;
+        }
+        return view;
+    }
+
+    public List<RealItem> getRealItems() {
+        return new AbstractList<>() {
+            @Override
+            public RealItem get(int row) {
+                return getRealItem(row);
+            }
+
+            @Override
+            public int size() {
+                return realSize;
+            }
+        };
+    }
+
+    public List<VirtualItem> getVirtualItems() {
+        return new AbstractList<>() {
+            @Override
+            public VirtualItem get(int row) {
+                return getVirtualItem(row);
+            }
+
+            @Override
+            public int size() {
+                return virtualSize;
+            }
+        };
+    }
+
+    public void showItems() {
+        Writer out = new OutputStreamWriter(System.out, System.out.charset());
+        try {
+            renderItems(out);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes every item as a line, like {@link Cart#renderItems(Writer)}.
+     */
+    public void renderItems(Writer out) throws IOException {
+        StringBuilder text = ItemText.scratch();
+        for (int row = 0; row < realSize; row++) {
+            ItemText.appendLine(getRealItem(row), text, out);
+        }
+        for (int row = 0; row < virtualSize; row++) {
+            ItemText.appendLine(getVirtualItem(row), text, out);
+        }
+        ItemText.write(text, out);
+    }
+
+    public double getTotalPrice() {
+        return subtotal.add(subtotal.multiply(Cart.TAX_RATE)).doubleValue(); // subtotal * (1 + TAX), as in Cart
+    }
+
+    public double getSubtotal() {
+        return subtotal.doubleValue();
+    }
+
+    public double getTotalWeight() {
+        return sum(realWeights, realSize);
+    }
+
+    public double getTotalSizeOnDisk() {
+        return sum(virtualSizes, virtualSize);
+    }
+
+    public int getItemCount() {
+        return realSize + virtualSize;
+    }
+
+    public int getRealItemCount() {
+        return realSize;
+    }
+
+    public int getVirtualItemCount() {
+        return virtualSize;
+    }
+
+    public int getDistinctNameCount() {
+        return names.size();
+    }
+
+    /**
+     * Returns the rows of real items priced within [minPrice, maxPrice].
+     */
+    public int[] findRealItemsByPrice(double minPrice, double maxPrice) {
+        return rowsInRange(realPrices, realSize, minPrice, maxPrice);
+    }
+
+    public int[] findVirtualItemsByPrice(double minPrice, double maxPrice) {
+        return rowsInRange(virtualPrices, virtualSize, minPrice, maxPrice);
+    }
+
+    public int[] findRealItemsByWeight(double minWeight, double maxWeight) {
+        return rowsInRange(realWeights, realSize, minWeight, maxWeight);
+    }
+
+    private static double sum(double[] column, int size) {
+        double sum = 0;
+        for (int row = 0; row < size; row++) {
+            sum += column[row];
+        }
+        return sum;
+    }
+
+    private static int[] rowsInRange(double[] column, int size, double min, double max) {
+        int[] rows = new int[size];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            double value = column[row];
+            if (value >= min && value <= max) {
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    private static int indexOf(int[] column, int size, int value) {
+        if (value == -2) {
+            return -1;
+        }
+        for (int row = 0; row < size; row++) {
+            if (column[row] == value) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    private final class RealItemView extends RealItem {
+
+        private final int row;
+
+        private RealItemView(int row) {
+            this.row = row;
+        }
+
+        @Override
+        Class<? extends Item> itemType() {
+            return RealItem.class;
+        }
+
+        @Override
+        public String getName() {
+            return names.name(realNames[row]);
+        }
+
+        @Override
+        public double getPrice() {
+            return realPrices[row];
+        }
+
+        @Override
+        public double getWeight() {
+            return realWeights[row];
+        }
+
+        @Override
+        public void setName(String name) {
+            throw new UnsupportedOperationException("Columnar cart items are read-only");
+        }
+
+        @Override
+        public void setPrice(double price) {
+            throw new UnsupportedOperationException("Columnar cart items are read-only");
+        }
+
+        @Override
+        public void setWeight(double weight) {
+            throw new UnsupportedOperationException("Columnar cart items are read-only");
+        }
+    }
+
+    private final class VirtualItemView extends VirtualItem {
+
+        private final int row;
+
+        private VirtualItemView(int row) {
+            this.row = row;
+        }
+
+        @Override
+        Class<? extends Item> itemType() {
+            return VirtualItem.class;
+        }
+
+        @Override
+        public String getName() {
+            return names.name(virtualNames[row]);
+        }
+
+        @Override
+        public double getPrice() {
+            return virtualPrices[row];
+        }
+
+        @Override
+        public double getSizeOnDisk() {
+            return virtualSizes[row];
+        }
+
+        @Override
+        public void setName(String name) {
+            throw new UnsupportedOperationException("Columnar cart items are read-only");
+        }
+
+        @Override
+        public void setPrice(double price) {
+            throw new UnsupportedOperationException("Columnar cart items are read-only");
+        }
+
+        @Override
+        public void setSizeOnDisk(double sizeOnDisk) {
+            throw new UnsupportedOperationException("Columnar cart items are read-only");
+        }
+    }
+}
@@ -0,0 +1,619 @@
+package shop;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Thread-safe cart. Items are spread over lock-striped plain carts by their key, so
+ * workers adding different items rarely contend, and all units of one key live in the
+ * same stripe. Totals and counts are kept in {@link LongAdder}s, prices as micro units with
+ * an exact overflow for finer amounts, so reading them never takes a lock and gives the same
+ * result as {@link Cart}. Prices that are not finite are rejected, as in {@link Cart}.
+ * <p>
+ * Iteration goes through {@link #snapshot()}, which locks every stripe once and copies
+ * a consistent state. All stripes number their lines from one shared counter, so a snapshot
+ * lists items in the order they were added, as {@link Cart} does.
+ */
+public class ConcurrentCart extends Cart {
+
+    private static final int STRIPES = 16;
+    private static final int PRICE_SCALE = 6;
+
+    private final Cart[] stripes = new Cart[STRIPES];
+    private final AtomicLong sequences = new AtomicLong();
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final PriceSum realSubtotal = new PriceSum();
+    private final PriceSum virtualSubtotal = new PriceSum();
+    private final LongAdder realCount = new LongAdder();
+    private final LongAdder virtualCount = new LongAdder();
+
+    public ConcurrentCart(String cartName) {
+        super(cartName);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Cart(cartName, sequences::getAndIncrement);
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Returns a plain cart holding a consistent copy of all items, in insertion order. The copy
+     * shares no item with this cart: it holds copies of the units as they were added.
+     */
+    public Cart snapshot() {
+        List<SequencedLine<RealItem>> realLines = new ArrayList<>();
+        List<SequencedLine<VirtualItem>> virtualLines = new ArrayList<>();
+        lockAll();
+        try {
+            for (Cart stripe : stripes) {
+                stripe.forEachRealLine(collector(realLines));
+                stripe.forEachVirtualLine(collector(virtualLines));
+            }
+        } finally {
+            unlockAll();
+        }
+        Cart snapshot = new Cart(getCartName());
+        snapshot.setPricingEngine(getPricingEngine());
+        for (SequencedLine<RealItem> line : sorted(realLines)) {
+            snapshot.addRealLine((RealItem) line.added().copy(), line.added(), line.quantity());
+        }
+        for (SequencedLine<VirtualItem> line : sorted(virtualLines)) {
+            snapshot.addVirtualLine((VirtualItem) line.added().copy(), line.added(), line.quantity());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Lines of one kind from every stripe, in the order they were started. All stripes are locked
+     * while they are read, so the lines are consistent with each other.
+     */
+    private <T extends Item> List<SequencedLine<T>> lines(BiConsumer<Cart, ItemIndex.LineVisitor<T>> forEachLine) {
+        List<SequencedLine<T>> lines = new ArrayList<>();
+        lockAll();
+        try {
+            for (Cart stripe : stripes) {
+                forEachLine.accept(stripe, collector(lines));
+            }
+        } finally {
+            unlockAll();
+        }
+        return sorted(lines);
+    }
+
+    private static <T extends Item> ItemIndex.LineVisitor<T> collector(List<SequencedLine<T>> lines) {
+        return (sequence, item, added, quantity) -> lines.add(new SequencedLine<>(sequence, item, added, quantity));
+    }
+
+    private static <T extends Item> List<SequencedLine<T>> sorted(List<SequencedLine<T>> lines) {
+        // Every stripe is already in order, so this merges sorted runs.
+        lines.sort(Comparator.comparingLong(SequencedLine::sequence));
+        return lines;
+    }
+
+    /**
+     * A copy of every unit as it was added, each line repeated by its quantity.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends Item> List<T> units(List<SequencedLine<T>> lines) {
+        List<T> units = new ArrayList<>();
+        for (SequencedLine<T> line : lines) {
+            units.addAll(Collections.nCopies(line.quantity(), (T) line.added().copy()));
+        }
+        return Collections.unmodifiableList(units);
+    }
+
+    private void lockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+
+    private record SequencedLine<T extends Item>(long sequence, T item, T added, int quantity) {
+    }
+
+    /**
+     * A consistent copy of the units as they were added, in insertion order. Unlike
+     * {@link Cart#getRealItems()} these are not the stored instances, which other threads may
+     * be adding or deleting; changing them changes nothing in the cart.
+     */
+    @Override
+    public Collection<RealItem> getRealItems() {
+        return units(lines(Cart::forEachRealLine));
+    }
+
+    /**
+     * A consistent copy of the units as they were added, as {@link #getRealItems()}.
+     */
+    @Override
+    public Collection<VirtualItem> getVirtualItems() {
+        return units(lines(Cart::forEachVirtualLine));
+    }
+
+    @Override
+    public List<CartLine<RealItem>> getRealLines() {
+        return snapshot().getRealLines();
+    }
+
+    @Override
+    public List<CartLine<VirtualItem>> getVirtualLines() {
+        return snapshot().getVirtualLines();
+    }
+
+    @Override
+    public Cart copy() {
+        return snapshot().copy();
+    }
+
+    @Override
+    public List<ItemValue> getItemValues() {
+        return snapshot().getItemValues();
+    }
+
+    @Override
+    public void addRealItem(RealItem item) {
+        if (item == null) {
+            return;
+        }
+        checkUnits(1);
+        int stripe = stripeOf(item);
+        locks[stripe].lock();
+        try {
+            stripes[stripe].addRealItem(item);
+            realSubtotal.add(item.getPrice(), 1);
+            realCount.increment();
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    @Override
+    public void addRealItem(RealItem item, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity must not be negative: " + quantity);
+        }
+        if (item == null || quantity == 0) {
+            return;
+        }
+        checkUnits(quantity);
+        int stripe = stripeOf(item);
+        locks[stripe].lock();
+        try {
+            stripes[stripe].addRealItem(item, quantity);
+            realSubtotal.add(item.getPrice(), quantity);
+            realCount.add(quantity);
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    @Override
+    public void deleteRealItem(RealItem item) {
+        removeRealItem(item);
+    }
+
+    @Override
+    RealItem removeRealItem(RealItem item) {
+        if (item == null) {
+            return null;
+        }
+        int stripe = stripeOf(item);
+        RealItem removed = removeRealItem(stripe, item);
+        if (removed == null) {
+            stripe = renamedStripe(stripe, cart -> cart.holdsRealItem(item));
+            if (stripe >= 0) {
+                removed = removeRealItem(stripe, item);
+            }
+        }
+        return removed;
+    }
+
+    private RealItem removeRealItem(int stripe, RealItem item) {
+        locks[stripe].lock();
+        try {
+            RealItem stored = stripes[stripe].removeRealItem(item);
+            if (stored != null) {
+                realSubtotal.add(stored.getPrice(), -1);
+                realCount.decrement();
+            }
+            return stored;
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    @Override
+    void removeRealItems(RealItem item, int count, ObjIntConsumer<? super RealItem> removed) {
+        int stripe = stripeOf(item);
+        locks[stripe].lock();
+        try {
+            stripes[stripe].removeRealItems(item, count, (stored, taken) -> {
+                realSubtotal.add(stored.getPrice(), -taken);
+                realCount.add(-taken);
+                removed.accept(stored, taken);
+            });
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    @Override
+    boolean holdsRealItem(RealItem item) {
+        return renamedStripe(-1, cart -> cart.holdsRealItem(item)) >= 0;
+    }
+
+    /**
+     * Passes every line, in insertion order, to the visitor. The lines are read under all
+     * locks and visited after they are released.
+     */
+    @Override
+    void forEachRealLine(ItemIndex.LineVisitor<? super RealItem> visitor) {
+        lines(Cart::forEachRealLine).forEach(line ->
+                visitor.visit(line.sequence(), line.item(), line.added(), line.quantity()));
+    }
+
+    @Override
+    void addRealLine(RealItem item, RealItem added, int quantity) {
+        RealItem fields = added != null ? added : item;
+        checkUnits(quantity);
+        int stripe = stripeOf(fields);
+        locks[stripe].lock();
+        try {
+            stripes[stripe].addRealLine(item, added, quantity);
+            realSubtotal.add(fields.getPrice(), quantity);
+            realCount.add(quantity);
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    @Override
+    public RealItem findRealItem(String name) {
+        RealItem key = new RealItem();
+        key.setName(name);
+        int stripe = stripeOf(key);
+        locks[stripe].lock();
+        try {
+            return stripes[stripe].findRealItem(name);
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    @Override
+    public int getRealItemQuantity(RealItem item) {
+        int stripe = stripeOf(item);
+        locks[stripe].lock();
+        try {
+            return stripes[stripe].getRealItemQuantity(item);
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    @Override
+    public void setRealItemQuantity(RealItem item, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity must not be negative: " + quantity);
+        }
+        int stripe = stripeOf(item);
+        locks[stripe].lock();
+        try {
+            int current = stripes[stripe].getRealItemQuantity(item);
+            if (quantity > current) {
+                addRealItem(item, quantity - current);
+            } else if (quantity < current) {
+                removeRealItems(item, current - quantity, (stored, taken) -> { });
+            }
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    @Override
+    public void addVirtualItem(VirtualItem item) {
+        if (item == null) {
+            return;
+        }
+        checkUnits(1);
+        int stripe = stripeOf(item);
+        locks[stripe].lock();
+        try {
+            stripes[stripe].addVirtualItem(item);
+            virtualSubtotal.add(item.getPrice(), 1);
+            virtualCount.increment();
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    @Override
+    public void addVirtualItem(VirtualItem item, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity must not be negative: " + quantity);
+        }
+        if (item == null || quantity == 0) {
+            return;
+        }
+        checkUnits(quantity);
+        int stripe = stripeOf(item);
+        locks[stripe].lock();
+        try {
+            stripes[stripe].addVirtualItem(item, quantity);
+            virtualSubtotal.add(item.getPrice(), quantity);
+            virtualCount.add(quantity);
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    @Override
+    public void deleteVirtualItem(VirtualItem item) {
+        removeVirtualItem(item);
+    }
+
+    @Override
+    VirtualItem removeVirtualItem(VirtualItem item) {
+        if (item == null) {
+            return null;
+        }
+        int stripe = stripeOf(item);
+        VirtualItem removed = removeVirtualItem(stripe, item);
+        if (removed == null) {
+            stripe = renamedStripe(stripe, cart -> cart.holdsVirtualItem(item));
+            if (stripe >= 0) {
+                removed = removeVirtualItem(stripe, item);
+            }
+        }
+        return removed;
+    }
+
+    private VirtualItem removeVirtualItem(int stripe, VirtualItem item) {
+        locks[stripe].lock();
+        try {
+            VirtualItem stored = stripes[stripe].removeVirtualItem(item);
+            if (stored != null) {
+                virtualSubtotal.add(stored.getPrice(), -1);
+                virtualCount.decrement();
+            }
+            return stored;
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    @Override
+    void removeVirtualItems(VirtualItem item, int count, ObjIntConsumer<? super VirtualItem> removed) {
+        int stripe = stripeOf(item);
+        locks[stripe].lock();
+        try {
+            stripes[stripe].removeVirtualItems(item, count, (stored, taken) -> {
+                virtualSubtotal.add(stored.getPrice(), -taken);
+                virtualCount.add(-taken);
+                removed.accept(stored, taken);
+            });
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    @Override
+    boolean holdsVirtualItem(VirtualItem item) {
+        return renamedStripe(-1, cart -> cart.holdsVirtualItem(item)) >= 0;
+    }
+
+    @Override
+    void forEachVirtualLine(ItemIndex.LineVisitor<? super VirtualItem> visitor) {
+        lines(Cart::forEachVirtualLine).forEach(line ->
+                visitor.visit(line.sequence(), line.item(), line.added(), line.quantity()));
+    }
+
+    @Override
+    void addVirtualLine(VirtualItem item, VirtualItem added, int quantity) {
+        VirtualItem fields = added != null ? added : item;
+        checkUnits(quantity);
+        int stripe = stripeOf(fields);
+        locks[stripe].lock();
+        try {
+            stripes[stripe].addVirtualLine(item, added, quantity);
+            virtualSubtotal.add(fields.getPrice(), quantity);
+            virtualCount.add(quantity);
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    @Override
+    public VirtualItem findVirtualItem(String name) {
+        VirtualItem key = new VirtualItem();
+        key.setName(name);
+        int stripe = stripeOf(key);
+        locks[stripe].lock();
+        try {
+            return stripes[stripe].findVirtualItem(name);
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    @Override
+    public int getVirtualItemQuantity(VirtualItem item) {
+        int stripe = stripeOf(item);
+        locks[stripe].lock();
+        try {
+            return stripes[stripe].getVirtualItemQuantity(item);
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    @Override
+    public void setVirtualItemQuantity(VirtualItem item, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity must not be negative: " + quantity);
+        }
+        int stripe = stripeOf(item);
+        locks[stripe].lock();
+        try {
+            int current = stripes[stripe].getVirtualItemQuantity(item);
+            if (quantity > current) {
+                addVirtualItem(item, quantity - current);
+            } else if (quantity < current) {
+                removeVirtualItems(item, current - quantity, (stored, taken) -> { });
+            }
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    @Override
+    public void renderItems(Writer out) throws IOException {
+        snapshot().renderItems(out);
+    }
+
+    @Override
+    public PriceQuote quote() {
+        return snapshot().quote();
+    }
+
+    @Override
+    public double getTotalPrice() {
+        if (getPricingEngine() != PricingEngine.STANDARD) {
+            return super.getTotalPrice();
+        }
+        BigDecimal subtotal = subtotal();
+        return subtotal.add(subtotal.multiply(TAX_RATE)).doubleValue();
+    }
+
+    @Override
+    public double getSubtotal() {
+        return subtotal().doubleValue();
+    }
+
+    @Override
+    public double getTax() {
+        if (getPricingEngine() != PricingEngine.STANDARD) {
+            return super.getTax();
+        }
+        return subtotal().multiply(TAX_RATE).doubleValue();
+    }
+
+    @Override
+    public double getRealSubtotal() {
+        return realSubtotal.sum().doubleValue();
+    }
+
+    @Override
+    public double getVirtualSubtotal() {
+        return virtualSubtotal.sum().doubleValue();
+    }
+
+    @Override
+    public int getItemCount() {
+        return saturated(realCount.sum() + virtualCount.sum());
+    }
+
+    @Override
+    public int getRealItemCount() {
+        return saturated(realCount.sum());
+    }
+
+    @Override
+    public int getVirtualItemCount() {
+        return saturated(virtualCount.sum());
+    }
+
+    /**
+     * Rejects adding units that would take the cart past {@link Integer#MAX_VALUE} units, as a
+     * plain cart does. The counts are read without a lock, so adds racing each other near the limit
+     * can together pass it; the counts then stop at the limit instead of wrapping around.
+     */
+    private void checkUnits(int quantity) {
+        if (realCount.sum() + virtualCount.sum() + quantity > Integer.MAX_VALUE) {
+            throw new ArithmeticException("integer overflow");
+        }
+    }
+
+    private static int saturated(long count) {
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    private BigDecimal subtotal() {
+        return realSubtotal.sum().add(virtualSubtotal.sum());
+    }
+
+    /**
+     * Lock-free exact sum of prices. Amounts with at most {@value #PRICE_SCALE} decimals, which
+     * covers any currency, are counted in a {@link LongAdder} as micro units; finer or huge ones
+     * go to an exact {@link BigDecimal}. Either way the sum equals the one {@link Cart} keeps.
+     */
+    private static final class PriceSum {
+
+        private final LongAdder micros = new LongAdder();
+        private final AtomicReference<BigDecimal> rest = new AtomicReference<>(BigDecimal.ZERO);
+
+        /**
+         * Adds {@code quantity} times the price; a negative quantity takes it away again.
+         */
+        void add(double price, long quantity) {
+            BigDecimal exact = BigDecimal.valueOf(price);
+            if (exact.scale() <= PRICE_SCALE) {
+                try {
+                    micros.add(Math.multiplyExact(exact.movePointRight(PRICE_SCALE).longValueExact(), quantity));
+                    return;
+                } catch (ArithmeticException e) {
+                    // beyond the range of micro units
+                }
+            }
+            rest.accumulateAndGet(exact.multiply(BigDecimal.valueOf(quantity)), BigDecimal::add);
+        }
+
+        BigDecimal sum() {
+            return BigDecimal.valueOf(micros.sum(), PRICE_SCALE).add(rest.get());
+        }
+    }
+
+    /**
+     * Looks for a stored instance outside the stripe of its current key, -1 if there is none.
+     * Items renamed after they were added stay in the stripe of their old name; deletes that
+     * find nothing under the new name look for the instance there. A stripe of -1 looks in all.
+     */
+    private int renamedStripe(int keyStripe, Predicate<Cart> holds) {
+        for (int i = 0; i < STRIPES; i++) {
+            if (i == keyStripe) {
+                continue;
+            }
+            locks[i].lock();
+            try {
+                if (holds.test(stripes[i])) {
+                    return i;
+                }
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return -1;
+    }
+
+    private static int stripeOf(Item item) {
+        int h = item.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+}
@@ -1,5 +1,10 @@
 package shop;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
 public class Item {
 
     private String name;
@@ -21,8 +26,94 @@ public class Item {
         return this.price;
     }
 
+    /**
+     * Items are identified by their concrete type and name, so a cart can find and remove
+     * them by key instead of by instance. Carts remember the name an item had when it was
+     * added, so renaming an item that is in a cart does not lose it.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Item other) || itemType() != other.itemType()) {
+            return false;
+        }
+        return Objects.equals(getName(), other.getName());
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * itemType().hashCode() + Objects.hashCode(getName());
+    }
+
     @Override
     public String toString() {
-        return String.format("Class: %s; Name: %s; Price: %s; ", getClass(), name, price);
+        return appendTo(new StringBuilder(64)).toString();
+    }
+
+    /**
+     * Appends the same text as {@link #toString()}. Subclasses add their own fields here.
+     */
+    public StringBuilder appendTo(StringBuilder out) {
+        return out.append("Class: class ").append(itemType().getName())
+                .append("; Name: ").append(getName())
+                .append("; Price: ").append(getPrice())
+                .append("; ");
+    }
+
+    /**
+     * Appends the same text as {@link #toString()}. Writers receive it through a reused
+     * per-thread buffer, so no string is built for the item.
+     */
+    public <A extends Appendable> A appendTo(A out) throws IOException {
+        if (out instanceof StringBuilder builder) {
+            appendTo(builder);
+        } else if (out instanceof Writer writer) {
+            ItemText.write(appendTo(ItemText.scratch()), writer);
+        } else {
+            out.append(appendTo(ItemText.scratch()));
+        }
+        return out;
+    }
+
+    /**
+     * Puts the text of {@link #toString()} into the buffer as UTF-8.
+     *
+     * @throws java.nio.BufferOverflowException if it does not fit; the buffer is then left unchanged
+     */
+    public ByteBuffer appendTo(ByteBuffer out) {
+        ItemText.encode(appendTo(ItemText.scratch()), out);
+        return out;
+    }
+
+    /**
+     * A detached item of the same type with the same fields, for carts to remember what was added.
+     */
+    Item copy() {
+        return copyFields(new Item());
+    }
+
+    <I extends Item> I copyFields(I copy) {
+        copy.setName(getName());
+        copy.setPrice(getPrice());
+        return copy;
+    }
+
+    /**
+     * Whether a cart may count the other item as another unit of this one: same type and
+     * same values in every field, not only the same name.
+     */
+    boolean hasSameFields(Item other) {
+        return itemType() == other.itemType() && Objects.equals(getName(), other.getName())
+                && Double.compare(getPrice(), other.getPrice()) == 0;
+    }
+
+    /**
+     * The type items are compared and printed as. Views that subclass an item type
+     * report the type they stand for.
+     */
+    Class<? extends Item> itemType() {
+        return getClass();
     }
 }
@@ -0,0 +1,327 @@
+package shop;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.LongSupplier;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Insertion-ordered multiset of items kept as quantity lines. Units with equal fields share
+ * one line and a counter; units that share a key but differ in price or another field get lines
+ * of their own, so every unit keeps its price. Every line gets a sequence number. The lines form
+ * a linked list in the order they were started, and the lines of one key a chain of their own,
+ * earliest first; the key map points at the first line of each chain.
+ * <p>
+ * Every line keeps a private copy of its unit's fields as they were when the line was started.
+ * Units are merged and removed by that copy, so a caller changing an item after adding it
+ * cannot make the cart take away a different price than it added. The key map is keyed by those
+ * copies too. The instance that started a line is remembered, and when passed back in is looked
+ * up by the key of the earliest line it started, so renaming an item in the cart neither corrupts
+ * the map nor makes the item unreachable. Units merged into a line through another, equal instance
+ * are found by that instance's current key.
+ */
+class ItemIndex<T extends Item> {
+
+    private final Map<T, Line<T>> positions = new HashMap<>();
+    private final Map<T, Line<T>> instances = new IdentityHashMap<>();
+    private final Collection<T> view = new UnitView(false);
+    private final Collection<T> addedView = new UnitView(true);
+    private final LongSupplier sequences;
+    private Line<T> first;
+    private Line<T> last;
+    private long nextSequence;
+    private int lineCount;
+    private int size;
+    private int modCount;
+
+    ItemIndex() {
+        this(null);
+    }
+
+    /**
+     * An index numbering its lines from the given source, so that lines of several indexes
+     * can be put back in the order they were started. Null numbers them on its own.
+     */
+    ItemIndex(LongSupplier sequences) {
+        this.sequences = sequences;
+    }
+
+    void add(T item) {
+        add(item, null, 1);
+    }
+
+    void add(T item, int quantity) {
+        add(item, null, quantity);
+    }
+
+    /**
+     * Adds units of the item whose fields, as added, are those of {@code added}; null takes
+     * a copy of the item's current fields.
+     *
+     * @throws ArithmeticException if the index would hold more than {@link Integer#MAX_VALUE}
+     *                             units; nothing is added then
+     */
+    void add(T item, T added, int quantity) {
+        int newSize = Math.addExact(size, quantity); // no line holds more units than the index
+        Item fields = added != null ? added : item;
+        Line<T> keyTail = null;
+        for (Line<T> line = positions.get(fields); line != null; line = line.nextOfKey) {
+            if (line.added.hasSameFields(fields)) {
+                line.quantity += quantity;
+                size = newSize;
+                return;
+            }
+            keyTail = line;
+        }
+        long sequence = sequences != null ? sequences.getAsLong() : nextSequence++;
+        Line<T> line = new Line<>(sequence, item, added != null ? added : copyOf(item), quantity);
+        if (keyTail == null) {
+            positions.put(line.added, line);
+        } else {
+            keyTail.nextOfKey = line;
+        }
+        Line<T> instanceLine = instances.putIfAbsent(item, line);
+        if (instanceLine != null) {
+            while (instanceLine.nextOfInstance != null) {
+                instanceLine = instanceLine.nextOfInstance;
+            }
+            instanceLine.nextOfInstance = line;
+        }
+        line.previous = last;
+        if (last == null) {
+            first = line;
+        } else {
+            last.next = line;
+        }
+        last = line;
+        lineCount++;
+        size = newSize;
+        modCount++;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Item> T copyOf(T item) {
+        return (T) item.copy();
+    }
+
+    /**
+     * Removes one unit equal to the key from its earliest line, as List.remove(Object) did.
+     * Returns the unit as it was added, or null if there was none.
+     */
+    T remove(Object key) {
+        Line<T> line = positions.get(keyOf(key));
+        if (line == null) {
+            return null;
+        }
+        removeUnits(line, 1);
+        return line.added;
+    }
+
+    /**
+     * Removes up to {@code count} units equal to the key, earliest line first, and reports
+     * each line it took units from, as its unit was added, with the number taken.
+     */
+    void remove(Object key, int count, ObjIntConsumer<? super T> removed) {
+        key = keyOf(key);
+        Line<T> line;
+        while (count > 0 && (line = positions.get(key)) != null) {
+            int taken = Math.min(count, line.quantity);
+            removeUnits(line, taken);
+            removed.accept(line.added, taken);
+            count -= taken;
+        }
+    }
+
+    /**
+     * Takes units from the first line of its key, unlinking the line once it is empty.
+     */
+    private void removeUnits(Line<T> line, int count) {
+        line.quantity -= count;
+        size -= count;
+        if (line.quantity > 0) {
+            return;
+        }
+        positions.remove(line.added);
+        if (line.nextOfKey != null) {
+            positions.put(line.nextOfKey.added, line.nextOfKey);
+        }
+        Line<T> instanceLine = instances.get(line.item);
+        if (instanceLine == line) {
+            if (line.nextOfInstance != null) {
+                instances.put(line.item, line.nextOfInstance);
+            } else {
+                instances.remove(line.item);
+            }
+        } else {
+            while (instanceLine.nextOfInstance != line) {
+                instanceLine = instanceLine.nextOfInstance;
+            }
+            instanceLine.nextOfInstance = line.nextOfInstance;
+        }
+        if (line.previous == null) {
+            first = line.next;
+        } else {
+            line.previous.next = line.next;
+        }
+        if (line.next == null) {
+            last = line.previous;
+        } else {
+            line.next.previous = line.previous;
+        }
+        lineCount--;
+        modCount++;
+    }
+
+    T find(Object key) {
+        Line<T> line = positions.get(keyOf(key));
+        return line == null ? null : line.item;
+    }
+
+    int count(Object key) {
+        int count = 0;
+        for (Line<T> line = positions.get(keyOf(key)); line != null; line = line.nextOfKey) {
+            count += line.quantity;
+        }
+        return count;
+    }
+
+    /**
+     * Whether this very instance started one of the lines.
+     */
+    boolean holds(Object item) {
+        return instances.containsKey(item);
+    }
+
+    /**
+     * The key a stored instance was first added under, or the key itself for any other object.
+     */
+    private Object keyOf(Object key) {
+        Line<T> line = instances.get(key);
+        return line != null ? line.added : key;
+    }
+
+    /**
+     * Number of units, not lines.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Every unit, each line repeated by its quantity.
+     */
+    Collection<T> values() {
+        return view;
+    }
+
+    /**
+     * Every unit as it was added: the lines' private copies, each repeated by its quantity.
+     * Callers must not change them.
+     */
+    Collection<T> addedValues() {
+        return addedView;
+    }
+
+    /**
+     * Passes every line, in order, to the visitor.
+     */
+    void forEachLine(LineVisitor<? super T> visitor) {
+        for (Line<T> line = first; line != null; line = line.next) {
+            visitor.visit(line.sequence, line.item, line.added, line.quantity);
+        }
+    }
+
+    /**
+     * The lines with a fresh copy of the fields their units were added with.
+     */
+    List<CartLine<T>> lines() {
+        List<CartLine<T>> result = new ArrayList<>(lineCount);
+        for (Line<T> line = first; line != null; line = line.next) {
+            result.add(new CartLine<>(copyOf(line.added), line.quantity));
+        }
+        return result;
+    }
+
+    /**
+     * Receives a line: its sequence number, the stored item, a private copy of the item's
+     * fields as added and the number of units.
+     */
+    @FunctionalInterface
+    interface LineVisitor<T> {
+
+        void visit(long sequence, T item, T added, int quantity);
+    }
+
+    private static final class Line<T> {
+
+        private final long sequence;
+        private final T item;
+        private final T added;
+        private int quantity;
+        private Line<T> previous;
+        private Line<T> next;
+        private Line<T> nextOfKey;
+        private Line<T> nextOfInstance;
+
+        private Line(long sequence, T item, T added, int quantity) {
+            this.sequence = sequence;
+            this.item = item;
+            this.added = added;
+            this.quantity = quantity;
+        }
+    }
+
+    private final class UnitView extends AbstractCollection<T> {
+
+        private final boolean added;
+
+        private UnitView(boolean added) {
+            this.added = added;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<>() {
+                private final int expectedModCount = modCount;
+                private Line<T> nextLine = first;
+                private Line<T> line;
+                private int remaining;
+
+                @Override
+                public boolean hasNext() {
+                    return remaining > 0 || nextLine != null;
+                }
+
+                @Override
+                public T next() {
+                    if (modCount != expectedModCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                    if (remaining == 0) {
+                        if (nextLine == null) {
+                            throw new NoSuchElementException();
+                        }
+                        line = nextLine;
+                        nextLine = line.next;
+                        remaining = line.quantity;
+                    }
+                    remaining--;
+                    return added ? line.added : line.item;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
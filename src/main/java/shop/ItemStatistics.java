@@ -0,0 +1,56 @@
+package shop;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Aggregates of all units sharing one item name, real and virtual, across a set of carts.
+ */
+public class ItemStatistics {
+
+    private final String name;
+    private final long quantity;
+    private final BigDecimal revenue;
+    private final BigDecimal totalWeight;
+    private final BigDecimal totalSizeOnDisk;
+
+    ItemStatistics(String name, long quantity, BigDecimal revenue, BigDecimal totalWeight, BigDecimal totalSizeOnDisk) {
+        this.name = name;
+        this.quantity = quantity;
+        this.revenue = revenue;
+        this.totalWeight = totalWeight;
+        this.totalSizeOnDisk = totalSizeOnDisk;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Sum of the unit prices, before tax.
+     */
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public double getAveragePrice() {
+        return quantity == 0 ? 0 : revenue.divide(BigDecimal.valueOf(quantity), MathContext.DECIMAL64).doubleValue();
+    }
+
+    public double getTotalWeight() {
+        return totalWeight.doubleValue();
+    }
+
+    public double getTotalSizeOnDisk() {
+        return totalSizeOnDisk.doubleValue();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Name: %s; Quantity: %d; Revenue: %s", name, quantity, revenue);
+    }
+}
@@ -0,0 +1,109 @@
+package shop;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Per-thread scratch space for rendering items into writers and byte buffers without building
+ * a string for each item.
+ */
+final class ItemText {
+
+    static final int CHUNK_SIZE = 8 * 1024;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private ItemText() {
+    }
+
+    /**
+     * An empty builder owned by the current thread. It is reused by the next call on the same
+     * thread, so the text must be consumed before that.
+     */
+    static StringBuilder scratch() {
+        StringBuilder text = SCRATCH.get().text;
+        text.setLength(0);
+        return text;
+    }
+
+    /**
+     * Appends the item as one line and hands the text to the writer once it reaches a chunk.
+     */
+    static void appendLine(Item item, StringBuilder text, Writer out) throws IOException {
+        item.appendTo(text).append(LINE_SEPARATOR);
+        if (text.length() >= CHUNK_SIZE) {
+            write(text, out);
+        }
+    }
+
+    /**
+     * Copies the text to the writer through a reused char array and clears it.
+     */
+    static void write(StringBuilder text, Writer out) throws IOException {
+        char[] chars = SCRATCH.get().chars;
+        for (int start = 0; start < text.length(); start += chars.length) {
+            int end = Math.min(text.length(), start + chars.length);
+            text.getChars(start, end, chars, 0);
+            out.write(chars, 0, end - start);
+        }
+        text.setLength(0);
+    }
+
+    /**
+     * Encodes the text as UTF-8 into the buffer. If it does not fit, nothing is written and
+     * {@link BufferOverflowException} is thrown, as by {@link ByteBuffer#put(byte[])}.
+     */
+    static void encode(CharSequence text, ByteBuffer out) {
+        if (utf8Length(text) > out.remaining()) {
+            throw new BufferOverflowException();
+        }
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                out.put((byte) (0xC0 | c >> 6));
+                out.put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                out.put((byte) (0xF0 | codePoint >> 18));
+                out.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                out.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                out.put((byte) (0x80 | codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                out.put((byte) '?'); // unpaired surrogate, as String.getBytes(UTF_8)
+            } else {
+                out.put((byte) (0xE0 | c >> 12));
+                out.put((byte) (0x80 | c >> 6 & 0x3F));
+                out.put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    private static int utf8Length(CharSequence text) {
+        int length = text.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x800) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    bytes += 2;
+                    i++;
+                } else if (!Character.isSurrogate(c)) {
+                    bytes += 2;
+                }
+            } else if (c >= 0x80) {
+                bytes++;
+            }
+        }
+        return bytes;
+    }
+
+    private static final class Scratch {
+        private final StringBuilder text = new StringBuilder(CHUNK_SIZE + 256);
+        private final char[] chars = new char[CHUNK_SIZE];
+    }
+}
@@ -0,0 +1,25 @@
+package shop;
+
+/**
+ * Immutable counterpart of {@link Item}. Values can be shared between threads and carts without
+ * copying, and their names come from {@link NamePool#shared()}.
+ */
+public sealed interface ItemValue permits RealItemValue, VirtualItemValue {
+
+    String name();
+
+    double price();
+
+    /**
+     * A new mutable item with the same fields.
+     */
+    Item toItem();
+
+    static ItemValue of(Item item) {
+        return switch (item) {
+            case RealItem realItem -> RealItemValue.of(realItem);
+            case VirtualItem virtualItem -> VirtualItemValue.of(virtualItem);
+            default -> throw new IllegalArgumentException("Unknown item type: " + item.getClass());
+        };
+    }
+}
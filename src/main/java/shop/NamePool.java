@@ -0,0 +1,68 @@
+package shop;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * Thread-safe pool of item names: equal names interned here are the same {@link String}
+ * instance, so a product name shared by millions of items is stored once.
+ * <p>
+ * The pool holds its names weakly. A name stays pooled while an item or anything else still
+ * refers to it and is dropped by the garbage collector afterwards, so interning names read from
+ * untrusted input cannot grow the heap beyond what the callers keep anyway. The names are kept in
+ * segments with a lock each, so threads interning different names rarely wait for each other.
+ */
+public final class NamePool {
+
+    private static final NamePool SHARED = new NamePool();
+    private static final int SEGMENTS = 16;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final WeakHashMap<String, WeakReference<String>>[] segments = new WeakHashMap[SEGMENTS];
+
+    public NamePool() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new WeakHashMap<>();
+        }
+    }
+
+    /**
+     * The pool used by {@link RealItemValue} and {@link VirtualItemValue}, and by the parsers for
+     * the names of the items they read.
+     */
+    public static NamePool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the pooled instance equal to the name, adding it if it is new. Null stays null.
+     */
+    public String intern(String name) {
+        if (name == null) {
+            return null;
+        }
+        WeakHashMap<String, WeakReference<String>> names = segments[(name.hashCode() & 0x7fffffff) % SEGMENTS];
+        synchronized (names) {
+            WeakReference<String> reference = names.get(name);
+            String pooled = reference == null ? null : reference.get();
+            if (pooled == null) {
+                pooled = name;
+                names.put(name, new WeakReference<>(name));
+            }
+            return pooled;
+        }
+    }
+
+    /**
+     * Number of pooled names, including ones the garbage collector has not cleared yet.
+     */
+    public int size() {
+        int size = 0;
+        for (WeakHashMap<String, WeakReference<String>> names : segments) {
+            synchronized (names) {
+                size += names.size();
+            }
+        }
+        return size;
+    }
+}
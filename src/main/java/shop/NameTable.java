@@ -0,0 +1,51 @@
+package shop;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Deduplicated table of item names. Each distinct name is stored once and referred to
+ * by an int id; null names use id -1.
+ */
+class NameTable {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private String[] names = new String[16];
+    private int size;
+
+    int idOf(String name) {
+        if (name == null) {
+            return -1;
+        }
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+        }
+        names[size] = name;
+        ids.put(name, size);
+        return size++;
+    }
+
+    /**
+     * Returns the id of a known name without adding it, or -2 if the name is unknown.
+     */
+    int find(String name) {
+        if (name == null) {
+            return -1;
+        }
+        Integer id = ids.get(name);
+        return id == null ? -2 : id;
+    }
+
+    String name(int id) {
+        return id == -1 ? null : names[id];
+    }
+
+    int size() {
+        return size;
+    }
+}
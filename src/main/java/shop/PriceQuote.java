@@ -0,0 +1,13 @@
+package shop;
+
+import java.math.BigDecimal;
+
+/**
+ * Exact price of a line or a cart: the net amount after discounts and the tax on it.
+ */
+public record PriceQuote(BigDecimal net, BigDecimal tax) {
+
+    public BigDecimal total() {
+        return net.add(tax);
+    }
+}
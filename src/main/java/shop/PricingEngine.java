@@ -0,0 +1,24 @@
+package shop;
+
+import java.math.BigDecimal;
+
+/**
+ * Prices cart lines. A cart asks its engine once per line when its total or tax is read, so
+ * implementations should do any rule evaluation up front; see {@link PricingRules#compile(String)}.
+ */
+public interface PricingEngine {
+
+    /**
+     * The flat 20% tax on every item, without discounts or rounding. Carts that use it
+     * keep their totals as running sums and never call it.
+     */
+    PricingEngine STANDARD = (item, quantity) -> {
+        BigDecimal net = BigDecimal.valueOf(item.getPrice()).multiply(BigDecimal.valueOf(quantity));
+        return new PriceQuote(net, net.multiply(Cart.TAX_RATE));
+    };
+
+    /**
+     * Price of {@code quantity} units of the item.
+     */
+    PriceQuote price(Item item, int quantity);
+}
@@ -0,0 +1,234 @@
+package shop;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tax rates by item type and region, percentage discounts and a rounding rule. Rules are only
+ * interpreted by {@link #compile(String)}, which turns them into a {@link PricingEngine} for
+ * one region.
+ * <p>
+ * The most specific tax rate wins: a rate for the region over one for every region, then a
+ * rate for the item's own type over one for a supertype. Of the discounts that apply to a line,
+ * the largest one is taken; discounts do not stack.
+ */
+public final class PricingRules {
+
+    private final List<TaxRule> taxRules;
+    private final List<Discount> discounts;
+    private final int scale;
+    private final RoundingMode roundingMode;
+
+    private PricingRules(Builder builder) {
+        taxRules = List.copyOf(builder.taxRules);
+        discounts = List.copyOf(builder.discounts);
+        scale = builder.scale;
+        roundingMode = builder.roundingMode;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Resolves the rules for a region, or for no particular region if it is null. The result
+     * holds one precomputed rule per item type, plus one per name for the names that have
+     * discounts of their own, so pricing a line is a map lookup and a few multiplications.
+     */
+    public PricingEngine compile(String region) {
+        List<TaxRule> regionRates = new ArrayList<>();
+        for (TaxRule rule : taxRules) {
+            if (rule.region == null || rule.region.equals(region)) {
+                regionRates.add(rule);
+            }
+        }
+        // most specific first: regional before general, then subtypes before supertypes
+        regionRates.sort(Comparator.comparing((TaxRule rule) -> rule.region == null)
+                .thenComparing(rule -> -depth(rule.type)));
+        return new CompiledPricing(regionRates, discounts, scale, roundingMode);
+    }
+
+    private static int depth(Class<?> type) {
+        int depth = 0;
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            depth++;
+        }
+        return depth;
+    }
+
+    private record TaxRule(Class<? extends Item> type, String region, BigDecimal rate) {
+    }
+
+    private record Discount(Class<? extends Item> type, String name, BigDecimal factor, int minQuantity) {
+    }
+
+    public static final class Builder {
+
+        private final List<TaxRule> taxRules = new ArrayList<>();
+        private final List<Discount> discounts = new ArrayList<>();
+        private int scale = -1;
+        private RoundingMode roundingMode = RoundingMode.UNNECESSARY;
+
+        private Builder() {
+        }
+
+        /**
+         * Tax rate, such as 0.2 for 20%, for items of the type in every region.
+         */
+        public Builder taxRate(Class<? extends Item> type, double rate) {
+            return taxRate(type, null, rate);
+        }
+
+        public Builder taxRate(Class<? extends Item> type, String region, double rate) {
+            if (rate < 0) {
+                throw new IllegalArgumentException("Tax rate must not be negative: " + rate);
+            }
+            taxRules.add(new TaxRule(Objects.requireNonNull(type), region, BigDecimal.valueOf(rate)));
+            return this;
+        }
+
+        /**
+         * Takes {@code percent} off lines of at least {@code minQuantity} units of the type,
+         * or only of items with that name if it is not null.
+         */
+        public Builder discount(Class<? extends Item> type, String name, double percent, int minQuantity) {
+            if (percent < 0 || percent > 100) {
+                throw new IllegalArgumentException("Discount must be between 0 and 100 percent: " + percent);
+            }
+            BigDecimal factor = BigDecimal.ONE.subtract(BigDecimal.valueOf(percent).movePointLeft(2));
+            discounts.add(new Discount(Objects.requireNonNull(type), name, factor, Math.max(minQuantity, 1)));
+            return this;
+        }
+
+        /**
+         * Rounds the net amount and the tax of every line to {@code scale} decimal places.
+         * Without it all amounts are exact.
+         */
+        public Builder rounding(int scale, RoundingMode roundingMode) {
+            this.scale = scale;
+            this.roundingMode = Objects.requireNonNull(roundingMode);
+            return this;
+        }
+
+        public PricingRules build() {
+            return new PricingRules(this);
+        }
+    }
+
+    /**
+     * The rules of one region as lookup tables per item type, built on first use of a type.
+     */
+    private static final class CompiledPricing implements PricingEngine {
+
+        private final List<TaxRule> taxRules;
+        private final List<Discount> discounts;
+        private final int scale;
+        private final RoundingMode roundingMode;
+        private final Map<Class<? extends Item>, TypeTable> tables = new ConcurrentHashMap<>();
+
+        private CompiledPricing(List<TaxRule> taxRules, List<Discount> discounts, int scale, RoundingMode roundingMode) {
+            this.taxRules = taxRules;
+            this.discounts = discounts;
+            this.scale = scale;
+            this.roundingMode = roundingMode;
+            tables.put(RealItem.class, compileType(RealItem.class));
+            tables.put(VirtualItem.class, compileType(VirtualItem.class));
+        }
+
+        @Override
+        public PriceQuote price(Item item, int quantity) {
+            Class<? extends Item> type = item.itemType();
+            TypeTable table = tables.get(type);
+            if (table == null) {
+                table = tables.computeIfAbsent(type, this::compileType);
+            }
+            LineRule rule = table.rule(item.getName());
+            BigDecimal gross = BigDecimal.valueOf(item.getPrice()).multiply(BigDecimal.valueOf(quantity));
+            BigDecimal net = round(gross.multiply(rule.factor(quantity)));
+            return new PriceQuote(net, round(net.multiply(rule.taxRate)));
+        }
+
+        private BigDecimal round(BigDecimal amount) {
+            return scale < 0 ? amount : amount.setScale(scale, roundingMode);
+        }
+
+        private TypeTable compileType(Class<? extends Item> type) {
+            BigDecimal taxRate = BigDecimal.ZERO;
+            for (TaxRule rule : taxRules) {
+                if (rule.type.isAssignableFrom(type)) {
+                    taxRate = rule.rate;
+                    break;
+                }
+            }
+            List<Discount> typeDiscounts = new ArrayList<>();
+            Map<String, List<Discount>> namedDiscounts = new HashMap<>();
+            for (Discount discount : discounts) {
+                if (!discount.type.isAssignableFrom(type)) {
+                    continue;
+                }
+                if (discount.name == null) {
+                    typeDiscounts.add(discount);
+                } else {
+                    namedDiscounts.computeIfAbsent(discount.name, name -> new ArrayList<>()).add(discount);
+                }
+            }
+            Map<String, LineRule> byName = new HashMap<>();
+            for (Map.Entry<String, List<Discount>> entry : namedDiscounts.entrySet()) {
+                List<Discount> applicable = new ArrayList<>(typeDiscounts);
+                applicable.addAll(entry.getValue());
+                byName.put(entry.getKey(), LineRule.of(taxRate, applicable));
+            }
+            return new TypeTable(LineRule.of(taxRate, typeDiscounts), byName);
+        }
+    }
+
+    /**
+     * What applies to one item type: a rule for every name, and rules for the names with
+     * discounts of their own.
+     */
+    private record TypeTable(LineRule defaultRule, Map<String, LineRule> byName) {
+
+        LineRule rule(String name) {
+            if (byName.isEmpty() || name == null) {
+                return defaultRule;
+            }
+            return byName.getOrDefault(name, defaultRule);
+        }
+    }
+
+    /**
+     * Tax rate and discount tiers of a line: the factor of the last tier whose minimum quantity
+     * is reached, where each tier holds the best discount reachable at its quantity.
+     */
+    private record LineRule(BigDecimal taxRate, int[] minQuantities, BigDecimal[] factors) {
+
+        static LineRule of(BigDecimal taxRate, List<Discount> discounts) {
+            List<Discount> sorted = new ArrayList<>(discounts);
+            sorted.sort(Comparator.comparingInt(Discount::minQuantity));
+            int[] minQuantities = new int[sorted.size()];
+            BigDecimal[] factors = new BigDecimal[sorted.size()];
+            BigDecimal best = BigDecimal.ONE;
+            for (int i = 0; i < minQuantities.length; i++) {
+                best = best.min(sorted.get(i).factor);
+                minQuantities[i] = sorted.get(i).minQuantity;
+                factors[i] = best;
+            }
+            return new LineRule(taxRate, minQuantities, factors);
+        }
+
+        BigDecimal factor(int quantity) {
+            BigDecimal factor = BigDecimal.ONE;
+            for (int i = 0; i < minQuantities.length && minQuantities[i] <= quantity; i++) {
+                factor = factors[i];
+            }
+            return factor;
+        }
+    }
+}
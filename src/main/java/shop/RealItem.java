@@ -13,7 +13,19 @@ public class RealItem extends Item {
     }
 
     @Override
-    public String toString() {
-        return super.toString() + "Weight: " + weight;
+    RealItem copy() {
+        RealItem copy = copyFields(new RealItem());
+        copy.setWeight(getWeight());
+        return copy;
+    }
+
+    @Override
+    boolean hasSameFields(Item other) {
+        return super.hasSameFields(other) && Double.compare(getWeight(), ((RealItem) other).getWeight()) == 0;
+    }
+
+    @Override
+    public StringBuilder appendTo(StringBuilder out) {
+        return super.appendTo(out).append("Weight: ").append(getWeight());
     }
 }
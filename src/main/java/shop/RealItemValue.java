@@ -0,0 +1,61 @@
+package shop;
+
+/**
+ * Immutable real item. The name is interned in {@link NamePool#shared()}.
+ */
+public record RealItemValue(String name, double price, double weight) implements ItemValue {
+
+    public RealItemValue {
+        name = NamePool.shared().intern(name);
+    }
+
+    public static RealItemValue of(RealItem item) {
+        return new RealItemValue(item.getName(), item.getPrice(), item.getWeight());
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Builder toBuilder() {
+        return new Builder().name(name).price(price).weight(weight);
+    }
+
+    @Override
+    public RealItem toItem() {
+        RealItem item = new RealItem();
+        item.setName(name);
+        item.setPrice(price);
+        item.setWeight(weight);
+        return item;
+    }
+
+    public static final class Builder {
+
+        private String name;
+        private double price;
+        private double weight;
+
+        private Builder() {
+        }
+
+        public Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder price(double price) {
+            this.price = price;
+            return this;
+        }
+
+        public Builder weight(double weight) {
+            this.weight = weight;
+            return this;
+        }
+
+        public RealItemValue build() {
+            return new RealItemValue(name, price, weight);
+        }
+    }
+}
@@ -13,7 +13,19 @@ public class VirtualItem extends Item {
     }
 
     @Override
-    public String toString() {
-        return super.toString() + "Size on disk: " + sizeOnDisk;
+    VirtualItem copy() {
+        VirtualItem copy = copyFields(new VirtualItem());
+        copy.setSizeOnDisk(getSizeOnDisk());
+        return copy;
+    }
+
+    @Override
+    boolean hasSameFields(Item other) {
+        return super.hasSameFields(other) && Double.compare(getSizeOnDisk(), ((VirtualItem) other).getSizeOnDisk()) == 0;
+    }
+
+    @Override
+    public StringBuilder appendTo(StringBuilder out) {
+        return super.appendTo(out).append("Size on disk: ").append(getSizeOnDisk());
     }
 }
@@ -0,0 +1,61 @@
+package shop;
+
+/**
+ * Immutable virtual item. The name is interned in {@link NamePool#shared()}.
+ */
+public record VirtualItemValue(String name, double price, double sizeOnDisk) implements ItemValue {
+
+    public VirtualItemValue {
+        name = NamePool.shared().intern(name);
+    }
+
+    public static VirtualItemValue of(VirtualItem item) {
+        return new VirtualItemValue(item.getName(), item.getPrice(), item.getSizeOnDisk());
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Builder toBuilder() {
+        return new Builder().name(name).price(price).sizeOnDisk(sizeOnDisk);
+    }
+
+    @Override
+    public VirtualItem toItem() {
+        VirtualItem item = new VirtualItem();
+        item.setName(name);
+        item.setPrice(price);
+        item.setSizeOnDisk(sizeOnDisk);
+        return item;
+    }
+
+    public static final class Builder {
+
+        private String name;
+        private double price;
+        private double sizeOnDisk;
+
+        private Builder() {
+        }
+
+        public Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder price(double price) {
+            this.price = price;
+            return this;
+        }
+
+        public Builder sizeOnDisk(double sizeOnDisk) {
+            this.sizeOnDisk = sizeOnDisk;
+            return this;
+        }
+
+        public VirtualItemValue build() {
+            return new VirtualItemValue(name, price, sizeOnDisk);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the log-linear histogram and the in-memory registry.
+ */
+class LogLinearHistogramTest {
+
+    /**
+     * Verifies that percentiles are reported within the bucket precision.
+     * ★★★★★ - Essential, latency percentiles are the purpose of the histogram.
+     */
+    @Test
+    void testPercentiles() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        assertAll("Percentiles of 1 µs to 100 ms",
+                () -> assertEquals(100_000, histogram.getCount()),
+                () -> assertEquals(100_000_000, histogram.getMax()),
+                () -> assertEquals(50_000_500, histogram.getMean(), 0.001),
+                () -> assertEquals(50_000_000, histogram.getValueAtPercentile(50), 50_000_000 * 0.04),
+                () -> assertEquals(99_000_000, histogram.getValueAtPercentile(99), 99_000_000 * 0.04),
+                () -> assertEquals(100_000_000, histogram.getValueAtPercentile(100), "The top percentile should be the max."));
+    }
+
+    /**
+     * Verifies that every bucket boundary maps back into its own bucket over the whole range.
+     * ★★★★☆ - Important, an off-by-one here would skew every percentile.
+     */
+    @Test
+    void testBucketBoundaries() {
+        int previous = -1;
+        for (int bit = 0; bit < Long.SIZE - 1; bit++) {
+            for (long value : new long[]{1L << bit, (3L << bit) >>> 1, (2L << bit) - 1}) {
+                int bucket = LogLinearHistogram.bucketOf(value);
+                assertTrue(bucket >= previous, "Buckets should grow with the value: " + value);
+                assertTrue(LogLinearHistogram.highestEquivalentValue(bucket) >= value, "Value " + value + " should fit its bucket.");
+                previous = bucket;
+            }
+        }
+        assertEquals(Long.MAX_VALUE, LogLinearHistogram.highestEquivalentValue(LogLinearHistogram.bucketOf(Long.MAX_VALUE)));
+        assertEquals(0, new LogLinearHistogram().getValueAtPercentile(99), "An empty histogram should report 0.");
+        assertThrows(IllegalArgumentException.class, () -> new LogLinearHistogram().record(-1));
+    }
+
+    /**
+     * Verifies that concurrent recording and counting lose nothing.
+     * ★★★★☆ - Important, parsers record from many threads at once.
+     */
+    @Test
+    void testConcurrentRecording() {
+        InMemoryMetricsRegistry registry = new InMemoryMetricsRegistry();
+        IntStream.range(0, 100_000).parallel().forEach(i -> {
+            registry.histogram("latency").record(i % 1000);
+            registry.counter("calls").increment();
+        });
+
+        assertAll("Registry after 100000 parallel updates",
+                () -> assertEquals(100_000, registry.getCount("calls")),
+                () -> assertEquals(100_000, registry.getHistograms().get("latency").getCount()),
+                () -> assertEquals(999, registry.getHistograms().get("latency").getMax()),
+                () -> assertEquals(0, registry.getCount("unknown")));
+    }
+}
@@ -0,0 +1,236 @@
+package parser;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import shop.Cart;
+import shop.NamePool;
+import shop.RealItem;
+import shop.VirtualItem;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the binary cart format and the JSON to binary converter.
+ */
+class BinaryParserTest {
+
+    @TempDir
+    Path tempDir;
+
+    private BinaryParser binaryParser;
+    private Cart testCart;
+
+    @BeforeEach
+    void setUp() {
+        binaryParser = new BinaryParser();
+        testCart = new Cart("binary-cart");
+
+        RealItem car = new RealItem();
+        car.setName("BMW");
+        car.setPrice(22103.9);
+        car.setWeight(1400);
+
+        VirtualItem office = new VirtualItem();
+        office.setName("Microsoft office");
+        office.setPrice(30.0);
+        office.setSizeOnDisk(8500);
+
+        VirtualItem nameless = new VirtualItem();
+        nameless.setPrice(1.5);
+
+        testCart.addRealItem(car);
+        testCart.addVirtualItem(office);
+        testCart.addVirtualItem(nameless);
+    }
+
+    /**
+     * Verifies that a cart survives a write and read through the binary format.
+     * ★★★★★ - Essential for the format to be usable as a snapshot store.
+     */
+    @Test
+    void testRoundTrip() throws IOException {
+        File file = tempDir.resolve("binary-cart.cart").toFile();
+        binaryParser.writeToFile(testCart, file, true);
+
+        Cart readCart = binaryParser.readFromFile(file);
+
+        assertAll("Cart should be the same before and after binary serialization",
+                () -> assertEquals(testCart.getCartName(), readCart.getCartName(), "Cart names must match."),
+                () -> assertEquals(testCart.getTotalPrice(), readCart.getTotalPrice(), "Total prices must match."),
+                () -> assertEquals(1, readCart.getRealItems().size(), "Real items must be restored."),
+                () -> assertEquals(2, readCart.getVirtualItems().size(), "Virtual items must be restored."),
+                () -> assertNull(readCart.getVirtualItems().stream().skip(1).findFirst().orElseThrow().getName(),
+                        "Null names must be restored as null.")
+        );
+    }
+
+    /**
+     * Verifies that the binary file is smaller than the JSON file of the same cart.
+     * ★★★☆☆ - Useful to confirm the format meets its purpose.
+     */
+    @Test
+    void testBinaryIsSmallerThanJson() throws IOException {
+        File json = tempDir.resolve("binary-cart.json").toFile();
+        File binary = tempDir.resolve("binary-cart.cart").toFile();
+        new JsonParser().writeToFile(testCart, json, false);
+        binaryParser.writeToFile(testCart, binary, false);
+
+        assertTrue(binary.length() < json.length(), "Binary cart should be more compact than JSON.");
+    }
+
+    /**
+     * Verifies that item names read by either parser are pooled, so carts read apart share them.
+     * ★★★☆☆ - Useful, duplicate names from many files are what the pool exists for.
+     */
+    @Test
+    void testParsedNamesArePooled() throws IOException {
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        binaryParser.write(testCart, binary);
+        StringWriter json = new StringWriter();
+        JsonParser jsonParser = new JsonParser();
+        jsonParser.write(testCart, json);
+
+        Cart first = binaryParser.read(new ByteArrayInputStream(binary.toByteArray()));
+        Cart second = binaryParser.read(new ByteArrayInputStream(binary.toByteArray()));
+        Cart third = jsonParser.read(new StringReader(json.toString()));
+
+        String name = first.findRealItem("BMW").getName();
+        assertAll("Pooled names",
+                () -> assertSame(name, second.findRealItem("BMW").getName()),
+                () -> assertSame(name, third.findRealItem("BMW").getName()),
+                () -> assertSame(NamePool.shared().intern("Microsoft office"), third.findVirtualItem("Microsoft office").getName()));
+    }
+
+    /**
+     * Verifies that foreign and truncated data is rejected with CartFormatException.
+     * ★★★★☆ - Important so that corrupt snapshots are reported clearly.
+     */
+    @Test
+    void testRejectsInvalidData() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        binaryParser.write(testCart, out);
+        byte[] truncated = Arrays.copyOf(out.toByteArray(), out.size() - 3);
+
+        assertThrows(CartFormatException.class, () -> binaryParser.read(new ByteArrayInputStream("{}".getBytes())),
+                "Non-binary data should be rejected.");
+        assertThrows(CartFormatException.class, () -> binaryParser.read(new ByteArrayInputStream(truncated)),
+                "Truncated data should be rejected.");
+    }
+
+    /**
+     * Verifies that quantity lines are stored once with their quantity, and that version 1 files still read.
+     * ★★★★☆ - Important, a line of a million units must not become a million records.
+     */
+    @Test
+    void testQuantityLinesAndVersionOne() throws IOException {
+        RealItem pen = new RealItem();
+        pen.setName("Pen");
+        pen.setPrice(0.5);
+        Cart bulk = new Cart("bulk-cart");
+        bulk.addRealItem(pen, 1_000_000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        binaryParser.write(bulk, out);
+        Cart readBulk = binaryParser.read(new ByteArrayInputStream(out.toByteArray()));
+
+        ByteArrayOutputStream legacy = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(legacy);
+        data.writeInt(BinaryParser.MAGIC);
+        data.writeByte(1);
+        data.writeInt(-1);
+        data.writeInt(2);
+        for (int i = 0; i < 2; i++) {
+            data.writeInt(3);
+            data.write("Pen".getBytes(StandardCharsets.UTF_8));
+            data.writeDouble(0.5);
+            data.writeDouble(1.0);
+        }
+        data.writeInt(0);
+        Cart readLegacy = binaryParser.read(new ByteArrayInputStream(legacy.toByteArray()));
+
+        assertAll("Quantity lines",
+                () -> assertTrue(out.size() < 100, "One line should be one record."),
+                () -> assertEquals(1_000_000, readBulk.getRealItemCount()),
+                () -> assertEquals(bulk.getTotalPrice(), readBulk.getTotalPrice()),
+                () -> assertEquals(2, readLegacy.getRealItemQuantity(pen), "Version 1 units should merge into a line."));
+    }
+
+    /**
+     * Verifies that a huge string length in a corrupt file is a format error, not an OutOfMemoryError.
+     * ★★★★☆ - Important, a single bad file must not take the process down.
+     */
+    @Test
+    void testRejectsHugeStringLength() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(BinaryParser.MAGIC);
+        data.writeByte(BinaryParser.VERSION);
+        data.writeInt(Integer.MAX_VALUE - 8);
+        data.write("short".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(CartFormatException.class, () -> binaryParser.read(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    /**
+     * Verifies that the converter turns a directory of JSON carts into binary files.
+     * ★★★★☆ - Important for migrating the existing snapshot store.
+     */
+    @Test
+    void testConvertDirectory() throws IOException {
+        Files.copy(Path.of("src/main/resources/andrew-cart.json"), tempDir.resolve("andrew-cart.json"));
+        Files.copy(Path.of("src/main/resources/malformed.json"), tempDir.resolve("malformed.json"));
+
+        BulkReadResult result = new CartFormatConverter().toBinary(tempDir);
+        Cart converted = binaryParser.readFromFile(tempDir.resolve("andrew-cart.cart").toFile());
+
+        assertEquals(1, result.getFailures().size(), "The malformed JSON file should be reported.");
+        assertEquals("andrew-cart", converted.getCartName(), "Converted cart should keep its name.");
+        assertEquals(38445.48, converted.getTotalPrice(), 0.01, "Converted cart should keep its total.");
+        assertEquals(1, binaryParser.readAll(tempDir).getCarts().size(), "Only .cart files should be bulk read.");
+    }
+
+    /**
+     * Verifies that unreadable files and failed writes are reported per file, and do not stop a conversion.
+     * ★★★★☆ - Important, one bad cart must not abort migrating the others.
+     */
+    @Test
+    void testConversionFailures() throws IOException {
+        Files.copy(Path.of("src/main/resources/andrew-cart.json"), tempDir.resolve("andrew-cart.json"));
+        Files.copy(Path.of("src/main/resources/eugen-cart.json"), tempDir.resolve("eugen-cart.json"));
+        Files.createDirectory(tempDir.resolve("eugen-cart.cart")); // the binary file cannot be written
+        Path empty = Files.writeString(tempDir.resolve("empty.json"), "");
+        CartFormatConverter converter = new CartFormatConverter();
+
+        BulkReadResult result = converter.toBinary(tempDir);
+
+        assertAll("Conversion failures",
+                () -> assertThrows(CartFormatException.class, () -> converter.toBinary(empty.toFile())),
+                () -> assertEquals(Set.of(tempDir.resolve("andrew-cart.json")), result.getCarts().keySet()),
+                () -> assertInstanceOf(UncheckedIOException.class, result.getFailures().get(tempDir.resolve("eugen-cart.json"))),
+                () -> assertInstanceOf(CartFormatException.class, result.getFailures().get(empty)));
+    }
+
+    /**
+     * Verifies that a missing file raises NoSuchFileException like the JSON parser.
+     * ★★★☆☆ - Keeps the error contract of Parser implementations aligned.
+     */
+    @Test
+    void testMissingFile() {
+        File missing = tempDir.resolve("missing.cart").toFile();
+        assertThrows(NoSuchFileException.class, () -> binaryParser.readFromFile(missing));
+    }
+}
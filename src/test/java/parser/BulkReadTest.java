@@ -0,0 +1,112 @@
+package parser;
+
+import com.google.gson.JsonSyntaxException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import shop.Cart;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for bulk reading of cart files through the Parser interface.
+ */
+class BulkReadTest {
+
+    private static final Path RESOURCES = Path.of("src/main/resources");
+
+    @TempDir
+    Path cartsDir;
+
+    private JsonParser jsonParser;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        jsonParser = new JsonParser();
+        Files.copy(RESOURCES.resolve("andrew-cart.json"), cartsDir.resolve("andrew-cart.json"));
+        Files.copy(RESOURCES.resolve("eugen-cart.json"), cartsDir.resolve("eugen-cart.json"));
+        Files.copy(RESOURCES.resolve("malformed.json"), cartsDir.resolve("malformed.json"));
+        Files.writeString(cartsDir.resolve("notes.txt"), "not a cart");
+    }
+
+    /**
+     * Verifies that every JSON file of a directory is read and a malformed one is reported, not thrown.
+     * ★★★★★ - Essential, one bad file must not abort loading all other carts.
+     */
+    @Test
+    void testReadDirectoryCollectsResultsAndFailures() {
+        BulkReadResult result = jsonParser.readAll(cartsDir);
+
+        assertAll("Bulk read of a directory",
+                () -> assertEquals(2, result.getCarts().size(), "Both valid carts should be loaded."),
+                () -> assertEquals("andrew-cart", result.getCarts().get(cartsDir.resolve("andrew-cart.json")).getCartName()),
+                () -> assertEquals(1, result.getFailures().size(), "Only the malformed file should fail."),
+                () -> assertInstanceOf(JsonSyntaxException.class, result.getFailures().get(cartsDir.resolve("malformed.json")))
+        );
+    }
+
+    /**
+     * Verifies that missing files in a stream of paths are reported per file.
+     * ★★★★☆ - Important for callers that build the list of files themselves.
+     */
+    @Test
+    void testReadStreamReportsMissingFiles() {
+        Path missing = cartsDir.resolve("missing-cart.json");
+        BulkReadResult result = jsonParser.readAll(Stream.of(cartsDir.resolve("eugen-cart.json"), missing));
+
+        assertTrue(result.hasFailures(), "A missing file should be reported as a failure.");
+        assertInstanceOf(NoSuchFileException.class, result.getFailures().get(missing));
+        assertEquals(26560.68, result.getCarts().get(cartsDir.resolve("eugen-cart.json")).getTotalPrice(), 0.01);
+    }
+
+    /**
+     * Verifies that an existing file without a cart is reported as a format problem, not as missing.
+     * ★★★☆☆ - Useful so operators look at the file's content instead of the path.
+     */
+    @Test
+    void testEmptyFileIsReportedAsFormatFailure() throws IOException {
+        Path empty = Files.writeString(cartsDir.resolve("empty-cart.json"), "");
+        BulkReadResult result = jsonParser.readAll(Stream.of(empty));
+
+        assertInstanceOf(CartFormatException.class, result.getFailures().get(empty));
+    }
+
+    /**
+     * Verifies that a caller supplied executor is used and left running.
+     * ★★★☆☆ - Useful for services that size their own thread pools.
+     */
+    @Test
+    void testReadWithCustomExecutor() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            BulkReadResult result = jsonParser.readAll(cartsDir, executor);
+
+            assertEquals(2, result.getCarts().size(), "Valid carts should be loaded on the given executor.");
+            assertFalse(executor.isShutdown(), "A caller supplied executor must not be shut down.");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Verifies that results keep the order in which paths were supplied.
+     * ★★☆☆☆ - Nice to have for deterministic start-up logs.
+     */
+    @Test
+    void testResultsKeepInputOrder() {
+        Path eugen = cartsDir.resolve("eugen-cart.json");
+        Path andrew = cartsDir.resolve("andrew-cart.json");
+        BulkReadResult result = jsonParser.readAll(Stream.of(eugen, andrew));
+
+        assertIterableEquals(List.of("eugen-cart", "andrew-cart"),
+                result.getCarts().values().stream().map(Cart::getCartName).toList());
+    }
+}
@@ -0,0 +1,168 @@
+package parser;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import shop.Cart;
+import shop.ConcurrentCart;
+import shop.RealItem;
+import shop.VirtualItem;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the shared Gson configuration with hand-written adapters.
+ */
+class CartGsonTest {
+
+    private Cart testCart;
+
+    @BeforeEach
+    void setUp() {
+        testCart = new Cart("gson-cart");
+        RealItem car = new RealItem();
+        car.setName("Audi");
+        car.setPrice(32026.9);
+        car.setWeight(1560);
+        VirtualItem os = new VirtualItem();
+        os.setName("Windows");
+        os.setPrice(11.0);
+        os.setSizeOnDisk(20000);
+        testCart.addRealItem(car);
+        testCart.addVirtualItem(os);
+    }
+
+    /**
+     * Verifies that the shared Gson and JsonParser produce the same document.
+     * ★★★★★ - Essential, both entry points must stay interchangeable with existing files.
+     */
+    @Test
+    void testGsonMatchesParserLayout() throws IOException {
+        StringWriter out = new StringWriter();
+        new JsonParser().write(testCart, out);
+
+        assertEquals(out.toString(), CartGson.gson().toJson(testCart), "Both paths should write the same JSON.");
+    }
+
+    /**
+     * Verifies that lines are written once with their quantity and read back as lines.
+     * ★★★★★ - Essential, bulk carts should be stored compactly.
+     */
+    @Test
+    void testQuantityLinesAreCompact() throws IOException {
+        RealItem chair = new RealItem();
+        chair.setName("Chair");
+        chair.setPrice(10.0);
+        testCart.addRealItem(chair, 500);
+        StringWriter out = new StringWriter();
+        new JsonParser().write(testCart, out);
+        Cart readCart = new JsonParser().read(new StringReader(out.toString()));
+
+        assertAll("Cart with a line of 500 chairs",
+                () -> assertTrue(out.toString().contains("{\"weight\":0.0,\"name\":\"Chair\",\"price\":10.0,\"quantity\":500}"), out.toString()),
+                () -> assertFalse(out.toString().contains("\"quantity\":1"), "Single units should keep the old layout."),
+                () -> assertEquals(testCart.getRealLines(), readCart.getRealLines()),
+                () -> assertEquals(testCart.getTotalPrice(), readCart.getTotalPrice(), 0.0001));
+    }
+
+    /**
+     * Verifies that files with one entry per unit still read, merging equal units into lines.
+     * ★★★★★ - Critical so every existing cart file stays readable.
+     */
+    @Test
+    void testLegacyUnitsAreMerged() throws IOException {
+        String legacy = "{\"cartName\":\"legacy\",\"realItems\":["
+                + "{\"weight\":1.0,\"name\":\"Pen\",\"price\":2.0},"
+                + "{\"weight\":1.0,\"name\":\"Pen\",\"price\":2.0},"
+                + "{\"weight\":1.0,\"name\":\"Pen\",\"price\":2.0,\"quantity\":3}],"
+                + "\"virtualItems\":[],\"total\":12.0}";
+        Cart cart = new JsonParser().read(new StringReader(legacy));
+
+        assertEquals(1, cart.getRealLines().size(), "Equal units should share a line.");
+        assertEquals(5, cart.getRealItemCount());
+        assertThrows(CartFormatException.class, () -> new JsonParser().read(new StringReader(
+                "{\"cartName\":\"bad\",\"realItems\":[{\"name\":\"Pen\",\"quantity\":-1}]}")));
+    }
+
+    /**
+     * Verifies that quantities that are not whole ints, or add up past one, are format errors.
+     * ★★★★☆ - Important, corrupt files must fail the way every other format problem does.
+     */
+    @Test
+    void testInvalidQuantitiesAreFormatErrors() {
+        JsonParser parser = new JsonParser();
+        String max = String.valueOf(Integer.MAX_VALUE);
+
+        assertAll("Invalid quantities",
+                () -> assertThrows(CartFormatException.class, () -> parser.read(new StringReader(
+                        "{\"cartName\":\"bad\",\"realItems\":[{\"name\":\"Pen\",\"quantity\":1.5}]}"))),
+                () -> assertThrows(CartFormatException.class, () -> parser.read(new StringReader(
+                        "{\"cartName\":\"bad\",\"virtualItems\":[{\"name\":\"Game\",\"quantity\":3000000000}]}"))),
+                () -> assertThrows(CartFormatException.class, () -> parser.read(new StringReader(
+                        "{\"cartName\":\"bad\",\"realItems\":[{\"name\":\"Pen\",\"quantity\":true}]}"))),
+                () -> assertThrows(CartFormatException.class, () -> parser.read(new StringReader(
+                        "{\"cartName\":\"bad\",\"realItems\":[{\"name\":\"Pen\",\"quantity\":" + max + "},"
+                                + "{\"name\":\"Pen\",\"quantity\":" + max + "}]}"))));
+    }
+
+    /**
+     * Verifies a round trip of carts and single items through the shared Gson.
+     * ★★★★★ - Critical, the adapters replace reflection for every type.
+     */
+    @Test
+    void testRoundTrip() {
+        Gson gson = CartGson.gson();
+        Cart readCart = gson.fromJson(gson.toJson(testCart), Cart.class);
+        RealItem readItem = gson.fromJson("{\"name\":\"Lamp\",\"price\":5.0,\"weight\":1.5,\"color\":\"red\"}", RealItem.class);
+
+        assertAll("Round trip",
+                () -> assertEquals(testCart.getCartName(), readCart.getCartName()),
+                () -> assertEquals(testCart.getTotalPrice(), readCart.getTotalPrice(), 0.001),
+                () -> assertEquals(20000, readCart.findVirtualItem("Windows").getSizeOnDisk(), 0.001),
+                () -> assertEquals(1.5, readItem.getWeight(), 0.001, "Unknown fields should be skipped."),
+                () -> assertNull(gson.fromJson("null", Cart.class)));
+    }
+
+    /**
+     * Verifies that cart subclasses use the cart adapter, with concurrent carts snapshotted.
+     * ★★★★☆ - Important, reflection would otherwise serialize the internal stripes.
+     */
+    @Test
+    void testSubclassesUseCartAdapter() {
+        ConcurrentCart concurrentCart = new ConcurrentCart("gson-cart");
+        testCart.getRealItems().forEach(concurrentCart::addRealItem);
+        testCart.getVirtualItems().forEach(concurrentCart::addVirtualItem);
+
+        assertEquals(CartGson.gson().toJson(testCart), CartGson.gson().toJson(concurrentCart));
+    }
+
+    /**
+     * Verifies that one parser instance can be shared by concurrent readers.
+     * ★★★★☆ - Important so callers need no parser per thread.
+     */
+    @Test
+    void testSharedAcrossThreads() throws Exception {
+        String json = CartGson.gson().toJson(testCart);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Cart>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                results.add(executor.submit(() -> CartGson.gson().fromJson(json, Cart.class)));
+            }
+            for (Future<Cart> result : results) {
+                assertEquals(testCart.getTotalPrice(), result.get().getTotalPrice(), 0.001);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import shop.RealItem;
+import shop.VirtualItem;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the append-only cart journal.
+ */
+class CartJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static RealItem realItem(String name, double price) {
+        RealItem item = new RealItem();
+        item.setName(name);
+        item.setPrice(price);
+        item.setWeight(1.5);
+        return item;
+    }
+
+    private static VirtualItem virtualItem(String name, double price) {
+        VirtualItem item = new VirtualItem();
+        item.setName(name);
+        item.setPrice(price);
+        item.setSizeOnDisk(512);
+        return item;
+    }
+
+    private long logSize(String cartName) throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(cartName + "."))
+                    .filter(file -> file.toString().endsWith(CartJournal.LOG_SUFFIX))
+                    .mapToLong(file -> file.toFile().length())
+                    .sum();
+        }
+    }
+
+    /**
+     * Verifies that edits survive closing and reopening the cart.
+     * ★★★★★ - Essential, replaying the log is the whole point of the journal.
+     */
+    @Test
+    void testEditsAreReplayedOnOpen() throws IOException {
+        CartJournal journal = new CartJournal(tempDir);
+        try (JournaledCart cart = journal.open("journal-cart")) {
+            cart.addRealItem(realItem("Car", 100.0));
+            cart.addRealItem(realItem("Bike", 20.0));
+            cart.addVirtualItem(virtualItem("Game", 10.0));
+            cart.deleteRealItem(realItem("Bike", 20.0));
+            assertEquals(4, cart.getEventCount());
+        }
+
+        try (JournaledCart reopened = journal.open("journal-cart")) {
+            assertAll("Replayed cart",
+                    () -> assertEquals("journal-cart", reopened.getCartName()),
+                    () -> assertEquals(1, reopened.getRealItemCount(), "Only the car should remain."),
+                    () -> assertEquals(1.5, reopened.findRealItem("Car").getWeight(), 0.0001),
+                    () -> assertEquals(512, reopened.findVirtualItem("Game").getSizeOnDisk(), 0.0001),
+                    () -> assertEquals(132.0, reopened.getTotalPrice(), 0.0001));
+        }
+    }
+
+    /**
+     * Verifies that quantity changes are logged as one event and replayed exactly.
+     * ★★★★☆ - Important so bulk quantity edits stay O(1) I/O.
+     */
+    @Test
+    void testQuantityChangesAreSingleEvents() throws IOException {
+        CartJournal journal = new CartJournal(tempDir);
+        try (JournaledCart cart = journal.open("quantities")) {
+            cart.setRealItemQuantity(realItem("Pen", 1.0), 50);
+            cart.setVirtualItemQuantity(virtualItem("Song", 2.0), 3);
+            cart.setRealItemQuantity(realItem("Pen", 1.0), 10);
+            cart.deleteVirtualItem(virtualItem("Missing", 2.0));
+            assertEquals(3, cart.getEventCount(), "Each quantity change should be one event; no-op deletes none.");
+        }
+
+        try (JournaledCart reopened = journal.open("quantities")) {
+            assertEquals(10, reopened.getRealItemQuantity(realItem("Pen", 1.0)));
+            assertEquals(3, reopened.getVirtualItemQuantity(virtualItem("Song", 2.0)));
+            reopened.addVirtualItem(virtualItem("Song", 2.0), 7);
+            assertEquals(1, reopened.getEventCount(), "A bulk add should be one event.");
+        }
+
+        try (JournaledCart reopened = journal.open("quantities")) {
+            assertEquals(10, reopened.getVirtualItemQuantity(virtualItem("Song", 2.0)), "The bulk add should be replayed.");
+            assertEquals(1, reopened.getVirtualLines().size(), "Replayed units should share their line.");
+        }
+    }
+
+    /**
+     * Verifies that compaction keeps the log bounded and the state intact.
+     * ★★★★★ - Critical so recovery time does not grow with the cart's history.
+     */
+    @Test
+    void testCompactionBoundsLog() throws IOException {
+        CartJournal journal = new CartJournal(tempDir, 10, false);
+        try (JournaledCart cart = journal.open("busy")) {
+            for (int i = 0; i < 95; i++) {
+                cart.addRealItem(realItem("Item " + i, 1.0));
+            }
+            assertEquals(5, cart.getEventCount(), "The counter should restart after each snapshot.");
+            long bytesPerEvent = logSize("busy") / 5;
+            assertTrue(logSize("busy") <= 10 * bytesPerEvent, "Only events after the last snapshot should be kept.");
+        }
+
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(2, files.count(), "Only the newest snapshot and its log should remain.");
+        }
+        try (JournaledCart reopened = journal.open("busy")) {
+            assertEquals(95, reopened.getRealItemCount());
+            assertEquals(114.0, reopened.getTotalPrice(), 0.0001);
+        }
+    }
+
+    /**
+     * Verifies that a line torn by a crash is ignored and the log is repaired.
+     * ★★★★★ - Critical, a crash during an append must not make the cart unreadable.
+     */
+    @Test
+    void testTornLastLineIsIgnored() throws IOException {
+        CartJournal journal = new CartJournal(tempDir);
+        try (JournaledCart cart = journal.open("torn")) {
+            cart.addRealItem(realItem("Kept", 5.0));
+        }
+        Path log;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            log = files.filter(file -> file.toString().endsWith(CartJournal.LOG_SUFFIX)).findFirst().orElseThrow();
+        }
+        Files.writeString(log, "{\"op\":\"addReal\",\"item\":{\"na", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (JournaledCart reopened = journal.open("torn")) {
+            assertEquals(1, reopened.getRealItemCount(), "The torn event should be dropped.");
+            reopened.addRealItem(realItem("Added", 1.0));
+        }
+        try (JournaledCart reopened = journal.open("torn")) {
+            assertEquals(2, reopened.getRealItemCount(), "Appends after recovery should be readable.");
+        }
+    }
+
+    /**
+     * Verifies that corruption in the middle of the log is reported instead of silently dropped.
+     * ★★★☆☆ - Useful to avoid losing later edits without notice.
+     */
+    @Test
+    void testCorruptMiddleLineFails() throws IOException {
+        CartJournal journal = new CartJournal(tempDir);
+        try (JournaledCart cart = journal.open("corrupt")) {
+            cart.addRealItem(realItem("First", 5.0));
+        }
+        Path log;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            log = files.filter(file -> file.toString().endsWith(CartJournal.LOG_SUFFIX)).findFirst().orElseThrow();
+        }
+        Files.writeString(log, "garbage\n{\"op\":\"addReal\",\"item\":{\"name\":\"Last\",\"price\":1.0}}\n",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        assertThrows(CartFormatException.class, () -> journal.open("corrupt"));
+    }
+
+    /**
+     * Verifies that edits the cart rejects are not logged and leave the log readable.
+     * ★★★★☆ - Important, a rejected edit must not be replayed or corrupt the log.
+     */
+    @Test
+    void testRejectedEditsAreNotLogged() throws IOException {
+        CartJournal journal = new CartJournal(tempDir);
+        try (JournaledCart cart = journal.open("rejected")) {
+            cart.addRealItem(realItem("Pen", 1.0), Integer.MAX_VALUE - 1);
+            cart.addVirtualItem(virtualItem("Font", 2.0));
+            assertThrows(NumberFormatException.class, () -> cart.addRealItem(realItem("NaN", Double.NaN)));
+            assertThrows(ArithmeticException.class, () -> cart.addVirtualItem(virtualItem("Game", 1.0), 2));
+            assertThrows(ArithmeticException.class, () -> cart.setRealItemQuantity(realItem("Pen", 1.0), Integer.MAX_VALUE));
+            assertEquals(2, cart.getEventCount(), "Only accepted edits should be logged.");
+        }
+
+        try (JournaledCart cart = journal.open("rejected")) {
+            assertAll("Replayed cart",
+                    () -> assertEquals(Integer.MAX_VALUE, cart.getItemCount()),
+                    () -> assertNull(cart.findRealItem("NaN")),
+                    () -> assertNull(cart.findVirtualItem("Game")),
+                    () -> assertNotNull(cart.findVirtualItem("Font")));
+        }
+    }
+
+    /**
+     * Verifies that cart names are encoded in file names and an unreadable snapshot falls back to the one before.
+     * ★★★☆☆ - Useful, names come from users and snapshots can be damaged.
+     */
+    @Test
+    void testEncodedNamesAndSnapshotFallback() throws IOException {
+        CartJournal journal = new CartJournal(tempDir);
+        try (JournaledCart cart = journal.open("../escape")) {
+            cart.addRealItem(realItem("Car", 100.0));
+            cart.compact();
+        }
+        Path snapshot;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            snapshot = files.filter(file -> file.toString().endsWith(CartJournal.SNAPSHOT_SUFFIX)).findFirst().orElseThrow();
+        }
+        assertTrue(snapshot.getFileName().toString().startsWith("%2E.%2Fescape."), "The name should be encoded.");
+        Files.copy(snapshot, tempDir.resolve("%2E.%2Fescape.99" + CartJournal.SNAPSHOT_SUFFIX));
+        Files.writeString(tempDir.resolve("%2E.%2Fescape.100" + CartJournal.SNAPSHOT_SUFFIX),
+                "{\"cartName\":\"x\",\"realItems\":[{\"name\":\"Bad\",\"price\":1.0,\"quantity\":\"many\"}]}",
+                StandardCharsets.UTF_8);
+
+        try (JournaledCart cart = journal.open("../escape")) {
+            assertEquals(1, cart.getRealItemCount(), "A snapshot with a bad quantity should be skipped.");
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package parser;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import shop.Cart;
+import shop.RealItem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the caching CartRepository.
+ */
+class CartRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private CountingParser parser;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        parser = new CountingParser(tempDir);
+        for (String name : List.of("first", "second", "third")) {
+            parser.write(cart(name, 10.0));
+        }
+    }
+
+    private static Cart cart(String name, double price) {
+        Cart cart = new Cart(name);
+        RealItem item = new RealItem();
+        item.setName("Item");
+        item.setPrice(price);
+        cart.addRealItem(item);
+        return cart;
+    }
+
+    /**
+     * Verifies that repeated lookups are served from the cache.
+     * ★★★★★ - Essential, avoiding repeated parsing is the purpose of the repository.
+     */
+    @Test
+    void testRepeatedLookupsHitCache() {
+        CartRepository repository = new CartRepository(parser, 10);
+
+        Cart first = repository.get("first");
+        Cart again = repository.get("first");
+
+        assertSame(first, again, "The cached cart should be returned.");
+        assertEquals(1, parser.reads.get(), "The file should be parsed once.");
+        assertEquals(1, repository.getHitCount());
+        assertEquals(1, repository.getMissCount());
+    }
+
+    /**
+     * Verifies that a changed file is parsed again.
+     * ★★★★★ - Critical so callers never see stale carts after a write.
+     */
+    @Test
+    void testModifiedFileIsReloaded() throws IOException {
+        CartRepository repository = new CartRepository(parser, 10);
+        repository.get("first");
+
+        parser.write(cart("first", 20.0));
+        File file = parser.fileFor("first");
+        assertTrue(file.setLastModified(file.lastModified() + 2000));
+
+        assertEquals(24.0, repository.get("first").getTotalPrice(), 0.0001, "The new content should be loaded.");
+        assertEquals(2, parser.reads.get());
+        assertEquals(1, repository.getInvalidationCount());
+    }
+
+    /**
+     * Verifies least-recently-used eviction by entry count and by bytes.
+     * ★★★★☆ - Important to keep memory bounded.
+     */
+    @Test
+    void testEvictsLeastRecentlyUsed() {
+        CartRepository repository = new CartRepository(parser, 2);
+        repository.get("first");
+        repository.get("second");
+        repository.get("first");
+        repository.get("third");
+
+        assertEquals(2, repository.size());
+        assertEquals(1, repository.getEvictionCount());
+        repository.get("first");
+        assertEquals(3, parser.reads.get(), "The recently used cart should have stayed cached.");
+
+        long oneFile = parser.fileFor("second").length();
+        CartRepository byBytes = new CartRepository(parser, 10, oneFile);
+        byBytes.get("first");
+        byBytes.get("second");
+        assertEquals(1, byBytes.size(), "Only one file fits into the byte budget.");
+    }
+
+    /**
+     * Verifies that concurrent misses for the same cart trigger a single parse.
+     * ★★★★☆ - Important for hot carts requested by many threads at once.
+     */
+    @Test
+    void testConcurrentMissesParseOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        parser.gate = release;
+        CartRepository repository = new CartRepository(parser, 10);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Cart>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> repository.get("second")));
+            }
+            assertTrue(parser.started.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100); // let the other threads queue up behind the first parse
+            release.countDown();
+
+            Cart expected = results.get(0).get();
+            for (Future<Cart> result : results) {
+                assertSame(expected, result.get());
+            }
+            assertEquals(1, parser.reads.get(), "Concurrent misses should share one parse.");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Verifies that a missing cart raises NoSuchFileException and is not cached.
+     * ★★★☆☆ - Keeps the parser's error contract.
+     */
+    @Test
+    void testMissingCart() {
+        CartRepository repository = new CartRepository(parser, 10);
+        assertThrows(NoSuchFileException.class, () -> repository.get("missing"));
+        assertEquals(0, repository.size());
+    }
+
+    /**
+     * JsonParser reading and writing in a temporary directory, counting parses.
+     */
+    private static class CountingParser implements Parser {
+
+        private final JsonParser jsonParser = new JsonParser();
+        private final Path directory;
+        private final AtomicInteger reads = new AtomicInteger();
+        private final CountDownLatch started = new CountDownLatch(1);
+        private volatile CountDownLatch gate;
+
+        CountingParser(Path directory) {
+            this.directory = directory;
+        }
+
+        void write(Cart cart) throws IOException {
+            jsonParser.writeToFile(cart, fileFor(cart.getCartName()), false);
+        }
+
+        @Override
+        public void writeToFile(Cart cart) {
+            try {
+                write(cart);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public Cart readFromFile(File file) {
+            reads.incrementAndGet();
+            started.countDown();
+            if (gate != null) {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return jsonParser.readFromFile(file);
+        }
+
+        @Override
+        public File fileFor(String cartName) {
+            return directory.resolve(cartName + ".json").toFile();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import shop.Cart;
+import shop.RealItem;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the pluggable cart storage backends.
+ */
+class CartStorageTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static Cart cart(String name) {
+        Cart cart = new Cart(name);
+        RealItem item = new RealItem();
+        item.setName("Item");
+        item.setPrice(10.0);
+        item.setWeight(2.0);
+        cart.addRealItem(item);
+        return cart;
+    }
+
+    /**
+     * Verifies that encoded names are plain file names and decode back to the original.
+     * ★★★★★ - Essential, names like "special:char?*cart" must work on every file system.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"special:char?*cart", "andrew-cart", ".hidden", "a/b\\c", "käse 100%", "日本"})
+    void testPercentCodecRoundTrip(String name) {
+        String encoded = NameCodec.PERCENT.encode(name);
+
+        assertAll("Encoded name " + encoded,
+                () -> assertTrue(encoded.matches("[A-Za-z0-9_%.-]+"), "Only portable characters should remain."),
+                () -> assertFalse(encoded.startsWith("."), "Encoded names should never be hidden."),
+                () -> assertEquals(name, NameCodec.PERCENT.decode(encoded), "Decoding should restore the name."));
+    }
+
+    /**
+     * Verifies that the default parser still finds existing files with plain names.
+     * ★★★★☆ - Important so existing cart files keep loading.
+     */
+    @Test
+    void testDefaultStorageKeepsLegacyNames() {
+        assertEquals(Path.of("src/main/resources/andrew-cart.json").toFile(), new JsonParser().fileFor("andrew-cart"));
+        assertEquals("andrew-cart", new JsonParser().readCart("andrew-cart").getCartName());
+    }
+
+    /**
+     * Verifies a parser round trip through a file system root with safe names.
+     * ★★★★★ - Critical, the storage root must be configurable.
+     */
+    @Test
+    void testFileSystemStorageUsesRootAndEncodesNames() throws IOException {
+        JsonParser jsonParser = new JsonParser(new FileSystemStorage(tempDir));
+        jsonParser.writeToFile(cart("special:char?*cart"));
+
+        assertTrue(Files.exists(tempDir.resolve("special%3Achar%3F%2Acart.json")), "The file name should be encoded.");
+        assertEquals(12.0, jsonParser.readCart("special:char?*cart").getTotalPrice(), 0.0001);
+        assertEquals(List.of("special:char?*cart.json"), jsonParser.getStorage().keys());
+    }
+
+    /**
+     * Verifies that files written under raw names are read, listed and moved to encoded names.
+     * ★★★★☆ - Important, the default parser encodes names but old files must not be lost.
+     */
+    @Test
+    void testLegacyNamesAreReadAndMigrated() throws IOException {
+        Files.copy(Path.of("src/main/resources/andrew-cart.json"), tempDir.resolve("special:char?*cart.json"));
+        FileSystemStorage storage = new FileSystemStorage(tempDir, NameCodec.PERCENT, NameCodec.IDENTITY);
+        JsonParser jsonParser = new JsonParser(storage);
+
+        assertAll("Legacy file",
+                () -> assertEquals("andrew-cart", jsonParser.readCart("special:char?*cart").getCartName()),
+                () -> assertEquals(List.of("special:char?*cart.json"), storage.keys()),
+                () -> assertTrue(jsonParser.length("special:char?*cart") > 0));
+
+        jsonParser.writeToFile(cart("special:char?*cart"));
+        assertAll("After rewriting",
+                () -> assertTrue(Files.exists(tempDir.resolve("special%3Achar%3F%2Acart.json"))),
+                () -> assertFalse(Files.exists(tempDir.resolve("special:char?*cart.json")), "The legacy file should be replaced."),
+                () -> assertEquals("special:char?*cart", jsonParser.readCart("special:char?*cart").getCartName()),
+                () -> assertEquals(tempDir, storage.pathOf("../escape").getParent(), "A legacy name must not lead out of the root."));
+    }
+
+    /**
+     * Verifies that the sharded backend spreads carts over subdirectories and finds them again.
+     * ★★★★☆ - Important for stores with millions of carts.
+     */
+    @Test
+    void testShardedStorageSpreadsFiles() throws IOException {
+        ShardedFileSystemStorage storage = new ShardedFileSystemStorage(tempDir);
+        JsonParser jsonParser = new JsonParser(storage);
+        jsonParser.setAtomicWrites(true);
+        Set<Path> shards = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            jsonParser.writeToFile(cart("cart-" + i));
+            Path file = jsonParser.fileFor("cart-" + i).toPath();
+            assertEquals(tempDir, file.getParent().getParent().getParent(), "Files should sit two levels deep.");
+            shards.add(file.getParent());
+        }
+
+        assertTrue(shards.size() > 40, "Names should be spread over many directories.");
+        assertEquals(50, storage.keys().size());
+        assertEquals("cart-7", jsonParser.readCart("cart-7").getCartName());
+        assertThrows(NoSuchFileException.class, () -> jsonParser.readCart("missing"));
+    }
+
+    /**
+     * Verifies that both parsers and the repository work against memory only.
+     * ★★★★☆ - Important so tests and short-lived carts need no disk.
+     */
+    @Test
+    void testInMemoryStorage() {
+        InMemoryStorage storage = new InMemoryStorage();
+        JsonParser jsonParser = new JsonParser(storage);
+        BinaryParser binaryParser = new BinaryParser(storage);
+        jsonParser.writeToFile(cart("memory"));
+        binaryParser.writeToFile(cart("memory"));
+
+        assertEquals(Set.of("memory.json", "memory.cart"), Set.copyOf(storage.keys()));
+        assertEquals(12.0, binaryParser.readCart("memory").getTotalPrice(), 0.0001);
+        assertThrows(UnsupportedOperationException.class, () -> jsonParser.fileFor("memory"));
+
+        CartRepository repository = new CartRepository(jsonParser, 10);
+        Cart first = repository.get("memory");
+        assertSame(first, repository.get("memory"), "Unchanged entries should be served from the cache.");
+        repository.save(cart("memory"));
+        assertNotSame(first, repository.get("memory"), "A rewritten entry should be read again.");
+        assertThrows(NoSuchFileException.class, () -> repository.get("missing"));
+    }
+}
@@ -0,0 +1,131 @@
+package parser;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import shop.Cart;
+import shop.RealItem;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for gzip-compressed cart files.
+ */
+class CompressedCartTest {
+
+    @TempDir
+    Path tempDir;
+
+    private JsonParser jsonParser;
+    private Cart testCart;
+
+    @BeforeEach
+    void setUp() {
+        jsonParser = new JsonParser(new FileSystemStorage(tempDir));
+        testCart = new Cart("compressed-cart");
+        for (int i = 0; i < 500; i++) {
+            RealItem item = new RealItem();
+            item.setName("Chair " + i);
+            item.setPrice(25.5);
+            item.setWeight(4.0);
+            testCart.addRealItem(item);
+        }
+    }
+
+    /**
+     * Verifies that a compressed cart is valid gzip, much smaller than plain JSON and reads back.
+     * ★★★★★ - Essential, the space saving is the purpose of compression.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {-1, 1, 9})
+    void testCompressedRoundTrip(int level) throws IOException {
+        jsonParser.writeToFile(testCart);
+        long plainSize = jsonParser.fileFor("compressed-cart").length();
+
+        jsonParser.setCompressed(true);
+        jsonParser.setCompressionLevel(level);
+        jsonParser.writeToFile(testCart);
+        File file = jsonParser.fileFor("compressed-cart");
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file.toPath()))) {
+            assertTrue(new String(in.readAllBytes()).startsWith("{\"cartName\":\"compressed-cart\""),
+                    "The file should be standard gzip around the usual JSON.");
+        }
+        assertTrue(file.length() * 5 < plainSize, "Repetitive carts should compress well.");
+        Cart readCart = jsonParser.readCart("compressed-cart");
+        assertAll("Compressed cart should read back",
+                () -> assertEquals(500, readCart.getRealItemCount()),
+                () -> assertEquals(testCart.getTotalPrice(), readCart.getTotalPrice(), 0.001));
+    }
+
+    /**
+     * Verifies that plain and compressed files are told apart regardless of the write setting.
+     * ★★★★★ - Critical so existing plain archives stay readable after switching compression on.
+     */
+    @Test
+    void testReadDetectsFormat() {
+        jsonParser.writeToFile(testCart);
+        jsonParser.setCompressed(true);
+        File plain = jsonParser.fileFor("compressed-cart");
+        assertEquals(500, jsonParser.readFromFile(plain).getRealItemCount(), "Plain files should still be read.");
+
+        jsonParser.writeToFile(testCart);
+        JsonParser plainParser = new JsonParser(jsonParser.getStorage());
+        plainParser.setMappedReadThreshold(0);
+        assertEquals(500, plainParser.readCart("compressed-cart").getRealItemCount(),
+                "Compressed files should be read by a parser that writes plain JSON, even above the mapping threshold.");
+    }
+
+    /**
+     * Verifies that zstd files are recognized and rejected with a clear error.
+     * ★★☆☆☆ - Edge case, avoids a confusing JSON syntax error for an unsupported format.
+     */
+    @Test
+    void testZstdIsReported() throws IOException {
+        Path file = tempDir.resolve("zstd-cart.json");
+        Files.write(file, new byte[]{0x28, (byte) 0xB5, 0x2F, (byte) 0xFD, 0, 0});
+
+        CartFormatException exception = assertThrows(CartFormatException.class, () -> jsonParser.readFromFile(file.toFile()));
+        assertTrue(exception.getMessage().contains("Zstandard"));
+    }
+
+    /**
+     * Verifies that invalid levels are rejected.
+     * ★★☆☆☆ - Edge case for configuration errors.
+     */
+    @Test
+    void testInvalidLevel() {
+        assertThrows(IllegalArgumentException.class, () -> jsonParser.setCompressionLevel(10));
+    }
+
+    /**
+     * Verifies that a truncated gzip header fails without leaking the input and that plain
+     * input is reported as uncompressed.
+     * ★★★★☆ - Important, a corrupt file must not keep a file handle open.
+     */
+    @Test
+    void testTruncatedGzipClosesInput() throws IOException {
+        boolean[] closed = new boolean[1];
+        InputStream truncated = new ByteArrayInputStream(new byte[]{0x1F, (byte) 0x8B, 8}) {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+
+        assertThrows(IOException.class, () -> CompressedStreams.open(truncated));
+        assertTrue(closed[0], "The input should be closed when decompression cannot start.");
+        assertEquals(CompressedStreams.Compression.NONE,
+                CompressedStreams.open(new ByteArrayInputStream("{}".getBytes())).compression());
+    }
+}
@@ -0,0 +1,91 @@
+package parser;
+
+import com.google.gson.JsonSyntaxException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import shop.Cart;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the streaming read path of JsonParser, covering documents that span
+ * several lines, unusual field order and malformed input.
+ */
+class JsonParserStreamingTest {
+
+    private JsonParser jsonParser;
+
+    @BeforeEach
+    void setUp() {
+        jsonParser = new JsonParser();
+    }
+
+    /**
+     * Verifies that a pretty-printed cart spread over many lines is fully parsed.
+     * ★★★★★ - Essential, the old single readLine() implementation failed on such files.
+     */
+    @Test
+    void testReadMultiLineFile() {
+        Cart cart = jsonParser.readFromFile(new File("src/test/resources/multi-line-cart.json"));
+
+        assertAll("Verifying Cart loaded from multi-line-cart.json",
+                () -> assertEquals("multi-line-cart", cart.getCartName(), "Cart name should match JSON file."),
+                () -> assertEquals(330.0, cart.getTotalPrice(), 0.01, "Total price should be derived from both items.")
+        );
+    }
+
+    /**
+     * Verifies that items listed before the cart name are still added to the cart.
+     * ★★★★☆ - Important because JSON objects do not guarantee field order.
+     */
+    @Test
+    void testReadItemsBeforeCartName() throws IOException {
+        String json = "{\"realItems\":[{\"weight\":1.0,\"name\":\"Chair\",\"price\":100.0}],"
+                + "\"virtualItems\":[{\"sizeOnDisk\":2.0,\"name\":\"E-book\",\"price\":50.0}],"
+                + "\"cartName\":\"reordered-cart\"}";
+
+        Cart cart = jsonParser.read(new StringReader(json));
+
+        assertEquals("reordered-cart", cart.getCartName(), "Cart name should be read regardless of position.");
+        assertEquals(180.0, cart.getTotalPrice(), 0.01, "Items read before the cart name must be counted.");
+    }
+
+    /**
+     * Verifies that unknown fields on the cart and on items are skipped.
+     * ★★★☆☆ - Useful for forward compatibility with richer exports.
+     */
+    @Test
+    void testReadSkipsUnknownFields() throws IOException {
+        String json = "{\"cartName\":\"extra\",\"extraField\":{\"nested\":[1,2]},"
+                + "\"realItems\":[{\"name\":\"Lamp\",\"price\":10.0,\"color\":\"red\"}]}";
+
+        Cart cart = jsonParser.read(new StringReader(json));
+
+        assertEquals(12.0, cart.getTotalPrice(), 0.01, "Unknown fields should not affect the parsed cart.");
+    }
+
+    /**
+     * Verifies that a document truncated in the middle of an item array is reported as a syntax error.
+     * ★★★★☆ - Important so that partially written files are not silently accepted.
+     */
+    @Test
+    void testReadTruncatedDocument() {
+        String json = "{\"cartName\":\"broken\",\"realItems\":[{\"name\":\"Lamp\",";
+
+        assertThrows(JsonSyntaxException.class, () -> jsonParser.read(new StringReader(json)),
+                "A truncated document should raise JsonSyntaxException.");
+    }
+
+    /**
+     * Verifies that an empty document yields no cart, matching the previous behaviour.
+     * ★★☆☆☆ - Edge case for empty files.
+     */
+    @Test
+    void testReadEmptyDocument() throws IOException {
+        assertNull(jsonParser.read(new StringReader("")), "An empty document should produce no cart.");
+    }
+}
@@ -112,10 +112,12 @@ class JsonParserTestAdvanced {
     @Test
     void testHandlingSpecialCharactersInCartName() {
         Cart specialCharCart = new Cart("special:char?*cart");
-        String filename = RESOURCES_PATH + specialCharCart.getCartName() + ".json";
+        String filename = RESOURCES_PATH + "special%3Achar%3F%2Acart.json";
         assertDoesNotThrow(() -> jsonParser.writeToFile(specialCharCart), "Writing should not throw despite special characters in name.");
         assertTrue(Files.exists(Paths.get(filename)),
                 "File should exist, with special characters handled in the name.");
+        assertEquals("special:char?*cart", jsonParser.readCart("special:char?*cart").getCartName(),
+                "The cart should be found again by its original name.");
     }
 
     /**
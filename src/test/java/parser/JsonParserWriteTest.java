@@ -0,0 +1,213 @@
+package parser;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import shop.Cart;
+import shop.RealItem;
+import shop.VirtualItem;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the streaming write path of JsonParser.
+ */
+class JsonParserWriteTest {
+
+    @TempDir
+    Path tempDir;
+
+    private JsonParser jsonParser;
+    private Cart testCart;
+
+    @BeforeEach
+    void setUp() {
+        jsonParser = new JsonParser();
+        testCart = new Cart("write-cart");
+
+        RealItem car = new RealItem();
+        car.setName("Audi");
+        car.setPrice(32026.9);
+        car.setWeight(1560);
+
+        VirtualItem os = new VirtualItem();
+        os.setName("Windows");
+        os.setPrice(11.0);
+        os.setSizeOnDisk(20000);
+
+        testCart.addRealItem(car);
+        testCart.addVirtualItem(os);
+    }
+
+    /**
+     * Verifies that the streamed output keeps the layout of the existing cart files.
+     * ★★★★★ - Essential so files written by older versions and new ones stay interchangeable.
+     */
+    @Test
+    void testWriteKeepsExistingLayout() throws IOException {
+        StringWriter out = new StringWriter();
+        jsonParser.write(testCart, out);
+
+        assertEquals("{\"cartName\":\"write-cart\","
+                        + "\"realItems\":[{\"weight\":1560.0,\"name\":\"Audi\",\"price\":32026.9}],"
+                        + "\"virtualItems\":[{\"sizeOnDisk\":20000.0,\"name\":\"Windows\",\"price\":11.0}],"
+                        + "\"total\":" + testCart.getTotalPrice() + "}",
+                out.toString(), "Streamed JSON should match the established file layout.");
+    }
+
+    /**
+     * Verifies that items without a name are written without the field, as Gson did.
+     * ★★★☆☆ - Useful to keep null handling unchanged.
+     */
+    @Test
+    void testWriteOmitsNullNames() throws IOException {
+        Cart cart = new Cart("nameless");
+        RealItem item = new RealItem();
+        item.setPrice(1.0);
+        cart.addRealItem(item);
+
+        StringWriter out = new StringWriter();
+        jsonParser.write(cart, out);
+
+        assertFalse(out.toString().contains("\"name\""), "Null names should not be serialized.");
+    }
+
+    /**
+     * Verifies a round trip through a file with and without fsync.
+     * ★★★★★ - Critical for the durability option to be a pure performance trade-off.
+     */
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void testWriteAndReadBack(boolean fsync) throws IOException {
+        File file = tempDir.resolve("write-cart.json").toFile();
+        jsonParser.writeToFile(testCart, file, fsync);
+
+        Cart readCart = jsonParser.readFromFile(file);
+        assertAll("Cart should survive a streamed round trip",
+                () -> assertEquals(testCart.getCartName(), readCart.getCartName(), "Cart names must match."),
+                () -> assertEquals(testCart.getTotalPrice(), readCart.getTotalPrice(), 0.001, "Total prices must match.")
+        );
+    }
+
+    /**
+     * Verifies that a file holds the items as they were added, so they add up to its stored total.
+     * ★★★★☆ - Important, the stored total is handed out by lazy reads without parsing the items.
+     */
+    @Test
+    void testWriteUsesFieldsAsAdded() throws IOException {
+        File file = tempDir.resolve("write-cart.json").toFile();
+        double total = testCart.getTotalPrice();
+        testCart.getRealItems().iterator().next().setPrice(1.0);
+        jsonParser.writeToFile(testCart, file, false);
+
+        assertEquals(total, jsonParser.readFromFile(file).getTotalPrice(), 0.001);
+        assertEquals(total, jsonParser.readLazily(file).getTotalPrice(), 0.001);
+    }
+
+    /**
+     * Verifies that rewriting a file with a smaller cart truncates the old content.
+     * ★★★★☆ - Important, leftover bytes would corrupt the document.
+     */
+    @Test
+    void testWriteTruncatesPreviousContent() throws IOException {
+        File file = tempDir.resolve("write-cart.json").toFile();
+        jsonParser.writeToFile(testCart, file, false);
+        jsonParser.writeToFile(new Cart("small"), file, false);
+
+        assertEquals("{\"cartName\":\"small\",\"realItems\":[],\"virtualItems\":[],\"total\":0.0}",
+                Files.readString(file.toPath()), "The file should contain only the latest cart.");
+    }
+
+    /**
+     * Verifies that an atomic write replaces the file and leaves no temp files behind.
+     * ★★★★★ - Essential, the atomic mode must behave like a plain write apart from crash safety.
+     */
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void testAtomicWriteReplacesFile(boolean fsync) throws IOException {
+        jsonParser.setAtomicWrites(true);
+        File file = tempDir.resolve("write-cart.json").toFile();
+        jsonParser.writeToFile(testCart, file, fsync);
+        jsonParser.writeToFile(new Cart("small"), file, fsync);
+
+        assertEquals("{\"cartName\":\"small\",\"realItems\":[],\"virtualItems\":[],\"total\":0.0}",
+                Files.readString(file.toPath()), "The file should contain only the latest cart.");
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(1, files.count(), "No temp file should be left behind.");
+        }
+    }
+
+    /**
+     * Verifies that a write failing halfway leaves the previous file intact.
+     * ★★★★★ - Critical, this is the crash the atomic mode protects against.
+     */
+    @Test
+    void testFailedAtomicWriteKeepsOldFile() throws IOException {
+        jsonParser.setAtomicWrites(true);
+        File file = tempDir.resolve("write-cart.json").toFile();
+        jsonParser.writeToFile(testCart, file, false);
+        String before = Files.readString(file.toPath());
+
+        Cart failing = new Cart("write-cart") {
+            @Override
+            public double getTotalPrice() {
+                throw new IllegalStateException("crash while writing");
+            }
+        };
+        failing.addRealItem(testCart.getRealItems().iterator().next());
+        assertThrows(IllegalStateException.class, () -> jsonParser.writeToFile(failing, file, false));
+
+        assertEquals(before, Files.readString(file.toPath()), "The old content should be untouched.");
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(1, files.count(), "The temp file should be removed.");
+        }
+    }
+
+    /**
+     * Verifies that readers running concurrently with atomic writes never see a partial file.
+     * ★★★★☆ - Important, lock-free readers are what lets callers drop the parser-wide lock.
+     */
+    @Test
+    void testConcurrentReadersSeeCompleteCarts() throws Exception {
+        jsonParser.setAtomicWrites(true);
+        File file = tempDir.resolve("write-cart.json").toFile();
+        jsonParser.writeToFile(testCart, file, false);
+
+        AtomicBoolean done = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 200; i++) {
+                    Cart cart = new Cart("write-cart");
+                    for (int j = 0; j <= i % 20; j++) {
+                        cart.addRealItem(testCart.getRealItems().iterator().next());
+                    }
+                    jsonParser.writeToFile(cart, file, false);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                done.set(true);
+            }
+        });
+        writer.start();
+        JsonParser reader = new JsonParser();
+        int reads = 0;
+        while (!done.get() || reads == 0) {
+            Cart cart = reader.readFromFile(file);
+            assertNotNull(cart, "Every read should see a complete cart.");
+            assertEquals("write-cart", cart.getCartName());
+            reads++;
+        }
+        writer.join();
+    }
+}
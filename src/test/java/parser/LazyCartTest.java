@@ -0,0 +1,154 @@
+package parser;
+
+import com.google.gson.JsonSyntaxException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import shop.Cart;
+import shop.PricingEngine;
+import shop.RealItem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for lazily loaded carts.
+ */
+class LazyCartTest {
+
+    @TempDir
+    Path tempDir;
+
+    private JsonParser jsonParser;
+    private Cart testCart;
+
+    @BeforeEach
+    void setUp() {
+        jsonParser = new JsonParser(new FileSystemStorage(tempDir));
+        testCart = new Cart("lazy-cart");
+        for (int i = 0; i < 2000; i++) {
+            RealItem item = new RealItem();
+            item.setName("Item " + i);
+            item.setPrice(2.5);
+            item.setWeight(1.0);
+            testCart.addRealItem(item);
+        }
+        jsonParser.writeToFile(testCart);
+    }
+
+    /**
+     * Verifies that name and total are available without parsing the items.
+     * ★★★★★ - Essential, this is the dashboard use case the lazy mode exists for.
+     */
+    @Test
+    void testHeaderWithoutItems() throws IOException {
+        // damage the middle of the item array; a lazy read must not notice
+        File file = jsonParser.fileFor("lazy-cart");
+        String json = Files.readString(file.toPath());
+        int separator = json.indexOf("},{", json.length() / 2);
+        Files.writeString(file.toPath(), json.substring(0, separator) + "}@{" + json.substring(separator + 3),
+                StandardCharsets.UTF_8);
+
+        LazyCart cart = jsonParser.readLazily(file);
+
+        assertAll("Lazy header",
+                () -> assertEquals("lazy-cart", cart.getCartName()),
+                () -> assertEquals(testCart.getTotalPrice(), cart.getTotalPrice(), 0.0001),
+                () -> assertFalse(cart.isLoaded(), "Items should not have been parsed."));
+        assertThrows(JsonSyntaxException.class, cart::getRealItems, "The damage shows once items are parsed.");
+    }
+
+    /**
+     * Verifies that the first item access loads the cart, which then behaves like a plain one.
+     * ★★★★★ - Critical, callers must not be able to tell a lazy cart from an eager one.
+     */
+    @Test
+    void testItemsLoadOnFirstAccess() {
+        LazyCart cart = jsonParser.readCartLazily("lazy-cart");
+
+        assertEquals(2000, cart.getRealItemCount());
+        assertTrue(cart.isLoaded());
+        cart.deleteRealItem(cart.findRealItem("Item 0"));
+        assertEquals(testCart.getTotalPrice() - 3.0, cart.getTotalPrice(), 0.0001, "Edits should change the total.");
+    }
+
+    /**
+     * Verifies the fallback scan for compressed files and other layouts.
+     * ★★★★☆ - Important, the lazy mode must work for every file the parser can read.
+     */
+    @Test
+    void testFallbackScan() throws IOException {
+        jsonParser.setCompressed(true);
+        jsonParser.writeToFile(testCart);
+        LazyCart compressed = jsonParser.readCartLazily("lazy-cart");
+        assertEquals(testCart.getTotalPrice(), compressed.getTotalPrice(), 0.0001);
+        assertFalse(compressed.isLoaded());
+
+        Path reordered = tempDir.resolve("reordered.json");
+        Files.writeString(reordered, "{\"total\":6.0,\"realItems\":[{\"name\":\"A\",\"price\":5.0}],\"cartName\":\"reordered\"}");
+        LazyCart cart = jsonParser.readLazily(reordered.toFile());
+        assertEquals("reordered", cart.getCartName());
+        assertEquals(6.0, cart.getTotalPrice(), 0.0001);
+    }
+
+    /**
+     * Verifies that a file without a stored total computes it from the items.
+     * ★★★☆☆ - Useful for carts written by other tools.
+     */
+    @Test
+    void testMissingTotalLoadsItems() {
+        LazyCart cart = new JsonParser().readLazily(new File("src/main/resources/additional-fields.json"));
+
+        assertEquals("extra-cart", cart.getCartName());
+        assertEquals(0.0, cart.getTotalPrice(), 0.0001);
+        assertTrue(cart.isLoaded());
+    }
+
+    /**
+     * Verifies that missing files fail as with an eager read.
+     * ★★★☆☆ - Keeps the parser's error contract.
+     */
+    @Test
+    void testMissingFile() {
+        assertThrows(NoSuchFileException.class, () -> jsonParser.readCartLazily("missing"));
+    }
+
+    /**
+     * Verifies that a cart written with custom pricing gives the same total before and after loading.
+     * ★★★★☆ - Important, a getter must not change its answer as a side effect of another one.
+     */
+    @Test
+    void testCustomPricedTotalIsNotTrusted() {
+        testCart.setPricingEngine((item, quantity) -> PricingEngine.STANDARD.price(item, quantity * 2));
+        jsonParser.writeToFile(testCart);
+
+        for (LazyCart cart : new LazyCart[]{jsonParser.readCartLazily("lazy-cart"), jsonParser.readLazily(jsonParser.fileFor("lazy-cart"))}) {
+            double before = cart.getTotalPrice();
+            assertTrue(cart.isLoaded(), "A custom-priced total should be recomputed from the items.");
+            assertEquals(before, cart.getTotalPrice(), "The total should not change once the items are loaded.");
+            assertEquals(6000.0, before, 0.0001, "Loaded carts are priced with the standard engine.");
+        }
+    }
+
+    /**
+     * Verifies that a file replaced between reading the header and loading the items is not mixed with the old header.
+     * ★★★★☆ - Important, the stored total handed out must belong to the items loaded.
+     */
+    @Test
+    void testReplacedFileFailsToLoad() throws IOException {
+        File file = jsonParser.fileFor("lazy-cart");
+        LazyCart cart = jsonParser.readLazily(file);
+        long modified = file.lastModified();
+        Cart other = new Cart("lazy-cart");
+        jsonParser.writeToFile(other);
+        assertTrue(file.setLastModified(modified + 2000));
+
+        assertThrows(IllegalStateException.class, cart::getRealItems);
+        assertFalse(cart.isLoaded());
+    }
+}
@@ -0,0 +1,102 @@
+package parser;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import shop.Cart;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the memory-mapped read path of JsonParser.
+ */
+class MappedReadTest {
+
+    private static final String UNICODE_CART = "{\"cartName\":\"unicode-cart\",\"realItems\":"
+            + "[{\"weight\":1.0,\"name\":\"Größe ☕ 😀\",\"price\":10.0}],\"virtualItems\":[],\"total\":12.0}";
+
+    @TempDir
+    Path tempDir;
+
+    private JsonParser jsonParser;
+
+    @BeforeEach
+    void setUp() {
+        jsonParser = new JsonParser();
+        jsonParser.setMappedReadThreshold(0);
+    }
+
+    /**
+     * Verifies that an existing cart file is read correctly through the mapped path.
+     * ★★★★★ - Essential, both read paths must produce the same cart.
+     */
+    @Test
+    void testReadThroughMapping() {
+        Cart cart = jsonParser.readFromFile(new File("src/main/resources/andrew-cart.json"));
+
+        assertEquals("andrew-cart", cart.getCartName(), "Cart name should match JSON file.");
+        assertEquals(38445.48, cart.getTotalPrice(), 0.01, "Total price should match the expected value from JSON.");
+    }
+
+    /**
+     * Verifies that multi-byte characters survive being split across mapped regions.
+     * ★★★★☆ - Important for carts larger than a single mapping.
+     */
+    @ParameterizedTest
+    @ValueSource(longs = {1, 5, 7, 64, 1 << 20})
+    void testDecodeAcrossRegionBoundaries(long regionSize) throws IOException {
+        Path file = tempDir.resolve("unicode-cart.json");
+        Files.writeString(file, UNICODE_CART, StandardCharsets.UTF_8);
+
+        StringBuilder decoded = new StringBuilder();
+        try (Reader reader = new MappedFileReader(file, regionSize)) {
+            char[] buffer = new char[3];
+            int read;
+            while ((read = reader.read(buffer, 0, buffer.length)) != -1) {
+                decoded.append(buffer, 0, read);
+            }
+        }
+
+        assertEquals(UNICODE_CART, decoded.toString(), "Decoded text should match the file for any region size.");
+    }
+
+    /**
+     * Verifies that single-char reads return both halves of a surrogate pair.
+     * ★★☆☆☆ - Edge case for callers that read one char at a time.
+     */
+    @Test
+    void testSingleCharReads() throws IOException {
+        Path file = tempDir.resolve("emoji.txt");
+        Files.writeString(file, "a😀b", StandardCharsets.UTF_8);
+
+        StringBuilder decoded = new StringBuilder();
+        try (Reader reader = new MappedFileReader(file, 4)) {
+            int c;
+            while ((c = reader.read()) != -1) {
+                decoded.append((char) c);
+            }
+        }
+
+        assertEquals("a😀b", decoded.toString(), "Surrogate pairs should be returned one char at a time.");
+    }
+
+    /**
+     * Verifies that a missing file still raises NoSuchFileException on the mapped path.
+     * ★★★★☆ - Important so the error contract does not depend on the read mode.
+     */
+    @Test
+    void testMissingFile() {
+        File missing = tempDir.resolve("missing.json").toFile();
+        assertThrows(NoSuchFileException.class, () -> jsonParser.readFromFile(missing),
+                "Expected NoSuchFileException for non-existent file.");
+    }
+}
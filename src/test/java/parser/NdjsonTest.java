@@ -0,0 +1,108 @@
+package parser;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import shop.Cart;
+import shop.RealItem;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the NDJSON bulk format.
+ */
+class NdjsonTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+    private List<Cart> carts;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = tempDir.resolve("carts.ndjson");
+        carts = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Cart cart = new Cart("cart-" + i);
+            for (int j = 0; j < i % 7; j++) {
+                RealItem item = new RealItem();
+                item.setName(j == 0 ? "line\nbreak ☕" : "Item " + j);
+                item.setPrice(j + 1.0);
+                cart.addRealItem(item);
+            }
+            carts.add(cart);
+        }
+        try (NdjsonWriter writer = new NdjsonWriter(file)) {
+            writer.writeAll(carts);
+            assertEquals(100, writer.getCount());
+        }
+    }
+
+    private static List<String> names(Stream<Cart> carts) {
+        try (carts) {
+            return carts.map(Cart::getCartName).toList();
+        }
+    }
+
+    /**
+     * Verifies that carts come back in order with one line per cart.
+     * ★★★★★ - Essential for moving carts between services in one file.
+     */
+    @Test
+    void testRoundTrip() throws IOException {
+        assertEquals(100, Files.readAllLines(file).size(), "Each cart should take exactly one line.");
+        try (Stream<Cart> read = NdjsonReader.read(file)) {
+            List<Cart> readCarts = read.toList();
+            assertEquals(carts.stream().map(Cart::getCartName).toList(), readCarts.stream().map(Cart::getCartName).toList());
+            assertEquals(carts.get(13).getTotalPrice(), readCarts.get(13).getTotalPrice(), 0.0001);
+            assertNotNull(readCarts.get(13).findRealItem("line\nbreak ☕"), "Escaped line breaks should survive.");
+        }
+    }
+
+    /**
+     * Verifies that byte ranges together yield every cart exactly once, whatever the split.
+     * ★★★★★ - Critical, parallel readers must neither drop nor duplicate carts.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 7, 64, 100000})
+    void testSplitsCoverEveryCartOnce(int parts) throws IOException {
+        List<String> names = new ArrayList<>();
+        for (NdjsonReader.ByteRange range : NdjsonReader.split(file, parts)) {
+            names.addAll(names(NdjsonReader.read(file, range)));
+        }
+
+        assertEquals(carts.stream().map(Cart::getCartName).toList(), names);
+    }
+
+    /**
+     * Verifies the parallel reader.
+     * ★★★★☆ - Important, parallel reading is the point of splitting.
+     */
+    @Test
+    void testReadParallel() throws IOException {
+        assertEquals(100, names(NdjsonReader.readParallel(file, 4)).stream().distinct().count());
+    }
+
+    /**
+     * Verifies that a broken line is reported with its position.
+     * ★★★☆☆ - Useful to locate bad records in large exports.
+     */
+    @Test
+    void testMalformedLine() throws IOException {
+        Files.writeString(file, "{\"cartName\":\"ok\"}\n\n{broken\n");
+        try (Stream<Cart> read = NdjsonReader.read(file)) {
+            CartFormatException exception = assertThrows(CartFormatException.class, read::toList);
+            assertTrue(exception.getMessage().contains("byte 19"), exception.getMessage());
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package parser;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import metrics.InMemoryMetricsRegistry;
+import metrics.Metrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import shop.Cart;
+import shop.RealItem;
+import shop.VirtualItem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the metrics and Flight Recorder events of the parser and the carts.
+ */
+class ParserMetricsTest {
+
+    @TempDir
+    Path tempDir;
+
+    private InMemoryMetricsRegistry registry;
+    private JsonParser jsonParser;
+    private Cart testCart;
+
+    @BeforeEach
+    void setUp() {
+        registry = new InMemoryMetricsRegistry();
+        jsonParser = new JsonParser(new FileSystemStorage(tempDir));
+        jsonParser.setMetricsRegistry(registry);
+        testCart = new Cart("metrics-cart");
+        for (int i = 0; i < 10; i++) {
+            RealItem item = new RealItem();
+            item.setName("Item " + i);
+            item.setPrice(10.0);
+            item.setWeight(1.0);
+            testCart.addRealItem(item);
+        }
+    }
+
+    /**
+     * Verifies that reads and writes record latency, bytes and items.
+     * ★★★★★ - Essential, these are the numbers the metrics exist for.
+     */
+    @Test
+    void testReadAndWriteAreMeasured() {
+        jsonParser.writeToFile(testCart);
+        jsonParser.readCart("metrics-cart");
+        jsonParser.readCart("metrics-cart");
+        long size = jsonParser.fileFor("metrics-cart").length();
+
+        assertAll("Metrics after one write and two reads",
+                () -> assertEquals(1, registry.histogram("parser.json.write.latency").getCount()),
+                () -> assertEquals(size, registry.getCount("parser.json.write.bytes")),
+                () -> assertEquals(10, registry.getCount("parser.json.write.items")),
+                () -> assertEquals(2, registry.histogram("parser.json.read.latency").getCount()),
+                () -> assertTrue(registry.histogram("parser.json.read.latency").getMax() > 0, "Latency should be timed."),
+                () -> assertEquals(2 * size, registry.getCount("parser.json.read.bytes")),
+                () -> assertEquals(20, registry.getCount("parser.json.read.items")));
+    }
+
+    /**
+     * Verifies that the binary parser records its own metrics.
+     * ★★★★☆ - Important, both formats read and write carts in production.
+     */
+    @Test
+    void testBinaryParserIsMeasured() {
+        BinaryParser binaryParser = new BinaryParser(new FileSystemStorage(tempDir));
+        binaryParser.setMetricsRegistry(registry);
+        binaryParser.writeToFile(testCart);
+        binaryParser.readCart("metrics-cart");
+        long size = binaryParser.fileFor("metrics-cart").length();
+
+        assertThrows(NoSuchFileException.class, () -> binaryParser.readCart("missing"));
+        assertAll("Binary parser metrics",
+                () -> assertEquals(1, registry.histogram("parser.binary.write.latency").getCount()),
+                () -> assertEquals(size, registry.getCount("parser.binary.write.bytes")),
+                () -> assertEquals(10, registry.getCount("parser.binary.read.items")),
+                () -> assertEquals(1, registry.getCount("parser.binary.read.errors.NoSuchFileException")),
+                () -> assertEquals(0, registry.histogram("parser.json.read.latency").getCount(),
+                        "The formats should be told apart."));
+    }
+
+    /**
+     * Verifies that failures are counted by exception type.
+     * ★★★★☆ - Important for alerting on missing or corrupt carts.
+     */
+    @Test
+    void testErrorsAreCountedByType() throws IOException {
+        Files.writeString(tempDir.resolve("broken.json"), "{\"cartName\":\"broken\",\"realItems\":[{");
+
+        assertThrows(NoSuchFileException.class, () -> jsonParser.readCart("missing"));
+        assertThrows(RuntimeException.class, () -> jsonParser.readCart("broken"));
+
+        assertAll("Error counters",
+                () -> assertEquals(1, registry.getCount("parser.json.read.errors.FileNotFoundException")),
+                () -> assertEquals(1, registry.getCount("parser.json.read.errors.JsonSyntaxException")),
+                () -> assertEquals(0, registry.histogram("parser.json.read.latency").getCount(),
+                        "Failed reads should not count as reads."));
+    }
+
+    /**
+     * Verifies that parse and write events reach a Flight Recorder recording.
+     * ★★★★☆ - Important, the events tie slow reads to GC and I/O in the same recording.
+     */
+    @Test
+    void testFlightRecorderEvents() throws IOException {
+        jsonParser.setMetricsRegistry(null);
+        File file = tempDir.resolve("metrics-cart.json").toFile();
+        Path dump = tempDir.resolve("parser.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("parser.CartRead").withoutThreshold();
+            recording.enable("parser.CartWrite").withoutThreshold();
+            recording.start();
+            jsonParser.writeToFile(testCart, file, false);
+            jsonParser.readFromFile(file);
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        RecordedEvent write = events.stream().filter(e -> e.getEventType().getName().equals("parser.CartWrite")).findFirst().orElseThrow();
+        RecordedEvent read = events.stream().filter(e -> e.getEventType().getName().equals("parser.CartRead")).findFirst().orElseThrow();
+        assertAll("Recorded events",
+                () -> assertEquals("metrics-cart.json", write.getString("target")),
+                () -> assertEquals("parser.json", write.getString("parser")),
+                () -> assertEquals(file.length(), write.getLong("bytes")),
+                () -> assertEquals(10, read.getInt("items")),
+                () -> assertEquals(file.length(), read.getLong("bytes")));
+    }
+
+    /**
+     * Verifies that cart mutations are counted in the global registry once it is set.
+     * ★★★☆☆ - Useful, shows how often carts change.
+     */
+    @Test
+    void testCartMutationsAreCounted() {
+        Metrics.setRegistry(registry);
+        try {
+            Cart cart = new Cart("counted");
+            RealItem realItem = new RealItem();
+            realItem.setName("Chair");
+            VirtualItem virtualItem = new VirtualItem();
+            virtualItem.setName("Game");
+            cart.setRealItemQuantity(realItem, 3);
+            cart.deleteRealItem(realItem);
+            cart.addVirtualItem(virtualItem);
+            cart.deleteVirtualItem(new VirtualItem());
+
+            assertAll("Cart counters",
+                    () -> assertEquals(3, registry.getCount("cart.real.added")),
+                    () -> assertEquals(1, registry.getCount("cart.real.removed")),
+                    () -> assertEquals(1, registry.getCount("cart.virtual.added")),
+                    () -> assertEquals(0, registry.getCount("cart.virtual.removed"), "Missing items should not count."));
+        } finally {
+            Metrics.setRegistry(null);
+        }
+    }
+
+    /**
+     * Verifies that carts read back from files do not count their items as added, while later changes count.
+     * ★★★☆☆ - Useful, otherwise every load looks like customers filling carts.
+     */
+    @Test
+    void testReadingCartsIsNotCountedAsAdded() {
+        jsonParser.writeToFile(testCart);
+        BinaryParser binaryParser = new BinaryParser(new FileSystemStorage(tempDir));
+        binaryParser.writeToFile(testCart);
+        Metrics.setRegistry(registry);
+        try {
+            Cart jsonCart = jsonParser.readCart("metrics-cart");
+            Cart binaryCart = binaryParser.readCart("metrics-cart");
+            long addedByReads = registry.getCount("cart.real.added");
+            jsonCart.addRealItem(jsonCart.getRealItems().iterator().next());
+
+            assertAll("Cart counters after reads",
+                    () -> assertEquals(10, binaryCart.getRealItemCount()),
+                    () -> assertEquals(0, addedByReads, "Parsed items should not count as added."),
+                    () -> assertEquals(1, registry.getCount("cart.real.added"), "Later adds should count."));
+        } finally {
+            Metrics.setRegistry(null);
+        }
+    }
+}
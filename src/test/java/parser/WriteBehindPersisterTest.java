@@ -0,0 +1,200 @@
+package parser;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import shop.Cart;
+import shop.RealItem;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the asynchronous write-behind persister.
+ */
+class WriteBehindPersisterTest {
+
+    private final RecordingParser parser = new RecordingParser();
+    private WriteBehindPersister persister;
+
+    @AfterEach
+    void tearDown() {
+        if (persister != null) {
+            persister.close();
+        }
+    }
+
+    private static Cart cart(String name) {
+        return new Cart(name);
+    }
+
+    /**
+     * Verifies that many saves of the same cart within a window produce one write of the latest state.
+     * ★★★★★ - Essential, coalescing is what reduces disk I/O.
+     */
+    @Test
+    void testRepeatedSavesAreCoalesced() throws InterruptedException {
+        persister = WriteBehindPersister.start(parser, Duration.ofHours(1), 10);
+        Cart cart = cart("busy-cart");
+        for (int i = 0; i < 100; i++) {
+            RealItem item = new RealItem();
+            item.setName("item-" + i);
+            item.setPrice(1.0);
+            cart.addRealItem(item);
+            persister.save(cart);
+        }
+        persister.flush();
+
+        assertEquals(1, parser.written.size(), "The cart should be written once.");
+        assertEquals(100, parser.written.get(0).getRealItemCount(), "The latest state should be written.");
+        assertEquals(100, persister.getSaveCount());
+    }
+
+    /**
+     * Verifies that the background thread writes pending carts after the window.
+     * ★★★★☆ - Important, callers should not need to flush explicitly.
+     */
+    @Test
+    void testBackgroundFlushAfterWindow() throws InterruptedException {
+        persister = WriteBehindPersister.start(parser, Duration.ofMillis(20), 10);
+        persister.save(cart("first"));
+        persister.save(cart("second"));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (persister.getWriteCount() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(2, persister.getWriteCount(), "Both carts should be written in the background.");
+        assertEquals(0, persister.getPendingCount());
+    }
+
+    /**
+     * Verifies that a full queue applies backpressure to new carts but still accepts queued ones.
+     * ★★★★☆ - Important to bound memory when the disk falls behind.
+     */
+    @Test
+    void testBackpressureWhenFull() throws InterruptedException {
+        persister = WriteBehindPersister.start(parser, Duration.ofHours(1), 1);
+        persister.save(cart("queued"));
+
+        assertTrue(persister.offer(cart("queued"), 0, TimeUnit.MILLISECONDS), "Replacing a queued cart needs no room.");
+        assertFalse(persister.offer(cart("other"), 50, TimeUnit.MILLISECONDS), "A new cart should wait for room.");
+
+        persister.flush();
+        assertTrue(persister.offer(cart("other"), 0, TimeUnit.MILLISECONDS), "Flushing should free the queue.");
+    }
+
+    /**
+     * Verifies that close writes everything still queued and rejects later saves.
+     * ★★★★★ - Critical so no final state is lost on shutdown.
+     */
+    @Test
+    void testCloseFlushesAndRejects() throws InterruptedException {
+        persister = WriteBehindPersister.start(parser, Duration.ofHours(1), 10);
+        persister.save(cart("last"));
+        persister.close();
+
+        assertEquals(List.of("last"), parser.written.stream().map(Cart::getCartName).toList());
+        assertThrows(IllegalStateException.class, () -> persister.save(cart("late")));
+    }
+
+    /**
+     * Verifies that a queued cart is a copy, unaffected by edits made after saving it.
+     * ★★★★★ - Critical, the caller keeps editing while the background thread writes.
+     */
+    @Test
+    void testSaveQueuesDetachedCopy() throws InterruptedException {
+        persister = WriteBehindPersister.start(parser, Duration.ofHours(1), 10);
+        Cart cart = cart("edited-cart");
+        RealItem item = new RealItem();
+        item.setName("Chair");
+        item.setPrice(10.0);
+        cart.addRealItem(item);
+        persister.save(cart);
+        cart.addRealItem(item);
+        item.setName("Renamed");
+        persister.flush();
+
+        Cart written = parser.written.get(0);
+        assertAll("Queued copy",
+                () -> assertEquals(1, written.getRealItemCount(), "Units added after saving should not be written."),
+                () -> assertEquals("Chair", written.getRealItems().iterator().next().getName()),
+                () -> assertNotSame(cart, written));
+    }
+
+    /**
+     * Verifies that a failed write is counted and retried instead of losing the cart.
+     * ★★★★★ - Critical, the final state must reach the disk once it works again.
+     */
+    @Test
+    void testFailedWriteIsRequeued() throws InterruptedException {
+        persister = WriteBehindPersister.start(parser, Duration.ofHours(1), 10);
+        parser.failures = 1;
+        persister.save(cart("unlucky-cart"));
+        persister.flush();
+
+        assertAll("After the failed write",
+                () -> assertEquals(1, persister.getFailureCount()),
+                () -> assertEquals(0, persister.getWriteCount()),
+                () -> assertEquals(1, persister.getPendingCount(), "The cart should be queued again."));
+
+        persister.flush();
+        assertEquals(List.of("unlucky-cart"), parser.written.stream().map(Cart::getCartName).toList());
+        assertEquals(0, persister.getPendingCount());
+    }
+
+    /**
+     * Verifies that an interrupted background thread makes saves fail instead of block, and close still writes the queue.
+     * ★★★★☆ - Important, a stopped writer must not hang its callers.
+     */
+    @Test
+    void testInterruptedWriterFailsSaves() throws InterruptedException {
+        persister = WriteBehindPersister.start(parser, Duration.ofHours(1), 1);
+        persister.save(cart("queued-cart"));
+        Thread flusher = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("cart-write-behind"))
+                .findFirst()
+                .orElseThrow();
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertAll("Stopped persister",
+                () -> assertFalse(flusher.isAlive()),
+                () -> assertThrows(IllegalStateException.class, () -> persister.save(cart("other-cart")), "A full queue should not block forever."),
+                () -> assertThrows(IllegalStateException.class, () -> persister.offer(cart("queued-cart"), 1, TimeUnit.SECONDS)));
+
+        persister.close();
+        assertEquals(List.of("queued-cart"), parser.written.stream().map(Cart::getCartName).toList());
+    }
+
+    private static class RecordingParser implements Parser {
+
+        private final List<Cart> written = new CopyOnWriteArrayList<>();
+        private volatile int failures;
+
+        @Override
+        public void writeCart(Cart cart) throws IOException {
+            if (failures > 0) {
+                failures--;
+                throw new IOException("Disk full");
+            }
+            writeToFile(cart);
+        }
+
+        @Override
+        public void writeToFile(Cart cart) {
+            written.add(cart);
+        }
+
+        @Override
+        public Cart readFromFile(File file) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
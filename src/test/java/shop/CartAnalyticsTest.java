@@ -0,0 +1,154 @@
+package shop;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the parallel cart analytics.
+ */
+class CartAnalyticsTest {
+
+    private static RealItem realItem(String name, double price, double weight) {
+        RealItem item = new RealItem();
+        item.setName(name);
+        item.setPrice(price);
+        item.setWeight(weight);
+        return item;
+    }
+
+    private static VirtualItem virtualItem(String name, double price, double sizeOnDisk) {
+        VirtualItem item = new VirtualItem();
+        item.setName(name);
+        item.setPrice(price);
+        item.setSizeOnDisk(sizeOnDisk);
+        return item;
+    }
+
+    private static List<Cart> randomCarts(int count) {
+        Random random = new Random(7);
+        List<Cart> carts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Cart cart = new Cart("cart-" + i);
+            for (int j = 0; j < random.nextInt(10); j++) {
+                cart.addRealItem(realItem("Real " + random.nextInt(20), random.nextInt(100000) / 100.0 + 0.1, random.nextDouble()));
+                cart.addVirtualItem(virtualItem("Virtual " + random.nextInt(20), 0.1 * random.nextInt(50), random.nextInt(1000)));
+            }
+            carts.add(cart);
+        }
+        return carts;
+    }
+
+    /**
+     * Verifies the aggregates on a small known set of carts.
+     * ★★★★★ - Essential, the numbers replace the hand-written loops.
+     */
+    @Test
+    void testAggregates() {
+        Cart first = new Cart("first");
+        first.addRealItem(realItem("Chair", 10.0, 4.0));
+        first.addRealItem(realItem("Chair", 10.0, 4.0));
+        first.addVirtualItem(virtualItem("Game", 5.0, 300));
+        Cart second = new Cart("second");
+        second.addRealItem(realItem("Desk", 100.0, 30.0));
+        second.addVirtualItem(virtualItem("Game", 5.0, 300));
+
+        CartStatistics statistics = CartAnalytics.analyze(List.of(first, second));
+
+        assertAll("Aggregates",
+                () -> assertEquals(2, statistics.getCartCount()),
+                () -> assertEquals(3, statistics.getRealItemCount()),
+                () -> assertEquals(2, statistics.getVirtualItemCount()),
+                () -> assertEquals(0, new BigDecimal("130").compareTo(statistics.getRevenue())),
+                () -> assertEquals(0, new BigDecimal("26").compareTo(statistics.getTax())),
+                () -> assertEquals(first.getTotalPrice() + second.getTotalPrice(), statistics.getTotal().doubleValue(), 0.0001),
+                () -> assertEquals(38.0 / 3, statistics.getAverageRealItemWeight(), 0.0001),
+                () -> assertEquals(600, statistics.getTotalSizeOnDisk(), 0.0001),
+                () -> assertEquals(List.of("Chair", "Desk", "Game"), List.copyOf(statistics.getByItemName().keySet())),
+                () -> assertEquals(2, statistics.getByItemName().get("Chair").getQuantity()),
+                () -> assertEquals(8.0, statistics.getByItemName().get("Chair").getTotalWeight(), 0.0001),
+                () -> assertEquals(5.0, statistics.getByItemName().get("Game").getAveragePrice(), 0.0001));
+    }
+
+    /**
+     * Verifies that tax and totals follow each cart's pricing engine, while revenue stays the plain sum.
+     * ★★★★☆ - Important, reports must add up to what the carts charge.
+     */
+    @Test
+    void testPricingEnginesAreApplied() {
+        Cart standard = new Cart("standard");
+        standard.addRealItem(realItem("Chair", 10.0, 4.0), 2);
+        Cart taxFree = new Cart("tax-free");
+        taxFree.addVirtualItem(virtualItem("Game", 5.0, 300), 4);
+        taxFree.setPricingEngine((item, quantity) -> new PriceQuote(
+                BigDecimal.valueOf(item.getPrice()).multiply(BigDecimal.valueOf(quantity)), BigDecimal.ZERO));
+
+        CartStatistics statistics = CartAnalytics.analyze(List.of(standard, taxFree));
+
+        assertAll("Aggregates over differently priced carts",
+                () -> assertEquals(0, new BigDecimal("40").compareTo(statistics.getRevenue())),
+                () -> assertEquals(0, new BigDecimal("4").compareTo(statistics.getTax()), "Only the standard cart is taxed."),
+                () -> assertEquals(standard.getTotalPrice() + taxFree.getTotalPrice(), statistics.getTotal().doubleValue(), 0.0001));
+    }
+
+    /**
+     * Verifies that revenue and totals describe the units as added, even after the items were changed.
+     * ★★★★☆ - Important, revenue and total of one report must belong to the same units.
+     */
+    @Test
+    void testRevenueAndTotalsShareOneSource() {
+        RealItem chair = realItem("Chair", 10.0, 4.0);
+        Cart halfPrice = new Cart("half-price");
+        halfPrice.addRealItem(chair, 3);
+        halfPrice.setPricingEngine((item, quantity) -> new PriceQuote(
+                BigDecimal.valueOf(item.getPrice() / 2).multiply(BigDecimal.valueOf(quantity)), BigDecimal.ONE));
+        chair.setPrice(1000.0);
+        chair.setWeight(1.0);
+
+        CartStatistics statistics = CartAnalytics.analyze(List.of(halfPrice));
+
+        assertAll("One source",
+                () -> assertEquals(0, new BigDecimal("30").compareTo(statistics.getRevenue())),
+                () -> assertEquals(0, new BigDecimal("16").compareTo(statistics.getTotal()), "15 net and one tax per line."),
+                () -> assertEquals(halfPrice.getTotalPrice(), statistics.getTotal().doubleValue(), 0.0001),
+                () -> assertEquals(4.0, statistics.getAverageRealItemWeight(), 0.0001));
+    }
+
+    /**
+     * Verifies that parallel and sequential runs over any order give identical results.
+     * ★★★★★ - Critical, reports must not change with the thread count or partitioning.
+     */
+    @Test
+    void testDeterministicAcrossPartitioning() {
+        List<Cart> carts = randomCarts(5000);
+        CartStatistics sequential = CartAnalytics.analyze(carts.stream());
+        List<Cart> shuffled = new ArrayList<>(carts);
+        Collections.shuffle(shuffled, new Random(1));
+        CartStatistics parallel = CartAnalytics.analyze(shuffled);
+
+        assertEquals(sequential.getRevenue(), parallel.getRevenue(), "Revenue should match to the last digit.");
+        assertEquals(sequential.getAverageRealItemWeight(), parallel.getAverageRealItemWeight());
+        assertEquals(sequential.getTotalSizeOnDisk(), parallel.getTotalSizeOnDisk());
+        sequential.getByItemName().forEach((name, item) ->
+                assertEquals(item.getRevenue(), parallel.getByItemName().get(name).getRevenue(), name));
+    }
+
+    /**
+     * Verifies that no carts give empty statistics instead of errors.
+     * ★★★☆☆ - Edge case for empty inputs.
+     */
+    @Test
+    void testEmpty() {
+        CartStatistics statistics = CartAnalytics.analyze(List.of());
+
+        assertEquals(0, statistics.getCartCount());
+        assertEquals(0, statistics.getAverageRealItemWeight());
+        assertTrue(statistics.getByItemName().isEmpty());
+    }
+}
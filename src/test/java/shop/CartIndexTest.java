@@ -0,0 +1,187 @@
+package shop;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for key-based item identity and the item index inside Cart.
+ */
+class CartIndexTest {
+
+    private Cart cart;
+
+    @BeforeEach
+    void setUp() {
+        cart = new Cart("index-cart");
+    }
+
+    private static RealItem realItem(String name, double price) {
+        RealItem item = new RealItem();
+        item.setName(name);
+        item.setPrice(price);
+        return item;
+    }
+
+    /**
+     * Verifies that items are equal by type and name only.
+     * ★★★★★ - Essential, the cart index relies on this identity.
+     */
+    @Test
+    void testItemIdentity() {
+        VirtualItem virtualChair = new VirtualItem();
+        virtualChair.setName("Chair");
+
+        assertAll("Item identity",
+                () -> assertEquals(realItem("Chair", 10.0), realItem("Chair", 12.0), "Same type and name should be equal."),
+                () -> assertEquals(realItem("Chair", 10.0).hashCode(), realItem("Chair", 12.0).hashCode()),
+                () -> assertNotEquals(realItem("Chair", 10.0), realItem("Table", 10.0), "Different names should differ."),
+                () -> assertNotEquals(realItem("Chair", 10.0), virtualChair, "Different item types should differ.")
+        );
+    }
+
+    /**
+     * Verifies that deleting by an equal key removes the stored unit and subtracts its own price.
+     * ★★★★★ - Critical so totals stay correct when callers delete with a fresh key object.
+     */
+    @Test
+    void testDeleteByKeyUsesStoredPrice() {
+        cart.addRealItem(realItem("Chair", 100.0));
+        cart.deleteRealItem(realItem("Chair", 1.0));
+
+        assertEquals(0, cart.getRealItemCount(), "The stored chair should be removed.");
+        assertEquals(0.0, cart.getTotalPrice(), "The stored price should be subtracted.");
+    }
+
+    /**
+     * Verifies that lines keep the order they were started in, also after removals.
+     * ★★★★☆ - Important for showItems and serialization output.
+     */
+    @Test
+    void testOrderPreservedAfterRemoval() {
+        cart.addRealItem(realItem("A", 1.0));
+        cart.addRealItem(realItem("B", 1.0));
+        cart.addRealItem(realItem("C", 1.0));
+        cart.addRealItem(realItem("B", 1.0));
+        cart.deleteRealItem(realItem("B", 1.0));
+
+        List<String> names = cart.getRealItems().stream().map(Item::getName).toList();
+        assertIterableEquals(List.of("A", "B", "C"), names, "One B should be removed from its line and order kept.");
+
+        cart.deleteRealItem(realItem("B", 1.0));
+        names = cart.getRealItems().stream().map(Item::getName).toList();
+        assertIterableEquals(List.of("A", "C"), names, "An emptied line should be dropped.");
+    }
+
+    /**
+     * Verifies lookup by name and quantity updates by key.
+     * ★★★★☆ - Important for editing carts without walking their items.
+     */
+    @Test
+    void testLookupAndQuantityUpdates() {
+        RealItem chair = realItem("Chair", 50.0);
+        cart.addRealItem(chair);
+        cart.setRealItemQuantity(chair, 4);
+
+        assertSame(chair, cart.findRealItem("Chair"), "Lookup by name should return the stored item.");
+        assertEquals(4, cart.getRealItemQuantity(realItem("Chair", 0.0)), "Quantity should be counted by key.");
+        assertEquals(240.0, cart.getTotalPrice(), 0.0001, "Total should follow the quantity.");
+
+        cart.setRealItemQuantity(chair, 1);
+        assertEquals(1, cart.getRealItemQuantity(chair), "Quantity should go down as well.");
+        assertEquals(60.0, cart.getTotalPrice(), 0.0001, "Total should follow the reduced quantity.");
+        assertNull(cart.findVirtualItem("Chair"), "Real and virtual items are indexed separately.");
+    }
+
+    /**
+     * Verifies that negative quantities are rejected.
+     * ★★☆☆☆ - Guards against invalid input.
+     */
+    @Test
+    void testNegativeQuantityRejected() {
+        assertThrows(IllegalArgumentException.class, () -> cart.setRealItemQuantity(realItem("Chair", 1.0), -1));
+    }
+
+    /**
+     * Verifies that renaming an item already in the cart keeps it reachable and removable.
+     * ★★★★☆ - Important, items are mutable and must not corrupt the index.
+     */
+    @Test
+    void testRenamedItemStaysReachable() {
+        RealItem chair = realItem("Chair", 10.0);
+        cart.addRealItem(chair);
+        chair.setName("Stool");
+
+        assertAll("Renamed item",
+                () -> assertSame(chair, cart.findRealItem("Chair"), "The item should be found by the name it was added under."),
+                () -> assertNull(cart.findRealItem("Stool"), "The new name was never added."),
+                () -> assertEquals(1, cart.getRealItemQuantity(chair)));
+
+        cart.deleteRealItem(chair);
+        assertAll("Renamed item deleted",
+                () -> assertEquals(0, cart.getItemCount()),
+                () -> assertNull(cart.findRealItem("Chair")),
+                () -> assertEquals(0.0, cart.getTotalPrice()));
+    }
+
+    /**
+     * Verifies that an instance changed and added again reaches every line it started.
+     * ★★★★☆ - Important, the index must not lose track of an instance added twice.
+     */
+    @Test
+    void testChangedInstanceAddedAgain() {
+        RealItem chair = realItem("Chair", 10.0);
+        cart.addRealItem(chair);
+        chair.setPrice(20.0);
+        cart.addRealItem(chair);
+        chair.setName("Stool");
+        cart.addRealItem(chair);
+
+        assertAll("Three lines from one instance",
+                () -> assertEquals(3, cart.getRealLines().size()),
+                () -> assertEquals(2, cart.getRealItemQuantity(chair), "Looked up by the key of its first line."));
+
+        cart.deleteRealItem(chair);
+        cart.deleteRealItem(chair);
+        assertAll("Chair lines deleted",
+                () -> assertEquals(1, cart.getItemCount()),
+                () -> assertNull(cart.findRealItem("Chair"), "No stale line should be left under the first key."),
+                () -> assertSame(chair, cart.findRealItem("Stool")),
+                () -> assertEquals(1, cart.getRealItemQuantity(chair), "The instance should now lead to its remaining line."));
+
+        cart.deleteRealItem(chair);
+        assertAll("All lines deleted",
+                () -> assertEquals(0, cart.getItemCount()),
+                () -> assertNull(cart.findRealItem("Stool")),
+                () -> assertEquals(0.0, cart.getTotalPrice()));
+    }
+
+    /**
+     * Verifies that units merged through another instance are reached through that instance's key.
+     * ★★★☆☆ - Useful, merging must not leave lookups pointing at removed lines.
+     */
+    @Test
+    void testMergeThroughOtherInstance() {
+        RealItem first = realItem("Chair", 10.0);
+        RealItem second = realItem("Chair", 10.0);
+        cart.addRealItem(first);
+        cart.addRealItem(second);
+        second.setName("Stool");
+
+        assertEquals(1, cart.getRealLines().size(), "Equal units should share a line.");
+        cart.deleteRealItem(first);
+        cart.deleteRealItem(first);
+        assertAll("Merged line emptied",
+                () -> assertEquals(0, cart.getItemCount()),
+                () -> assertNull(cart.findRealItem("Chair")),
+                () -> assertEquals(0, cart.getRealItemQuantity(first)));
+
+        cart.addRealItem(second);
+        assertAll("Instance added again after its line was emptied",
+                () -> assertSame(second, cart.findRealItem("Stool")),
+                () -> assertEquals(1, cart.getRealItemQuantity(second)));
+    }
+}
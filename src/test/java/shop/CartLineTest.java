@@ -0,0 +1,110 @@
+package shop;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for carts that keep equal units as quantity lines.
+ */
+class CartLineTest {
+
+    private static RealItem realItem(String name, double price) {
+        RealItem item = new RealItem();
+        item.setName(name);
+        item.setPrice(price);
+        item.setWeight(2.0);
+        return item;
+    }
+
+    /**
+     * Verifies that equal units share one line while the per-unit view is unchanged.
+     * ★★★★★ - Essential, bulk carts must not hold one entry per unit.
+     */
+    @Test
+    void testEqualUnitsShareALine() {
+        Cart cart = new Cart("bulk-cart");
+        RealItem chair = realItem("Chair", 10.0);
+        cart.addRealItem(chair, 500);
+        cart.addRealItem(realItem("Chair", 10.0));
+        cart.addRealItem(realItem("Chair", 12.0));
+
+        assertAll("Lines of the cart",
+                () -> assertEquals(List.of(new CartLine<>(chair, 501), new CartLine<>(realItem("Chair", 12.0), 1)),
+                        cart.getRealLines(), "A different price should start its own line."),
+                () -> assertEquals(502, cart.getRealItemCount()),
+                () -> assertEquals(502, cart.getRealItems().size()),
+                () -> assertEquals(502, cart.getRealItems().stream().count(), "The unit view should repeat each line."),
+                () -> assertEquals(502, cart.getRealItemQuantity(chair), "Quantity by key should span both lines."),
+                () -> assertEquals((501 * 10.0 + 12.0) * 1.2, cart.getTotalPrice(), 0.0001));
+    }
+
+    /**
+     * Verifies that bulk quantity changes update the totals exactly, across lines.
+     * ★★★★★ - Critical, totals are now computed per line instead of per unit.
+     */
+    @Test
+    void testQuantityChangesAreArithmetic() {
+        Cart cart = new Cart("quantity-cart");
+        cart.addRealItem(realItem("Chair", 0.1), 3);
+        cart.addRealItem(realItem("Chair", 0.2), 3);
+        cart.setRealItemQuantity(realItem("Chair", 0.0), 4);
+
+        assertAll("Cart after reducing 6 chairs to 4",
+                () -> assertEquals(List.of(new CartLine<>(realItem("Chair", 0.1), 1), new CartLine<>(realItem("Chair", 0.2), 3)),
+                        cart.getRealLines(), "Units should be taken from the earliest line first."),
+                () -> assertEquals(0.7, cart.getRealSubtotal(), 0.0, "The subtotal should stay exact."),
+                () -> assertEquals(4, cart.getRealItemCount()));
+        cart.setRealItemQuantity(realItem("Chair", 0.0), 0);
+        assertEquals(List.of(), cart.getRealLines(), "Quantity 0 should remove every line.");
+        assertEquals(0.0, cart.getTotalPrice(), 0.0);
+        assertThrows(IllegalArgumentException.class, () -> cart.addRealItem(realItem("Chair", 1.0), -1));
+    }
+
+    /**
+     * Verifies that concurrent carts keep lines and their own totals in step.
+     * ★★★★☆ - Important, concurrent carts track totals outside their stripes.
+     */
+    @Test
+    void testConcurrentCartLines() {
+        ConcurrentCart cart = new ConcurrentCart("concurrent-lines");
+        VirtualItem game = new VirtualItem();
+        game.setName("Game");
+        game.setPrice(5.0);
+        cart.addVirtualItem(game, 1000);
+        cart.setVirtualItemQuantity(game, 10);
+
+        assertAll("Concurrent cart with one line",
+                () -> assertEquals(List.of(new CartLine<>(game, 10)), cart.getVirtualLines()),
+                () -> assertEquals(10, cart.getVirtualItemCount()),
+                () -> assertEquals(60.0, cart.getTotalPrice(), 0.0001),
+                () -> assertEquals(List.of(new CartLine<>(game, 10)), cart.snapshot().getVirtualLines()));
+    }
+
+    /**
+     * Verifies that adds taking a cart past Integer.MAX_VALUE units are rejected without changing it.
+     * ★★★★☆ - Important, a wrapped count would turn negative and corrupt the totals.
+     */
+    @Test
+    void testUnitOverflowIsRejected() {
+        Cart cart = new Cart("full-cart");
+        cart.addRealItem(realItem("Chair", 1.0), Integer.MAX_VALUE - 1);
+        VirtualItem game = new VirtualItem();
+        game.setName("Game");
+        game.setPrice(5.0);
+        cart.addVirtualItem(game);
+        ConcurrentCart concurrentCart = new ConcurrentCart("full-concurrent-cart");
+        concurrentCart.addRealItem(realItem("Chair", 1.0), Integer.MAX_VALUE);
+
+        assertAll("Cart at the unit limit",
+                () -> assertThrows(ArithmeticException.class, () -> cart.addRealItem(realItem("Chair", 1.0))),
+                () -> assertThrows(ArithmeticException.class, () -> cart.addVirtualItem(game, 2)),
+                () -> assertThrows(ArithmeticException.class, () -> concurrentCart.addVirtualItem(game)),
+                () -> assertEquals(Integer.MAX_VALUE, cart.getItemCount()),
+                () -> assertEquals(List.of(new CartLine<>(realItem("Chair", 1.0), Integer.MAX_VALUE - 1)), cart.getRealLines()),
+                () -> assertEquals(Integer.MAX_VALUE - 1 + 5.0, cart.getSubtotal(), 0.0001),
+                () -> assertEquals(Integer.MAX_VALUE, concurrentCart.getItemCount()));
+    }
+}
@@ -1,7 +1,6 @@
 package shop;
 
 import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -80,7 +79,6 @@ class CartTestAdvanced {
      * Tests the cart's ability to correctly calculate the total price after clearing all items.
      * ★★★★★ - Essential for ensuring that cart reset or clearance operations accurately reflect in the total price.
      */
-    @Disabled("Disabled due to the Cart class not recalculating total price after item removal. Requires source code fix.")
     @Test
     void testClearingCartItems() {
         cart.addRealItem(realItem);
@@ -1,7 +1,6 @@
 package shop;
 
 import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -61,7 +60,6 @@ class CartTestBasic {
      * ★★★★★ - Essential for ensuring that the cart correctly updates when items are removed.
      */
     @Test
-    @Disabled("Disabled due to the Cart class not recalculating total price after item removal. Requires source code fix.")
     void testRemoveItemsAndTotalPrice() {
         // Initially add items to the cart
         cart.addRealItem(realItem);
@@ -0,0 +1,143 @@
+package shop;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the running aggregates kept by Cart: subtotal, tax, total and the
+ * real/virtual breakdown.
+ */
+class CartTotalsTest {
+
+    private Cart cart;
+    private RealItem realItem;
+    private VirtualItem virtualItem;
+
+    @BeforeEach
+    void setUp() {
+        cart = new Cart("totals-cart");
+        realItem = new RealItem();
+        realItem.setName("Desk");
+        realItem.setPrice(0.1);
+        realItem.setWeight(12.0);
+
+        virtualItem = new VirtualItem();
+        virtualItem.setName("Game");
+        virtualItem.setPrice(0.2);
+        virtualItem.setSizeOnDisk(100.0);
+    }
+
+    /**
+     * Verifies the breakdown of subtotal, tax and item counts.
+     * ★★★★★ - Essential, callers rely on these instead of walking the item lists.
+     */
+    @Test
+    void testAggregatesBreakdown() {
+        cart.addRealItem(realItem);
+        cart.addRealItem(realItem);
+        cart.addVirtualItem(virtualItem);
+
+        assertAll("Cart aggregates",
+                () -> assertEquals(0.2, cart.getRealSubtotal(), "Real subtotal is the sum of real item prices."),
+                () -> assertEquals(0.2, cart.getVirtualSubtotal(), "Virtual subtotal is the sum of virtual item prices."),
+                () -> assertEquals(0.4, cart.getSubtotal(), "Subtotal is exact, not 0.1 + 0.1 + 0.2 in doubles."),
+                () -> assertEquals(0.08, cart.getTax(), "Tax is 20% of the subtotal."),
+                () -> assertEquals(0.48, cart.getTotalPrice(), "Total is the subtotal plus tax."),
+                () -> assertEquals(3, cart.getItemCount()),
+                () -> assertEquals(2, cart.getRealItemCount()),
+                () -> assertEquals(1, cart.getVirtualItemCount())
+        );
+    }
+
+    /**
+     * Verifies that a long series of adds and deletes leaves no floating-point residue.
+     * ★★★★★ - Critical for carts that are edited many times over their lifetime.
+     */
+    @Test
+    void testNoDriftAfterManyMutations() {
+        for (int i = 0; i < 100_000; i++) {
+            cart.addRealItem(realItem);
+            cart.addVirtualItem(virtualItem);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            cart.deleteRealItem(realItem);
+            cart.deleteVirtualItem(virtualItem);
+        }
+
+        assertEquals(0.0, cart.getTotalPrice(), "Total should return exactly to zero.");
+        assertEquals(0, cart.getItemCount(), "All items should be removed.");
+    }
+
+    /**
+     * Verifies that deleting an item that is not in the cart leaves the aggregates untouched.
+     * ★★★★☆ - Important so totals are only reduced for items actually removed.
+     */
+    @Test
+    void testDeleteMissingItemKeepsTotals() {
+        cart.addVirtualItem(virtualItem);
+        cart.deleteRealItem(realItem);
+
+        assertEquals(0.24, cart.getTotalPrice(), "Total should not change when nothing was removed.");
+        assertEquals(0.0, cart.getRealSubtotal(), "Real subtotal should stay zero.");
+    }
+
+    /**
+     * Verifies that null items are ignored by add and delete.
+     * ★★★☆☆ - Useful as defensive behaviour for callers passing unchecked input.
+     */
+    @Test
+    void testNullItemsAreIgnored() {
+        cart.addRealItem(null);
+        cart.addVirtualItem(null);
+        cart.deleteRealItem(null);
+
+        assertEquals(0, cart.getItemCount(), "Null items should not be added.");
+        assertEquals(0.0, cart.getTotalPrice(), "Null items should not affect the total.");
+    }
+
+    /**
+     * Verifies that repricing an item after adding it does not unbalance the totals on delete.
+     * ★★★★☆ - Important, items stay mutable and totals must never go negative.
+     */
+    @Test
+    void testDeleteAfterRepricingSubtractsAddedPrice() {
+        realItem.setPrice(10.0);
+        cart.addRealItem(realItem);
+        cart.addRealItem(realItem);
+        realItem.setPrice(30.0);
+        cart.deleteRealItem(realItem);
+
+        assertAll("Totals after repricing",
+                () -> assertEquals(10.0, cart.getSubtotal(), "The remaining unit was added at 10."),
+                () -> assertEquals(12.0, cart.getTotalPrice()));
+
+        cart.deleteRealItem(realItem);
+        assertEquals(0.0, cart.getTotalPrice(), "Removing every unit should bring the total back to zero.");
+    }
+
+    /**
+     * Verifies that lines, values and copies carry the fields the totals were made of, not later changes.
+     * ★★★★☆ - Important, a saved or copied cart must add up to the same total as the original.
+     */
+    @Test
+    void testViewsUseFieldsAsAdded() {
+        realItem.setPrice(10.0);
+        cart.addRealItem(realItem, 2);
+        realItem.setPrice(30.0);
+        realItem.setWeight(99.0);
+        Cart copy = cart.copy();
+
+        assertAll("Views after changing an added item",
+                () -> assertEquals(10.0, cart.getRealLines().get(0).item().getPrice()),
+                () -> assertEquals(12.0, cart.getRealLines().get(0).item().getWeight()),
+                () -> assertEquals(List.of(new RealItemValue("Desk", 10.0, 12.0), new RealItemValue("Desk", 10.0, 12.0)),
+                        cart.getItemValues()),
+                () -> assertEquals(cart.getTotalPrice(), copy.getTotalPrice()),
+                () -> assertEquals(10.0, copy.getRealLines().get(0).item().getPrice()),
+                () -> assertSame(realItem, cart.getRealItems().iterator().next(), "The unit view keeps the stored instance."));
+    }
+}
@@ -0,0 +1,149 @@
+package shop;
+
+import metrics.InMemoryMetricsRegistry;
+import metrics.Metrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the primitive columnar cart representation and its flyweight item views.
+ */
+class ColumnarCartTest {
+
+    private ColumnarCart cart;
+
+    @BeforeEach
+    void setUp() {
+        cart = new ColumnarCart("columnar-cart");
+        cart.addRealItem("Chair", 100.0, 8.0);
+        cart.addRealItem("Desk", 300.0, 25.0);
+        cart.addRealItem("Chair", 100.0, 8.0);
+        cart.addVirtualItem("Game", 60.0, 50_000.0);
+    }
+
+    /**
+     * Verifies totals and aggregates computed from the columns.
+     * ★★★★★ - Essential, these loops replace walking item objects.
+     */
+    @Test
+    void testAggregates() {
+        assertAll("Columnar aggregates",
+                () -> assertEquals(560.0, cart.getSubtotal(), 0.0001),
+                () -> assertEquals(672.0, cart.getTotalPrice(), 0.0001, "Total should include tax like Cart."),
+                () -> assertEquals(41.0, cart.getTotalWeight(), 0.0001),
+                () -> assertEquals(50_000.0, cart.getTotalSizeOnDisk(), 0.0001),
+                () -> assertEquals(4, cart.getItemCount()),
+                () -> assertEquals(3, cart.getDistinctNameCount(), "Repeated names should be stored once.")
+        );
+    }
+
+    /**
+     * Verifies that flyweight views expose the row data and behave like regular items.
+     * ★★★★☆ - Important so existing item consumers work with columnar carts.
+     */
+    @Test
+    void testFlyweightViews() {
+        RealItem desk = cart.getRealItem(1);
+        RealItem plainDesk = new RealItem();
+        plainDesk.setName("Desk");
+
+        assertAll("Flyweight view",
+                () -> assertEquals("Desk", desk.getName()),
+                () -> assertEquals(25.0, desk.getWeight()),
+                () -> assertEquals(plainDesk, desk, "Views should equal regular items of the same key."),
+                () -> assertEquals("Class: class shop.RealItem; Name: Desk; Price: 300.0; Weight: 25.0", desk.toString()),
+                () -> assertThrows(UnsupportedOperationException.class, () -> desk.setPrice(1.0), "Views are read-only.")
+        );
+    }
+
+    /**
+     * Verifies deletion and range filters over the columns.
+     * ★★★★☆ - Important for keeping row order and filter results correct.
+     */
+    @Test
+    void testDeleteAndFilter() {
+        RealItem chair = new RealItem();
+        chair.setName("Chair");
+        cart.deleteRealItem(chair);
+
+        List<String> names = cart.getRealItems().stream().map(Item::getName).toList();
+        assertIterableEquals(List.of("Desk", "Chair"), names, "The first chair should be removed.");
+        assertArrayEquals(new int[]{1}, cart.findRealItemsByPrice(50.0, 150.0), "Only the remaining chair is in range.");
+        assertArrayEquals(new int[]{0}, cart.findRealItemsByWeight(20.0, 30.0));
+        assertArrayEquals(new int[0], cart.findVirtualItemsByPrice(0.0, 10.0));
+    }
+
+    /**
+     * Verifies conversion from and to the object-based Cart.
+     * ★★★★☆ - Important for loading carts through the existing parsers.
+     */
+    @Test
+    void testConversionRoundTrip() {
+        Cart objectCart = cart.toCart();
+        ColumnarCart back = ColumnarCart.from(objectCart);
+
+        assertEquals(objectCart.getTotalPrice(), cart.getTotalPrice(), 0.0001, "Totals should agree with Cart.");
+        assertEquals(cart.getItemCount(), back.getItemCount(), "Round trip should keep all rows.");
+        assertEquals("Game", back.getVirtualItem(0).getName());
+    }
+
+    /**
+     * Verifies that totals of prices that are inexact in binary equal Cart's to the last bit.
+     * ★★★★☆ - Important, both representations must bill the same amount.
+     */
+    @Test
+    void testTotalsExactlyMatchCart() {
+        ColumnarCart columnarCart = new ColumnarCart("exact-cart");
+        for (int i = 0; i < 10; i++) {
+            columnarCart.addRealItem("Pen " + i, 0.1, 0.01);
+        }
+        columnarCart.addVirtualItem("Font", 0.7, 1.0);
+        columnarCart.deleteRealItem(columnarCart.getRealItem(3));
+        Cart objectCart = columnarCart.toCart();
+
+        assertAll("Exact totals",
+                () -> assertEquals(objectCart.getSubtotal(), columnarCart.getSubtotal()),
+                () -> assertEquals(objectCart.getTotalPrice(), columnarCart.getTotalPrice()),
+                () -> assertEquals(1.92, columnarCart.getTotalPrice()));
+    }
+
+    /**
+     * Verifies that converting to a plain cart merges equal rows and does not count them as added.
+     * ★★★☆☆ - Useful, a conversion is not a customer filling a cart.
+     */
+    @Test
+    void testToCartIsNotCountedAsAdded() {
+        ColumnarCart columnarCart = new ColumnarCart("converted-cart");
+        for (int i = 0; i < 5; i++) {
+            columnarCart.addRealItem("Pen", 0.5, 0.01);
+        }
+        InMemoryMetricsRegistry registry = new InMemoryMetricsRegistry();
+        Metrics.setRegistry(registry);
+        try {
+            Cart objectCart = columnarCart.toCart();
+
+            assertAll("Converted cart",
+                    () -> assertEquals(5, objectCart.getRealItemCount()),
+                    () -> assertEquals(1, objectCart.getRealLines().size(), "Equal rows should share one line."),
+                    () -> assertEquals(0, registry.getCount("cart.real.added"), "Converted rows should not count as added."));
+        } finally {
+            Metrics.setRegistry(null);
+        }
+    }
+
+    /**
+     * Verifies that a row's view is made once and reused.
+     * ★★☆☆☆ - Minor, avoids an allocation per access.
+     */
+    @Test
+    void testRowViewsAreReused() {
+        assertAll("Reused views",
+                () -> assertSame(cart.getRealItem(0), cart.getRealItem(0)),
+                () -> assertSame(cart.getRealItem(1), cart.getRealItems().get(1)),
+                () -> assertSame(cart.getVirtualItem(0), cart.getVirtualItem(0)));
+    }
+}
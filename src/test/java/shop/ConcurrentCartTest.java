@@ -0,0 +1,251 @@
+package shop;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import parser.JsonParser;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ConcurrentCart under concurrent updates.
+ */
+class ConcurrentCartTest {
+
+    private static final int THREADS = 8;
+    private static final int ITEMS_PER_THREAD = 5_000;
+
+    private ConcurrentCart cart;
+
+    @BeforeEach
+    void setUp() {
+        cart = new ConcurrentCart("concurrent-cart");
+    }
+
+    private static RealItem realItem(String name, double price) {
+        RealItem item = new RealItem();
+        item.setName(name);
+        item.setPrice(price);
+        return item;
+    }
+
+    private static VirtualItem virtualItem(String name, double price) {
+        VirtualItem item = new VirtualItem();
+        item.setName(name);
+        item.setPrice(price);
+        return item;
+    }
+
+    private void runConcurrently(Runnable... extraTasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + extraTasks.length);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ITEMS_PER_THREAD; i++) {
+                        cart.addRealItem(realItem("real-" + (i % 100), 1.5));
+                        cart.addVirtualItem(virtualItem("virtual-" + thread, 0.25));
+                    }
+                    return null;
+                }));
+            }
+            for (Runnable task : extraTasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Verifies that no additions are lost when many threads add at once.
+     * ★★★★★ - Essential, lost updates were the reason for this class.
+     */
+    @Test
+    void testConcurrentAddsAreNotLost() throws Exception {
+        runConcurrently();
+
+        int expectedPerKind = THREADS * ITEMS_PER_THREAD;
+        assertAll("Concurrent cart aggregates",
+                () -> assertEquals(expectedPerKind, cart.getRealItemCount()),
+                () -> assertEquals(expectedPerKind, cart.getVirtualItemCount()),
+                () -> assertEquals(expectedPerKind * 1.75, cart.getSubtotal(), "Subtotal should include every unit."),
+                () -> assertEquals(expectedPerKind * 1.75 * 1.2, cart.getTotalPrice(), 0.0001),
+                () -> assertEquals(THREADS * ITEMS_PER_THREAD / 100, cart.getRealItemQuantity(realItem("real-7", 0)))
+        );
+    }
+
+    /**
+     * Verifies that iterating and serializing while other threads add does not fail.
+     * ★★★★★ - Critical, showItems used to throw ConcurrentModificationException.
+     */
+    @Test
+    void testSnapshotWhileAdding() throws Exception {
+        JsonParser parser = new JsonParser();
+        runConcurrently(() -> {
+            for (int i = 0; i < 50; i++) {
+                Cart snapshot = cart.snapshot();
+                assertEquals(snapshot.getRealItems().size(), snapshot.getRealItemCount(),
+                        "A snapshot should be internally consistent.");
+                try {
+                    parser.write(cart, new StringWriter());
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Verifies that a serialized concurrent cart reads back as an equivalent plain cart.
+     * ★★★★☆ - Important for persisting carts edited by checkout workers.
+     */
+    @Test
+    void testSerializationRoundTrip() throws IOException {
+        cart.addRealItem(realItem("Chair", 10.0));
+        cart.addVirtualItem(virtualItem("E-book", 5.0));
+        cart.deleteRealItem(realItem("Missing", 1.0));
+
+        StringWriter out = new StringWriter();
+        JsonParser parser = new JsonParser();
+        parser.write(cart, out);
+        Cart readCart = parser.read(new StringReader(out.toString()));
+
+        assertEquals(cart.getTotalPrice(), readCart.getTotalPrice(), 0.0001, "Totals must survive serialization.");
+        assertEquals(2, readCart.getItemCount(), "All items must be serialized.");
+    }
+
+    /**
+     * Verifies deletes and quantity updates keep the lock-free totals in line.
+     * ★★★★☆ - Important, totals are maintained separately from the stripes.
+     */
+    @Test
+    void testDeleteAndQuantityUpdates() {
+        RealItem chair = realItem("Chair", 10.0);
+        cart.setRealItemQuantity(chair, 3);
+        cart.deleteRealItem(realItem("Chair", 99.0));
+
+        assertEquals(2, cart.getRealItemQuantity(chair), "One unit should be removed.");
+        assertEquals(24.0, cart.getTotalPrice(), 0.0001, "Stored price should be subtracted.");
+        assertSame(chair, cart.findRealItem("Chair"), "Lookup should reach the right stripe.");
+    }
+
+    /**
+     * Verifies that an item renamed after it was added can still be deleted through the instance.
+     * ★★★☆☆ - Useful, the new name may hash to another stripe than the item lives in.
+     */
+    @Test
+    void testDeleteRenamedItem() {
+        RealItem chair = realItem("Chair", 10.0);
+        cart.addRealItem(chair);
+        chair.setName("Renamed chair");
+        cart.deleteRealItem(chair);
+
+        assertEquals(0, cart.getItemCount(), "The renamed unit should be removed.");
+        assertEquals(0.0, cart.getTotalPrice(), 0.0001);
+    }
+
+    /**
+     * Verifies that totals agree exactly with a plain cart, and that invalid prices fail alike.
+     * ★★★★☆ - Important, both carts are used for the same checkouts.
+     */
+    @Test
+    void testTotalsMatchPlainCart() {
+        Cart plainCart = new Cart("plain-cart");
+        for (double price : new double[]{0.1, 1.0 / 3, 12.345678912, 1e15, 0.2}) {
+            cart.addRealItem(realItem("Item " + price, price), 3);
+            plainCart.addRealItem(realItem("Item " + price, price), 3);
+        }
+        cart.deleteRealItem(realItem("Item " + 1.0 / 3, 0.0));
+        plainCart.deleteRealItem(realItem("Item " + 1.0 / 3, 0.0));
+
+        assertAll("Totals of both carts",
+                () -> assertEquals(plainCart.getSubtotal(), cart.getSubtotal()),
+                () -> assertEquals(plainCart.getTotalPrice(), cart.getTotalPrice()),
+                () -> assertThrows(NumberFormatException.class, () -> plainCart.addRealItem(realItem("NaN", Double.NaN))),
+                () -> assertThrows(NumberFormatException.class, () -> cart.addRealItem(realItem("NaN", Double.NaN))),
+                () -> assertNull(cart.findRealItem("NaN"), "A rejected item must not be stored."),
+                () -> assertEquals(plainCart.getItemCount(), cart.getItemCount()));
+    }
+
+    /**
+     * Verifies that snapshots and item values list items in insertion order across stripes.
+     * ★★★☆☆ - Useful so a serialized concurrent cart looks like the plain cart it replaces.
+     */
+    @Test
+    void testSnapshotKeepsInsertionOrder() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            names.add("Item " + i);
+            cart.addRealItem(realItem("Item " + i, i));
+        }
+
+        assertAll("Insertion order",
+                () -> assertIterableEquals(names, cart.getRealItems().stream().map(Item::getName).toList()),
+                () -> assertIterableEquals(names, cart.getItemValues().stream().map(ItemValue::name).toList()));
+    }
+
+    /**
+     * Verifies that the line hooks a plain cart offers its package act on the stripes.
+     * ★★★★☆ - Important, copies and snapshots of a concurrent cart go through them.
+     */
+    @Test
+    void testLineHooksReachStripes() {
+        RealItem chair = realItem("Chair", 10.0);
+        cart.addRealLine(chair, null, 3);
+        cart.addRealItem(realItem("Table", 20.0));
+        List<String> visited = new ArrayList<>();
+        cart.forEachRealLine((sequence, item, added, quantity) -> visited.add(added.getName() + " x" + quantity));
+
+        assertAll("Added line",
+                () -> assertEquals(4, cart.getRealItemCount()),
+                () -> assertEquals(50.0, cart.getRealSubtotal(), 0.0001),
+                () -> assertIterableEquals(List.of("Chair x3", "Table x1"), visited),
+                () -> assertTrue(cart.holdsRealItem(chair)));
+
+        assertNotNull(cart.removeRealItem(chair));
+        cart.removeRealItems(chair, 5, (stored, taken) -> assertEquals(2, taken));
+        assertAll("Removed line",
+                () -> assertEquals(1, cart.getRealItemCount()),
+                () -> assertEquals(20.0, cart.getRealSubtotal(), 0.0001),
+                () -> assertFalse(cart.holdsRealItem(chair)));
+    }
+
+    /**
+     * Verifies that items read from a concurrent cart are copies of the units as added.
+     * ★★★☆☆ - Useful, other threads may still be using the stored instances.
+     */
+    @Test
+    void testItemsAreDetachedCopies() {
+        RealItem chair = realItem("Chair", 10.0);
+        cart.addRealItem(chair);
+        RealItem read = cart.getRealItems().iterator().next();
+        read.setPrice(99.0);
+
+        assertAll("Detached items",
+                () -> assertNotSame(chair, read),
+                () -> assertEquals(10.0, cart.getRealLines().get(0).item().getPrice()),
+                () -> assertNotSame(chair, cart.snapshot().findRealItem("Chair")),
+                () -> assertEquals(10.0, cart.getRealSubtotal(), 0.0001));
+    }
+}
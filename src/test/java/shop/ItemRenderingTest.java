@@ -0,0 +1,126 @@
+package shop;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for rendering items and carts into caller-supplied buffers and writers.
+ */
+class ItemRenderingTest {
+
+    private RealItem realItem;
+    private VirtualItem virtualItem;
+
+    @BeforeEach
+    void setUp() {
+        realItem = new RealItem();
+        realItem.setName("Käse 日本 😀");
+        realItem.setPrice(100.5);
+        realItem.setWeight(1e-7);
+        virtualItem = new VirtualItem();
+        virtualItem.setPrice(20.0);
+        virtualItem.setSizeOnDisk(5000.0);
+    }
+
+    /**
+     * Verifies that every target receives exactly the toString text.
+     * ★★★★★ - Essential, receipts and logs must not change with the faster path.
+     */
+    @Test
+    void testAppendToMatchesToString() throws IOException {
+        for (Item item : new Item[]{realItem, virtualItem}) {
+            StringWriter writer = new StringWriter();
+            ByteBuffer buffer = ByteBuffer.allocate(256);
+            StringBuilder prefixed = new StringBuilder("> ");
+            item.appendTo(writer);
+            item.appendTo(buffer).flip();
+
+            assertAll("Rendering of " + item,
+                    () -> assertEquals("> " + item, item.appendTo(prefixed).toString(), "The builder should be appended to."),
+                    () -> assertEquals(item.toString(), writer.toString()),
+                    () -> assertEquals(item.toString(), StandardCharsets.UTF_8.decode(buffer).toString()));
+        }
+        assertEquals("Class: class shop.VirtualItem; Name: null; Price: 20.0; Size on disk: 5000.0", virtualItem.toString(),
+                "The established format should be kept.");
+    }
+
+    /**
+     * Verifies that a buffer too small for the item is left untouched.
+     * ★★★☆☆ - Useful so callers can flush and retry.
+     */
+    @Test
+    void testByteBufferOverflow() {
+        int length = realItem.toString().getBytes(StandardCharsets.UTF_8).length;
+        ByteBuffer buffer = ByteBuffer.allocate(length - 1);
+
+        assertThrows(BufferOverflowException.class, () -> realItem.appendTo(buffer));
+        assertEquals(0, buffer.position(), "Nothing should be written on overflow.");
+        assertEquals(length, realItem.appendTo(ByteBuffer.allocate(length)).position(), "An exact fit should work.");
+    }
+
+    /**
+     * Verifies that rendering a cart writes the lines showItems used to print, across chunks.
+     * ★★★★★ - Critical, renderItems replaces the stdout loop.
+     */
+    @Test
+    void testRenderItems() throws IOException {
+        Cart cart = new Cart("render-cart");
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            RealItem item = new RealItem();
+            item.setName("Chair " + i);
+            item.setPrice(i);
+            cart.addRealItem(item);
+            expected.append(item).append(System.lineSeparator());
+        }
+        cart.addVirtualItem(virtualItem);
+        expected.append(virtualItem).append(System.lineSeparator());
+        StringWriter writer = new StringWriter();
+        cart.renderItems(writer);
+
+        assertTrue(expected.length() > 4 * ItemText.CHUNK_SIZE, "The cart should span several chunks.");
+        assertEquals(expected.toString(), writer.toString());
+        StringWriter columnar = new StringWriter();
+        ColumnarCart.from(cart).renderItems(columnar);
+        assertEquals(expected.toString(), columnar.toString(), "Columnar carts should render the same.");
+        ConcurrentCart concurrentCart = new ConcurrentCart("render-cart");
+        cart.getRealItems().forEach(concurrentCart::addRealItem);
+        cart.getVirtualItems().forEach(concurrentCart::addVirtualItem);
+        StringWriter concurrent = new StringWriter();
+        concurrentCart.renderItems(concurrent);
+        assertEquals(expected.toString(), concurrent.toString(), "Concurrent carts should render the same.");
+    }
+
+    /**
+     * Verifies that showItems still prints every item to standard output.
+     * ★★★★☆ - Important, existing callers rely on the console output.
+     */
+    @Test
+    void testShowItemsPrintsToStdout() {
+        Cart cart = new Cart("show-cart");
+        cart.addRealItem(realItem);
+        cart.addVirtualItem(virtualItem);
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(captured, true, StandardCharsets.UTF_8));
+            cart.showItems();
+        } finally {
+            System.setOut(stdout);
+        }
+
+        assertEquals(Arrays.asList(realItem.toString(), virtualItem.toString()),
+                Arrays.asList(captured.toString(StandardCharsets.UTF_8).split(System.lineSeparator())));
+    }
+}
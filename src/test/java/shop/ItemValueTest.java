@@ -0,0 +1,96 @@
+package shop;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import parser.CartGson;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the immutable item values and the shared name pool.
+ */
+class ItemValueTest {
+
+    /**
+     * Verifies that values convert to and from mutable items without losing fields.
+     * ★★★★★ - Essential, values must interoperate with carts and parsers.
+     */
+    @Test
+    void testConversionRoundTrip() {
+        RealItem realItem = new RealItem();
+        realItem.setName("Desk");
+        realItem.setPrice(300.0);
+        realItem.setWeight(25.0);
+        RealItemValue realValue = RealItemValue.of(realItem);
+        VirtualItemValue virtualValue = VirtualItemValue.builder().name("Game").price(60.0).sizeOnDisk(4000.0).build();
+
+        assertAll("Converted items",
+                () -> assertEquals(new RealItemValue("Desk", 300.0, 25.0), realValue),
+                () -> assertEquals(realItem.toString(), realValue.toItem().toString()),
+                () -> assertEquals(virtualValue, ItemValue.of(virtualValue.toItem())),
+                () -> assertEquals(new VirtualItemValue("Game", 1.0, 4000.0), virtualValue.toBuilder().price(1.0).build()),
+                () -> assertNotSame(realValue.toItem(), realValue.toItem(), "Every conversion should be a fresh mutable item."));
+    }
+
+    /**
+     * Verifies that equal names from different sources share one instance.
+     * ★★★★★ - Essential, sharing names is where the heap is saved.
+     */
+    @Test
+    void testNamesAreInterned() {
+        String first = new String("Interned chair".toCharArray());
+        String second = new String("Interned chair".toCharArray());
+        assertNotSame(first, second);
+
+        assertSame(new RealItemValue(first, 1.0, 1.0).name(), VirtualItemValue.builder().name(second).build().name());
+        assertNull(RealItemValue.builder().build().name(), "Null names should stay null.");
+
+        NamePool pool = new NamePool();
+        Set<String> distinct = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        IntStream.range(0, 10_000).parallel()
+                .forEach(i -> distinct.add(pool.intern(new String(("Name " + i % 100).toCharArray()))));
+        assertEquals(100, pool.size());
+        assertEquals(100, distinct.size(), "Concurrent interning should hand out one instance per name.");
+    }
+
+    /**
+     * Verifies that values can be added to carts and read back from them.
+     * ★★★★☆ - Important for code that builds carts from shared values.
+     */
+    @Test
+    void testCartInterop() {
+        Cart cart = new ConcurrentCart("value-cart");
+        RealItemValue chair = RealItemValue.builder().name("Chair").price(10.0).weight(2.0).build();
+        cart.addItem(chair);
+        cart.addItem(chair);
+        cart.addItem(new VirtualItemValue("Game", 5.0, 100.0));
+        cart.addItem(null);
+
+        assertAll("Cart built from values",
+                () -> assertEquals(2, cart.getRealItemQuantity(chair.toItem())),
+                () -> assertEquals(30.0, cart.getTotalPrice(), 0.0001),
+                () -> assertEquals(List.of(chair, chair, new VirtualItemValue("Game", 5.0, 100.0)), cart.getItemValues()));
+    }
+
+    /**
+     * Verifies that values serialize in the same layout as mutable items.
+     * ★★★★☆ - Important so stored items and values read each other's JSON.
+     */
+    @Test
+    void testJsonLayout() {
+        Gson gson = CartGson.gson();
+        RealItem item = new RealItemValue("Lamp", 15.5, 1.5).toItem();
+
+        String json = gson.toJson(new RealItemValue("Lamp", 15.5, 1.5));
+        assertEquals(gson.toJson(item), json);
+        assertEquals(new RealItemValue("Lamp", 15.5, 1.5), gson.fromJson(json, RealItemValue.class));
+        assertEquals(new VirtualItemValue("Film", 3.0, 700.0),
+                gson.fromJson("{\"name\":\"Film\",\"price\":3.0,\"sizeOnDisk\":700.0,\"extra\":1}", VirtualItemValue.class));
+    }
+}
@@ -0,0 +1,125 @@
+package shop;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for pricing carts with compiled rule sets.
+ */
+class PricingEngineTest {
+
+    private Cart cart;
+    private RealItem chair;
+    private VirtualItem game;
+
+    @BeforeEach
+    void setUp() {
+        cart = new Cart("priced-cart");
+        chair = new RealItem();
+        chair.setName("Chair");
+        chair.setPrice(10.0);
+        game = new VirtualItem();
+        game.setName("Game");
+        game.setPrice(50.0);
+        cart.addRealItem(chair, 100);
+        cart.addVirtualItem(game, 2);
+    }
+
+    /**
+     * Verifies that the standard engine prices lines exactly like the running totals.
+     * ★★★★★ - Essential, existing totals must not change.
+     */
+    @Test
+    void testStandardEngineMatchesRunningTotals() {
+        PriceQuote quote = cart.quote();
+
+        assertAll("Standard pricing of 100 chairs and 2 games",
+                () -> assertSame(PricingEngine.STANDARD, cart.getPricingEngine()),
+                () -> assertEquals(0, new BigDecimal("1100.0").compareTo(quote.net())),
+                () -> assertEquals(cart.getTotalPrice(), quote.total().doubleValue()),
+                () -> assertEquals(cart.getTax(), quote.tax().doubleValue()),
+                () -> assertEquals(1320.0, cart.getTotalPrice(), 0.0001));
+    }
+
+    /**
+     * Verifies that quotes price the units as they were added, like the running totals.
+     * ★★★☆☆ - Useful, repricing an item in the cart must not change one total but not the other.
+     */
+    @Test
+    void testQuoteUsesPricesAsAdded() {
+        chair.setPrice(99.0);
+
+        assertEquals(0, new BigDecimal("1100.0").compareTo(cart.quote().net()));
+        assertEquals(cart.getTotalPrice(), cart.quote().total().doubleValue());
+    }
+
+    /**
+     * Verifies that tax rates resolve by region first, then by the most specific item type.
+     * ★★★★★ - Critical, virtual goods and regions carry different rates.
+     */
+    @Test
+    void testRatesByTypeAndRegion() {
+        PricingRules rules = PricingRules.builder()
+                .taxRate(Item.class, 0.2)
+                .taxRate(VirtualItem.class, 0.1)
+                .taxRate(Item.class, "DE", 0.19)
+                .taxRate(VirtualItem.class, "DE", 0.07)
+                .build();
+
+        cart.setPricingEngine(rules.compile(null));
+        assertEquals(1000 * 0.2 + 100 * 0.1, cart.getTax(), 0.0001, "Virtual items should use their own rate.");
+        cart.setPricingEngine(rules.compile("DE"));
+        assertEquals(1000 * 0.19 + 100 * 0.07, cart.getTax(), 0.0001, "Regional rates should win.");
+        cart.setPricingEngine(rules.compile("FR"));
+        assertEquals(1000 * 0.2 + 100 * 0.1, cart.getTax(), 0.0001, "Other regions should fall back to the general rates.");
+        cart.setPricingEngine(null);
+        assertEquals(1320.0, cart.getTotalPrice(), 0.0001, "Null should restore the standard engine.");
+    }
+
+    /**
+     * Verifies quantity discounts and per-line rounding.
+     * ★★★★☆ - Important for bulk carts and invoices in whole cents.
+     */
+    @Test
+    void testDiscountsAndRounding() {
+        PricingRules rules = PricingRules.builder()
+                .taxRate(Item.class, 0.19)
+                .discount(RealItem.class, null, 5, 10)
+                .discount(RealItem.class, "Chair", 12.5, 100)
+                .discount(Item.class, "Chair", 1, 1000)
+                .rounding(2, RoundingMode.HALF_UP)
+                .build();
+        cart.setPricingEngine(rules.compile(null));
+        PriceQuote quote = cart.quote();
+
+        assertAll("100 chairs at 12.5% off, 2 games undiscounted",
+                () -> assertEquals(new BigDecimal("975.00"), quote.net()),
+                () -> assertEquals(new BigDecimal("185.25"), quote.tax()),
+                () -> assertEquals(1160.25, cart.getTotalPrice(), 0.0));
+
+        cart.setRealItemQuantity(chair, 50);
+        assertEquals(new BigDecimal("475.00").add(new BigDecimal("100.00")), cart.quote().net(),
+                "Below 100 chairs the general 5% discount should apply.");
+        assertEquals(500.0 + 100.0, cart.getSubtotal(), 0.0, "The subtotal should stay the sum of list prices.");
+    }
+
+    /**
+     * Verifies that concurrent carts use their engine too.
+     * ★★★☆☆ - Useful, concurrent carts keep totals on their own.
+     */
+    @Test
+    void testEngineOnConcurrentCart() {
+        ConcurrentCart concurrentCart = new ConcurrentCart("concurrent-priced");
+        concurrentCart.addRealItem(chair, 100);
+        concurrentCart.setPricingEngine(PricingRules.builder().taxRate(Item.class, 0.5).build().compile(null));
+
+        assertEquals(1500.0, concurrentCart.getTotalPrice(), 0.0001);
+        assertEquals(500.0, concurrentCart.getTax(), 0.0001);
+        assertSame(concurrentCart.getPricingEngine(), concurrentCart.snapshot().getPricingEngine());
+    }
+}